@@ -0,0 +1,93 @@
+package box.shoe.gameutils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collision checks between every pair of a few hundred boxes spread over a level, and the transformations
+ * used by line of sight.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class BoundingBoxBenchmark
+{
+    @Param("256")
+    public int count;
+
+    private BoundingBox[] boxes;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        Random random = new Random(42);
+        boxes = new BoundingBox[count];
+        for (int i = 0; i < count; i++)
+        {
+            boxes[i] = BoundingBox.fromCenter(random.nextFloat() * 1000, random.nextFloat() * 1000,
+                    10 + random.nextFloat() * 40, 10 + random.nextFloat() * 40);
+        }
+    }
+
+    @Benchmark
+    public int intersectsEveryPair()
+    {
+        int intersections = 0;
+        for (int i = 0; i < count; i++)
+        {
+            for (int j = i + 1; j < count; j++)
+            {
+                if (boxes[i].intersects(boxes[j]))
+                {
+                    intersections++;
+                }
+            }
+        }
+        return intersections;
+    }
+
+    @Benchmark
+    public void rotate()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            BoundingBox box = boxes[i];
+            box.rotate(1, box.centerX(), box.centerY());
+        }
+    }
+
+    @Benchmark
+    public void rotateByDirection()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            BoundingBox box = boxes[i];
+            box.rotate(Direction.EAST, Direction.SOUTH, box.centerX(), box.centerY());
+        }
+    }
+
+    @Benchmark
+    public int canSee()
+    {
+        int seen = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (boxes[i].canSee(boxes[(i + 1) % count], 200))
+            {
+                seen++;
+            }
+        }
+        return seen;
+    }
+}
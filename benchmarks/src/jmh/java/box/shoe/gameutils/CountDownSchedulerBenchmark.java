@@ -0,0 +1,54 @@
+package box.shoe.gameutils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of a scheduler full of repeating tasks, e.g. the fire timers of every enemy in a level.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class CountDownSchedulerBenchmark
+{
+    @Param("256")
+    public int tasks;
+
+    private CountDownScheduler scheduler;
+    private int fired = 0;
+
+    @Setup
+    public void setUp()
+    {
+        scheduler = new CountDownScheduler();
+        Runnable fire = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                fired++;
+            }
+        };
+        for (int i = 0; i < tasks; i++)
+        {
+            // Eternal tasks, which fire every 1 to 60 updates.
+            scheduler.schedule(1 + i % 60, 0, fire);
+        }
+    }
+
+    @Benchmark
+    public int update()
+    {
+        scheduler.update();
+        return fired;
+    }
+}
@@ -0,0 +1,100 @@
+package box.shoe.gameutils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One update of many accelerating Entities, through Entity.update() (which allocates a Vector per Entity)
+ * and through integrateInPlace().
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class EntityBenchmark
+{
+    @Param("1024")
+    public int count;
+
+    private Entity[] entities;
+    private InPlaceEntity[] inPlaceEntities;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        Random random = new Random(42);
+        entities = new Entity[count];
+        inPlaceEntities = new InPlaceEntity[count];
+        for (int i = 0; i < count; i++)
+        {
+            float x = random.nextFloat() * 1000;
+            float y = random.nextFloat() * 1000;
+            float dx = random.nextFloat() - 0.5f;
+            float dy = random.nextFloat() - 0.5f;
+            float ddx = (random.nextFloat() - 0.5f) / 100;
+            float ddy = (random.nextFloat() - 0.5f) / 100;
+            entities[i] = new Entity(BoundingBox.fromCenter(x, y, 10),
+                    Vector.fromCartesian(dx, dy), Vector.fromCartesian(ddx, ddy));
+            inPlaceEntities[i] = new InPlaceEntity(BoundingBox.fromCenter(x, y, 10),
+                    new MutableVector(dx, dy), new MutableVector(ddx, ddy));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            entities[i].cleanup();
+            inPlaceEntities[i].cleanup();
+        }
+    }
+
+    @Benchmark
+    public void update()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            entities[i].update();
+        }
+    }
+
+    @Benchmark
+    public void updateInPlace()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            inPlaceEntities[i].update();
+        }
+    }
+
+    private static final class InPlaceEntity extends Entity
+    {
+        private final MutableVector velocity;
+        private final MutableVector acceleration;
+
+        private InPlaceEntity(BoundingBox body, MutableVector velocity, MutableVector acceleration)
+        {
+            super(body);
+            this.velocity = velocity;
+            this.acceleration = acceleration;
+        }
+
+        @Override
+        public void update()
+        {
+            integrateInPlace(velocity, acceleration);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package box.shoe.gameutils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The fixed-point types against their float counterparts: one step of many steering bodies
+ * (accelerate at an angle, rotate, move, collide with a wall), and plain sine and cosine.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class FixedBenchmark
+{
+    @Param("1024")
+    public int count;
+
+    private int[] angles;
+    private double[] radians;
+
+    private MutableVector[] velocities;
+    private BoundingBox[] bodies;
+    private BoundingBox wall;
+
+    private FixedVector[] fixedVelocities;
+    private FixedBox[] fixedBodies;
+    private FixedBox fixedWall;
+
+    private final MutableVector acceleration = new MutableVector();
+    private final FixedVector fixedAcceleration = new FixedVector();
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        Random random = new Random(42);
+        angles = new int[count];
+        radians = new double[count];
+        velocities = new MutableVector[count];
+        bodies = new BoundingBox[count];
+        fixedVelocities = new FixedVector[count];
+        fixedBodies = new FixedBox[count];
+        for (int i = 0; i < count; i++)
+        {
+            angles[i] = random.nextInt(FixedMath.FULL_TURN);
+            radians[i] = 2 * Math.PI * angles[i] / FixedMath.FULL_TURN;
+            int x = random.nextInt(1000);
+            int y = random.nextInt(1000);
+            velocities[i] = new MutableVector();
+            bodies[i] = BoundingBox.fromCenter(x, y, 10);
+            fixedVelocities[i] = new FixedVector();
+            fixedBodies[i] = FixedBox.fromCenter(FixedMath.fromInt(x), FixedMath.fromInt(y),
+                    FixedMath.fromInt(10), FixedMath.fromInt(10));
+        }
+        wall = new BoundingBox(400, 0, 600, 1000);
+        fixedWall = new FixedBox(FixedMath.fromInt(400), 0, FixedMath.fromInt(600), FixedMath.fromInt(1000));
+    }
+
+    @Benchmark
+    public int floatStep()
+    {
+        int hits = 0;
+        for (int i = 0; i < count; i++)
+        {
+            acceleration.setPolar(0.01, radians[i]);
+            velocities[i].add(acceleration).rotateBy(0.01);
+            bodies[i].offset(velocities[i].getX(), velocities[i].getY());
+            if (bodies[i].intersects(wall))
+            {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int fixedStep()
+    {
+        int hits = 0;
+        for (int i = 0; i < count; i++)
+        {
+            fixedAcceleration.setPolar(FixedMath.ONE / 100, angles[i]);
+            fixedVelocities[i].add(fixedAcceleration).rotateBy(FixedMath.FULL_TURN / 628);
+            fixedBodies[i].offset(fixedVelocities[i]);
+            if (fixedBodies[i].intersects(fixedWall))
+            {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public double mathSinCos()
+    {
+        double sum = 0;
+        for (int i = 0; i < count; i++)
+        {
+            sum += Math.sin(radians[i]) + Math.cos(radians[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int fixedSinCos()
+    {
+        int sum = 0;
+        for (int i = 0; i < count; i++)
+        {
+            sum += FixedMath.sin(angles[i]) + FixedMath.cos(angles[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,110 @@
+package box.shoe.gameutils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FastTrig against Math, and the library calls which use it, with fast-math mode off and on.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class TrigBenchmark
+{
+    @Param("1024")
+    public int count;
+
+    @Param({"false", "true"})
+    public boolean fastMath;
+
+    @Param("4096")
+    public int resolution;
+
+    private double[] angles;
+    private Vector vector;
+
+    @Setup
+    public void setUp()
+    {
+        FastTrig.setEnabled(fastMath);
+        FastTrig.setResolution(resolution);
+
+        Random random = new Random(42);
+        angles = new double[count];
+        for (int i = 0; i < count; i++)
+        {
+            // Angles a game would use, a few turns either way.
+            angles[i] = (random.nextDouble() - 0.5) * 8 * Math.PI;
+        }
+        vector = Vector.fromCartesian(3, 4);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        FastTrig.setEnabled(false);
+        FastTrig.setResolution(FastTrig.DEFAULT_RESOLUTION);
+    }
+
+    // The baseline, which does not depend on fastMath.
+    @Benchmark
+    public double mathSinCos()
+    {
+        double sum = 0;
+        for (int i = 0; i < count; i++)
+        {
+            sum += Math.sin(angles[i]) + Math.cos(angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double fastTrigSinCos()
+    {
+        double sum = 0;
+        for (int i = 0; i < count; i++)
+        {
+            sum += FastTrig.sin(angles[i]) + FastTrig.cos(angles[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public void vectorFromPolar(Blackhole blackhole)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(Vector.fromPolar(5.0, angles[i]));
+        }
+    }
+
+    @Benchmark
+    public void vectorRotateBy(Blackhole blackhole)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(vector.rotateBy(angles[i]));
+        }
+    }
+
+    @Benchmark
+    public void directionFromTheta(Blackhole blackhole)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(Direction.fromTheta(angles[i]));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package box.shoe.gameutils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same operations over a screenful of vectors, done with Vector (allocating), MutableVector (in place)
+ * and VectorBatch (over arrays).
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class VectorBenchmark
+{
+    private static final double ROTATION = 0.01;
+
+    // About as many bullets as a busy pattern has on screen.
+    @Param("1024")
+    public int count;
+
+    private Vector[] vectors;
+    private MutableVector[] mutableVectors;
+    private float[] xs;
+    private float[] ys;
+    private float[] dxs;
+    private float[] dys;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        Random random = new Random(42);
+        vectors = new Vector[count];
+        mutableVectors = new MutableVector[count];
+        xs = new float[count];
+        ys = new float[count];
+        dxs = new float[count];
+        dys = new float[count];
+        for (int i = 0; i < count; i++)
+        {
+            float x = random.nextFloat() * 100 - 50;
+            float y = random.nextFloat() * 100 - 50;
+            vectors[i] = Vector.fromCartesian(x, y);
+            mutableVectors[i] = new MutableVector(x, y);
+            xs[i] = x;
+            ys[i] = y;
+            dxs[i] = random.nextFloat() - 0.5f;
+            dys[i] = random.nextFloat() - 0.5f;
+        }
+    }
+
+    @Benchmark
+    public void vectorAdd(Blackhole blackhole)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(vectors[i].add(vectors[count - 1 - i]));
+        }
+    }
+
+    @Benchmark
+    public void mutableVectorAdd()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            mutableVectors[i].add(dxs[i], dys[i]);
+        }
+    }
+
+    @Benchmark
+    public void batchAddScaled()
+    {
+        VectorBatch.addScaled(xs, ys, dxs, dys, 1, count);
+    }
+
+    @Benchmark
+    public void vectorRotateBy(Blackhole blackhole)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(vectors[i].rotateBy(ROTATION));
+        }
+    }
+
+    @Benchmark
+    public void mutableVectorRotateBy()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            mutableVectors[i].rotateBy(ROTATION);
+        }
+    }
+
+    @Benchmark
+    public void batchRotate()
+    {
+        VectorBatch.rotate(xs, ys, ROTATION, count);
+    }
+
+    @Benchmark
+    public void vectorUnit(Blackhole blackhole)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            blackhole.consume(vectors[i].unit());
+        }
+    }
+
+    @Benchmark
+    public void batchNormalize()
+    {
+        VectorBatch.normalize(xs, ys, count);
+    }
+}
@@ -0,0 +1,118 @@
+package box.shoe.gameutils.ai;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import box.shoe.gameutils.BoundingBox;
+import box.shoe.gameutils.Entity;
+
+/**
+ * One update of many AIs which pace back and forth, switching Behavior whenever they reach either end.
+ * In this package so that the Clauses can be built directly, instead of loaded from XML.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class AIBenchmark
+{
+    private static final float PACE_DISTANCE = 100;
+
+    @Param("256")
+    public int count;
+
+    private AI[] ais;
+    private Entity[] entities;
+
+    @Setup(Level.Iteration)
+    public void setUp()
+    {
+        Behavior right = new Walk(1);
+        Behavior left = new Walk(-1);
+        Condition atRightEnd = new Condition()
+        {
+            @Override
+            public boolean check(Entity entity)
+            {
+                return entity.body.left >= PACE_DISTANCE;
+            }
+        };
+        Condition atLeftEnd = new Condition()
+        {
+            @Override
+            public boolean check(Entity entity)
+            {
+                return entity.body.left <= 0;
+            }
+        };
+        Clause[] clauses = new Clause[] {
+                new Clause(new Premise[] {new Premise(right)},
+                        new Predicate[] {new Predicate(atRightEnd, new Result.SwapResult(new Outcome(left)))}),
+                new Clause(new Premise[] {new Premise(left)},
+                        new Predicate[] {new Predicate(atLeftEnd, new Result.SwapResult(new Outcome(right)))})
+        };
+
+        Random random = new Random(42);
+        ais = new AI[count];
+        entities = new Entity[count];
+        for (int i = 0; i < count; i++)
+        {
+            // Start spread out, so that they do not all switch on the same update.
+            float start = random.nextFloat() * PACE_DISTANCE;
+            entities[i] = new Entity(new BoundingBox(start, 0, start + 10, 10));
+            ais[i] = new AI(random.nextBoolean() ? right : left, clauses);
+            ais[i].control(entities[i]);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            entities[i].cleanup();
+        }
+    }
+
+    @Benchmark
+    public void update()
+    {
+        for (int i = 0; i < count; i++)
+        {
+            ais[i].update();
+        }
+    }
+
+    private static final class Walk implements Behavior
+    {
+        private final float step;
+
+        private Walk(float step)
+        {
+            this.step = step;
+        }
+
+        @Override
+        public void enter(Entity entity) {}
+
+        @Override
+        public void behave(Entity entity)
+        {
+            entity.body.offset(step, 0);
+        }
+
+        @Override
+        public void exit(Entity entity) {}
+    }
+}
@@ -0,0 +1,70 @@
+package box.shoe.gameutils.pooling;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taking a burst of objects from a pool and putting them back, against allocating them.
+ */
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class ObjectPoolBenchmark
+{
+    @Param("128")
+    public int poolSize;
+
+    // How many objects are taken at once, e.g. the particles of one burst.
+    @Param("32")
+    public int burst;
+
+    private FactoryObjectPool<float[]> pool;
+    private float[][] taken;
+
+    @Setup
+    public void setUp()
+    {
+        pool = new FactoryObjectPool<>(poolSize, new FactoryObjectPool.Factory<float[]>()
+        {
+            @Override
+            public float[] create()
+            {
+                return new float[4];
+            }
+        });
+        taken = new float[burst][];
+    }
+
+    @Benchmark
+    public void getAndPut()
+    {
+        for (int i = 0; i < burst; i++)
+        {
+            taken[i] = pool.get();
+        }
+        for (int i = 0; i < burst; i++)
+        {
+            pool.put(taken[i]);
+        }
+    }
+
+    // The baseline the pool has to beat.
+    @Benchmark
+    public void allocate(Blackhole blackhole)
+    {
+        for (int i = 0; i < burst; i++)
+        {
+            blackhole.consume(new float[4]);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package box.gift.gameutils;
+
+/**
+ * Stands in for the BuildConfig which the Android build generates.
+ * Benchmarks measure release builds, which also keeps debug-only Log calls (native code) from running.
+ */
+
+public final class BuildConfig
+{
+    public static final boolean DEBUG = false;
+}
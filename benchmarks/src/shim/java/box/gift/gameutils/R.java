@@ -0,0 +1,15 @@
+package box.gift.gameutils;
+
+/**
+ * Stands in for the R which the Android build generates, for the resources the Engine names its threads by.
+ * The ids are not real resources; nothing benchmarked looks them up.
+ */
+
+public final class R
+{
+    public static final class string
+    {
+        public static final int update_thread_name = 1;
+        public static final int frame_thread_name = 2;
+    }
+}
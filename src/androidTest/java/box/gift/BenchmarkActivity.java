@@ -0,0 +1,12 @@
+package box.gift;
+
+import android.app.Activity;
+
+/**
+ * An empty Activity for instrumented benchmarks to put a Screen in.
+ */
+
+public class BenchmarkActivity extends Activity
+{
+
+}
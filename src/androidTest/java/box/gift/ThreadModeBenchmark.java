@@ -0,0 +1,177 @@
+package box.gift;
+
+import android.app.Instrumentation;
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.MotionEvent;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import box.shoe.gameutils.BoundingBox;
+import box.shoe.gameutils.Entity;
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.engine.Engine;
+import box.shoe.gameutils.engine.EngineStats;
+import box.shoe.gameutils.engine.Game;
+import box.shoe.gameutils.engine.Histogram;
+import box.shoe.gameutils.screen.SurfaceViewScreen;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the same Game in THREAD_MODE_DUAL and in THREAD_MODE_SINGLE on a device, and logs the EngineStats of each
+ * (update and frame durations, and frames which were skipped or starved) under the tag "ThreadModeBenchmark".
+ * Run with: gradle connectedAndroidTest, then read logcat.
+ */
+
+@RunWith(AndroidJUnit4.class)
+public class ThreadModeBenchmark
+{
+    private static final String TAG = "ThreadModeBenchmark";
+
+    // Let the JIT and the display settle before measuring.
+    private static final long WARMUP_MS = 3000;
+    private static final long MEASURE_MS = 10000;
+
+    @Rule
+    public ActivityTestRule<BenchmarkActivity> activityRule = new ActivityTestRule<>(BenchmarkActivity.class);
+
+    @Test
+    public void compareThreadModes()
+    {
+        EngineStats dual = run(Engine.THREAD_MODE_DUAL);
+        EngineStats single = run(Engine.THREAD_MODE_SINGLE);
+        log("THREAD_MODE_DUAL", dual);
+        log("THREAD_MODE_SINGLE", single);
+        assertTrue("Frames were painted in THREAD_MODE_DUAL", dual.getFrameDurations().getCount() > 0);
+        assertTrue("Frames were painted in THREAD_MODE_SINGLE", single.getFrameDurations().getCount() > 0);
+    }
+
+    private EngineStats run(final int threadMode)
+    {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        final Engine[] engine = new Engine[1];
+        instrumentation.runOnMainSync(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                BenchmarkActivity activity = activityRule.getActivity();
+                SurfaceViewScreen screen = new SurfaceViewScreen(activity);
+                activity.setContentView(screen);
+                engine[0] = new Engine(screen, new SwarmGame(), threadMode);
+                engine[0].startGame();
+            }
+        });
+
+        SystemClock.sleep(WARMUP_MS);
+        engine[0].getStats().reset();
+        SystemClock.sleep(MEASURE_MS);
+
+        instrumentation.runOnMainSync(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                engine[0].stopGame();
+            }
+        });
+        return engine[0].getStats();
+    }
+
+    private static void log(String name, EngineStats stats)
+    {
+        Log.i(TAG, name + ": updates " + describe(stats.getUpdateDurations())
+                + ", frames " + describe(stats.getFrameDurations())
+                + ", skipped " + stats.getSkippedFrames()
+                + ", starved " + stats.getStarvedFrames()
+                + ", catch ups " + stats.getCatchUps());
+    }
+
+    private static String describe(Histogram durations)
+    {
+        return durations.getCount() + " (mean " + durations.getMean() / 1000 + "us, p50 "
+                + durations.getValueAtFraction(0.5) / 1000 + "us, p99 "
+                + durations.getValueAtFraction(0.99) / 1000 + "us)";
+    }
+
+    // Many moving, interpolated Entities, drawn as rectangles: a typical load for both threads.
+    private static class SwarmGame implements Game
+    {
+        private static final int ENTITY_COUNT = 500;
+
+        private final Entity[] entities = new Entity[ENTITY_COUNT];
+        private final Paint paint = new Paint();
+        private int width;
+        private int height;
+
+        @Override
+        public void onStart(int screenWidth, int screenHeight)
+        {
+            width = screenWidth;
+            height = screenHeight;
+            Random random = new Random(42);
+            for (int i = 0; i < ENTITY_COUNT; i++)
+            {
+                entities[i] = new Entity(BoundingBox.fromCenter(random.nextInt(width), random.nextInt(height), 20));
+                Interpolatable.INTERPOLATABLE_SERVICE.addMember(entities[i]);
+            }
+            paint.setColor(Color.WHITE);
+        }
+
+        @Override
+        public void onStop()
+        {
+            for (Entity entity : entities)
+            {
+                entity.cleanup();
+            }
+        }
+
+        @Override
+        public void onScreenSizeChanged(int newScreenWidth, int newScreenHeight, int oldScreenWidth, int oldScreenHeight) {}
+
+        @Override
+        public void onTouch(MotionEvent touchEvent) {}
+
+        @Override
+        public int getTargetUpdatesPerSecond()
+        {
+            return 50;
+        }
+
+        @Override
+        public void update()
+        {
+            for (Entity entity : entities)
+            {
+                entity.body.offset(3, 2);
+                if (entity.body.left > width || entity.body.top > height)
+                {
+                    entity.body.offsetTo(0, 0);
+                }
+            }
+        }
+
+        @Override
+        public void render(Resources resources, Canvas canvas)
+        {
+            canvas.drawColor(Color.BLACK);
+            for (Entity entity : entities)
+            {
+                canvas.drawRect(entity.display, paint);
+            }
+        }
+    }
+}
@@ -20,8 +20,8 @@ public class Direction
     //TODO: from Vector, not from Theta
     public static Direction fromTheta(double theta)
     {
-        double sinTheta = Math.sin(theta);
-        double cosTheta = Math.cos(theta);
+        double sinTheta = FastTrig.sin(theta);
+        double cosTheta = FastTrig.cos(theta);
         final double INVERSE_SQRT_2 = Math.cos(Math.PI / 4);
         if (sinTheta > 0)
         {
@@ -16,7 +16,7 @@ import box.gift.gameutils.BuildConfig;
  * An Entity is not necessarily fit for rendering.
  * @see Renderable for an Entity which is meant to be displayed during the game.
  */ //TODO: type of short-lived entity that exists only for a number of frames? (particle)
-public class Entity implements Updatable, Interpolatable /* Poolable*/
+public class Entity implements Updatable, VersionedInterpolatable /* Poolable*/
 {
     // The game-space which is occupied by this Entity.
     public BoundingBox body;
@@ -31,6 +31,22 @@ public class Entity implements Updatable, Interpolatable /* Poolable*/
     // Enforce cleanup method call.
     private boolean cleaned = false;
 
+    // Set by integrateFixed(), after which the float body is only a copy of the fixed one, and must not be
+    // moved by the float integration as well.
+    private boolean integratedFixed = false;
+
+    // Whether the Engine may skip saving and interpolating this Entity while it does not move. Off by default,
+    // since only the body is tracked, and subclasses may save more than the body.
+    private boolean interpVersioned = false;
+
+    // The body as it was last saved, and how many times it has been saved with a change.
+    // Lets the Engine skip saving and interpolating Entities which do not move.
+    private float savedLeft;
+    private float savedTop;
+    private float savedRight;
+    private float savedBottom;
+    private long interpVersion = 0;
+
     public Entity(BoundingBox body)
     {
         this(body, Vector.ZERO, Vector.ZERO);
@@ -70,6 +86,7 @@ public class Entity implements Updatable, Interpolatable /* Poolable*/
      * Updates velocity based on current acceleration,
      * and then updates position based on new velocity.
      * We do not need to multiply by dt because every time-step is of equal length.
+     * Entities which move with integrateFixed() must not call this (it throws once integrateFixed() has been used).
      */
     @Override
     @CallSuper
@@ -106,14 +123,63 @@ public class Entity implements Updatable, Interpolatable /* Poolable*/
      * We define update() in terms of smaller functions so that subclasses have more customization options.
      * The purpose of this function is to update this Entity's position.
      * The default implementation is to offset by velocity.
+     * @throws IllegalStateException if this Entity moves with integrateFixed().
      */
     @RestrictTo(RestrictTo.Scope.SUBCLASSES)
     @CallSuper
     protected void updatePosition()
     {
+        checkNotFixed();
         body.offset(velocity.getX(), velocity.getY());
     }
 
+    /**
+     * An allocation-free alternative to update(), for Entities which keep their motion in MutableVectors
+     * (updateVelocity() makes a new Vector every update while there is any acceleration).
+     * Does the same Semi-Implicit Euler step: adds the acceleration to the velocity, then offsets the body by it.
+     * Subclasses which use this should call it from update() instead of calling super.update(), and leave the
+     * Vector velocity and acceleration alone.
+     * @param velocity the velocity, which is changed in place.
+     * @param acceleration the acceleration.
+     * @throws IllegalStateException if this Entity moves with integrateFixed().
+     */
+    @RestrictTo(RestrictTo.Scope.SUBCLASSES)
+    protected final void integrateInPlace(@NonNull MutableVector velocity, @NonNull MutableVector acceleration)
+    {
+        checkNotFixed();
+        velocity.add(acceleration);
+        body.offset(velocity.getX(), velocity.getY());
+    }
+
+    /**
+     * Like integrateInPlace(), but in fixed-point, for Entities whose motion must come out bit-identical on
+     * every device (see FixedMath). The Entity's real position is kept in fixedBody; the float body is only
+     * set from it afterwards, so that rendering and interpolation keep working, and should not be changed
+     * by anything else. Once this has been called, update() and integrateInPlace() throw, since they would move
+     * the float body on its own; subclasses should call this from update() instead of calling super.update().
+     * @param fixedBody the position, which is offset in place.
+     * @param velocity the velocity, which is changed in place.
+     * @param acceleration the acceleration.
+     */
+    @RestrictTo(RestrictTo.Scope.SUBCLASSES)
+    protected final void integrateFixed(@NonNull FixedBox fixedBody, @NonNull FixedVector velocity,
+                                        @NonNull FixedVector acceleration)
+    {
+        integratedFixed = true;
+        velocity.add(acceleration);
+        fixedBody.offset(velocity);
+        fixedBody.toRectF(body);
+    }
+
+    private void checkNotFixed()
+    {
+        if (integratedFixed)
+        {
+            throw new IllegalStateException("This Entity moves with integrateFixed(), so its float body cannot "
+                    + "also be moved by update() or integrateInPlace().");
+        }
+    }
+
     /**
      * Creates a vector from the center of this Entity to the center of another.
      * It's magnitude is the distance between the two Entities.
@@ -146,11 +212,11 @@ public class Entity implements Updatable, Interpolatable /* Poolable*/
 
     /**
      * When trying to debug, let the user know when they have de-referenced an Entity that was
-     * not cleaned up. Not cleaning up an Entity can lead to sub-optimal performance
-     * in the time before it is garbage collected, because they will still be in the
-     * lists of services that will operate on them, without any real reason.
-     * The services use weak data structures so the Entities may still be eventually GC'd,
-     * at which point, this finalize may be run to alert the user that cleanup was not called.
+     * not cleaned up. Not cleaning up an Entity is a memory leak in release builds, because
+     * the services hold on to their members until they are removed, and keep operating on them
+     * without any real reason. In debug builds the services only hold their members weakly,
+     * so the Entities may still be eventually GC'd, at which point, this finalize may be run
+     * to alert the user that cleanup was not called.
      * Of course, it is up to each Entity subclass to override cleanup() to remove the services
      * they register for (and also to throw the Entity back in a Pool if it came from one).
      */
@@ -202,6 +268,53 @@ public class Entity implements Updatable, Interpolatable /* Poolable*/
         out[3] = body.bottom;
     }
 
+    /**
+     * Let the Engine skip saving and interpolating this Entity while its body has not moved or resized,
+     * e.g. for the static props of a large map (see VersionedInterpolatable).
+     * Subclasses which save more interp values than just the body must call markInterpChanged() whenever those
+     * change, or override getInterpVersion(), before turning this on.
+     * @param interpVersioned true to skip the Entity while it does not change, false to always save and
+     *                        interpolate it (the default).
+     */
+    public void setInterpVersioned(boolean interpVersioned)
+    {
+        this.interpVersioned = interpVersioned;
+    }
+
+    /**
+     * Change the interp version, for subclasses whose interp values other than the body have changed.
+     * Only needed once setInterpVersioned(true) has been called.
+     */
+    @RestrictTo(RestrictTo.Scope.SUBCLASSES)
+    protected final void markInterpChanged()
+    {
+        interpVersion++;
+    }
+
+    /**
+     * UNVERSIONED, unless setInterpVersioned(true) was called, in which case the version changes whenever
+     * the body has moved or resized since the last call (or markInterpChanged() was called).
+     */
+    @Override
+    public long getInterpVersion()
+    {
+        if (!interpVersioned)
+        {
+            return UNVERSIONED;
+        }
+
+        if (body.left != savedLeft || body.top != savedTop || body.right != savedRight || body.bottom != savedBottom
+                || interpVersion == 0)
+        {
+            savedLeft = body.left;
+            savedTop = body.top;
+            savedRight = body.right;
+            savedBottom = body.bottom;
+            interpVersion++;
+        }
+        return interpVersion;
+    }
+
     @Override
     public void loadInterpValues(float[] in)
     {
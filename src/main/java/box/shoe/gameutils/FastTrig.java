@@ -0,0 +1,153 @@
+package box.shoe.gameutils;
+
+/**
+ * Sine and cosine which, in fast-math mode, are looked up in a precomputed table instead of being computed.
+ * Used by Vector.fromPolar, Vector.rotateBy, MutableVector and Direction.fromTheta, which are on the hot paths
+ * of games that fire many projectiles at many angles. Fast-math mode is off by default, in which case
+ * sin() and cos() are exactly Math.sin() and Math.cos().
+ *
+ * The table holds one full turn, sampled at a resolution of some power of two entries, and values between
+ * entries are linearly interpolated. The error of linear interpolation is at most h^2 / 8 (times the largest
+ * second derivative, which is 1), where h = 2PI / resolution is the step between entries, plus the rounding of
+ * each entry to a float. See getMaxError(). At the default resolution of 4096, that is below 4E-7, about 3 ulps
+ * of 1f (floats near 1 are 1.2E-7 apart), so for positions and velocities (which are floats) the difference
+ * from Math is that of a few roundings.
+ * Angles are reduced to a turn in double precision, which loses more of the angle the larger it is. Up to 2^20
+ * turns (about 6.6 million radians) that loss is below 3E-9 and is part of getMaxError(); beyond that
+ * (and for NaN and infinities), Math is used.
+ *
+ * The table is built with StrictMath, so it is the same on every device, which keeps replays deterministic.
+ * Choose the mode and resolution once, before the Engine starts; changing them during a game is thread safe
+ * but changes the results of the game's math.
+ */
+
+public final class FastTrig
+{
+    public static final int DEFAULT_RESOLUTION = 4096;
+
+    private static final double TWO_PI = 2 * Math.PI;
+
+    // Outside of this many turns, angles can not be reduced accurately enough.
+    private static final double MAX_TURNS = 1 << 20;
+    // The most that reducing an angle of up to MAX_TURNS to a turn can be off by, in radians: TWO_PI and the
+    // division by it are each rounded, and adding the turn offset rounds again, by up to an ulp of the turns.
+    private static final double MAX_REDUCTION_ERROR = TWO_PI * MAX_TURNS * 2.5 * Math.ulp(1.0) / 2;
+
+    // Whether to use the table at all.
+    private static volatile boolean enabled = false;
+
+    // Sine of one full turn, with one more entry at the end (equal to the first) so that interpolating from
+    // the last entry needs no wrap around. Replaced whole, never modified, when the resolution changes.
+    private static volatile float[] sinTable = buildTable(DEFAULT_RESOLUTION);
+
+    /**
+     * No instantiation.
+     */
+    private FastTrig() {}
+
+    /**
+     * Turn fast-math mode on or off.
+     * @param enabled true to look sine and cosine up in the table, false to use Math.
+     */
+    public static void setEnabled(boolean enabled)
+    {
+        FastTrig.enabled = enabled;
+    }
+
+    public static boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Rebuild the table at a different resolution. A table of n entries takes 4n bytes.
+     * @param entriesPerTurn how many entries to sample one full turn at. Must be a power of two, at least 4.
+     */
+    public static void setResolution(int entriesPerTurn)
+    {
+        if (entriesPerTurn < 4 || Integer.bitCount(entriesPerTurn) != 1)
+        {
+            throw new IllegalArgumentException("Resolution must be a power of two, at least 4: " + entriesPerTurn);
+        }
+        sinTable = buildTable(entriesPerTurn);
+    }
+
+    public static int getResolution()
+    {
+        return sinTable.length - 1;
+    }
+
+    /**
+     * Get the most that sin() and cos() may be off by in fast-math mode, at the current resolution.
+     * @return the error bound.
+     */
+    public static double getMaxError()
+    {
+        double step = TWO_PI / getResolution();
+        // Interpolation error, plus the rounding of the two entries it interpolates between (half a float ulp of 1),
+        // plus the error in the angle itself (sine and cosine change by at most as much as the angle does).
+        return step * step / 8 + Math.ulp(1f) / 2 + MAX_REDUCTION_ERROR;
+    }
+
+    /**
+     * Get the sine of an angle, from the table in fast-math mode, or else from Math.
+     * @param radians the angle.
+     * @return the sine.
+     */
+    public static double sin(double radians)
+    {
+        if (!enabled)
+        {
+            return Math.sin(radians);
+        }
+        return lookUp(radians, 0);
+    }
+
+    /**
+     * Get the cosine of an angle, from the table in fast-math mode, or else from Math.
+     * @param radians the angle.
+     * @return the cosine.
+     */
+    public static double cos(double radians)
+    {
+        if (!enabled)
+        {
+            return Math.cos(radians);
+        }
+        // cos(x) = sin(x + PI/2), which is a quarter of the table further along.
+        return lookUp(radians, 0.25);
+    }
+
+    private static double lookUp(double radians, double turnOffset)
+    {
+        // Read once, so that the whole lookup uses the same table even if it is replaced meanwhile.
+        float[] table = sinTable;
+        int resolution = table.length - 1;
+
+        double turns = radians / TWO_PI + turnOffset;
+        if (!(Math.abs(turns) < MAX_TURNS))
+        {
+            return turnOffset == 0 ? Math.sin(radians) : Math.cos(radians);
+        }
+
+        // Which entry the angle falls after, and how far it is to the next one.
+        double position = (turns - Math.floor(turns)) * resolution;
+        int index = (int) position;
+        double fraction = position - index;
+        // position can round up to exactly resolution, in which case the extra entry is both ends.
+        float from = table[index];
+        float to = table[Math.min(index + 1, resolution)];
+        return from + (to - from) * fraction;
+    }
+
+    private static float[] buildTable(int resolution)
+    {
+        float[] table = new float[resolution + 1];
+        for (int i = 0; i < resolution; i++)
+        {
+            table[i] = (float) StrictMath.sin(TWO_PI * i / resolution);
+        }
+        table[resolution] = table[0];
+        return table;
+    }
+}
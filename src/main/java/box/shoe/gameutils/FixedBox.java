@@ -0,0 +1,144 @@
+package box.shoe.gameutils;
+
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * An axis-aligned box in fixed-point (Q16.16, see FixedMath), the counterpart of BoundingBox for simulations
+ * which must give bit-identical results on every device. Coordinates are public, like BoundingBox's.
+ */
+
+public final class FixedBox
+{
+    public int left;
+    public int top;
+    public int right;
+    public int bottom;
+
+    /**
+     * Create a new empty FixedBox. All coordinates are initialized to 0.
+     */
+    public FixedBox()
+    {
+
+    }
+
+    /**
+     * Create a new FixedBox with the specified coordinates, in Q16.16. Note: no range checking is performed,
+     * so the caller must ensure that left <= right and top <= bottom.
+     */
+    public FixedBox(int left, int top, int right, int bottom)
+    {
+        set(left, top, right, bottom);
+    }
+
+    public static FixedBox fromCenter(int centerX, int centerY, int width, int height)
+    {
+        return new FixedBox(centerX - width / 2, centerY - height / 2, centerX + width / 2, centerY + height / 2);
+    }
+
+    public void set(int left, int top, int right, int bottom)
+    {
+        this.left = left;
+        this.top = top;
+        this.right = right;
+        this.bottom = bottom;
+    }
+
+    public void set(@NonNull FixedBox other)
+    {
+        set(other.left, other.top, other.right, other.bottom);
+    }
+
+    // ___________
+    // COLLISIONS.
+
+    /**
+     * Returns true if this FixedBox intersects the specified FixedBox, the same way BoundingBox.intersects() does
+     * (boxes which only share an edge do not intersect).
+     */
+    @Contract(pure = true)
+    public boolean intersects(@NonNull FixedBox other)
+    {
+        return this.left < other.right && other.left < this.right
+                && this.top < other.bottom && other.top < this.bottom;
+    }
+
+    @Contract(pure = true)
+    public boolean contains(int x, int y)
+    {
+        return left <= x && x < right && top <= y && y < bottom;
+    }
+
+    // ________________
+    // TRANSFORMATIONS.
+
+    public void offset(int dx, int dy)
+    {
+        left += dx;
+        top += dy;
+        right += dx;
+        bottom += dy;
+    }
+
+    public void offset(@NonNull FixedVector offsetVector)
+    {
+        offset(offsetVector.getX(), offsetVector.getY());
+    }
+
+    public void offsetTo(int newLeft, int newTop)
+    {
+        offset(newLeft - left, newTop - top);
+    }
+
+    // ________
+    // GETTERS.
+
+    @Contract(pure = true)
+    public int width()
+    {
+        return right - left;
+    }
+
+    @Contract(pure = true)
+    public int height()
+    {
+        return bottom - top;
+    }
+
+    @Contract(pure = true)
+    public int centerX()
+    {
+        return (left + right) >> 1;
+    }
+
+    @Contract(pure = true)
+    public int centerY()
+    {
+        return (top + bottom) >> 1;
+    }
+
+    /**
+     * Copies this FixedBox, converted to float, into a RectF (e.g. an Entity's body, for rendering).
+     * @param out the RectF to set.
+     */
+    public void toRectF(@NonNull RectF out)
+    {
+        out.set(FixedMath.toFloat(left), FixedMath.toFloat(top), FixedMath.toFloat(right), FixedMath.toFloat(bottom));
+    }
+
+    @NonNull
+    @Contract(pure = true)
+    @Override
+    public String toString()
+    {
+        return "FixedBox{" +
+                "left=" + FixedMath.toFloat(left) +
+                ", top=" + FixedMath.toFloat(top) +
+                ", right=" + FixedMath.toFloat(right) +
+                ", bottom=" + FixedMath.toFloat(bottom) +
+                '}';
+    }
+}
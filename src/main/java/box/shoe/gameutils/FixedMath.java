@@ -0,0 +1,199 @@
+package box.shoe.gameutils;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * Fixed-point math, for simulations which must come out bit-identical on every device
+ * (lockstep multiplayer, and replays which are checked against a recorded result).
+ *
+ * Numbers are ints in Q16.16 format: the high 16 bits are the whole part and the low 16 bits the fraction,
+ * so ONE is 1 << 16, the range is about -32768 to 32768, and the precision is 1/65536. Adding and subtracting
+ * are plain int + and -; use mul() and div() to multiply and divide. Overflow wraps around, like int math does.
+ *
+ * Angles are ints too, in units of 1/65536 of a turn (FULL_TURN), counterclockwise from +x like Vector's,
+ * so they wrap around for free. sin() and cos() look up a table of 4096 entries, linearly interpolated,
+ * which is off from the true value by at most 2 / 65536.
+ *
+ * Nothing here touches float or double at runtime, and the tables are built with StrictMath and rounded with
+ * Math.round(), which are both exactly specified, so every device gets the same tables and the same results.
+ * Use FixedVector and FixedBox for the simulation, and only convert to float (toFloat()) for rendering.
+ */
+
+public final class FixedMath
+{
+    public static final int FRACTION_BITS = 16;
+    public static final int ONE = 1 << FRACTION_BITS;
+    public static final int HALF = ONE >> 1;
+
+    // Angles.
+    public static final int FULL_TURN = 1 << 16;
+    public static final int HALF_TURN = FULL_TURN >> 1;
+    public static final int QUARTER_TURN = FULL_TURN >> 2;
+
+    // PI, in Q16.16.
+    public static final int PI = 205887;
+
+    // How many angle units make one radian, in Q16.16 (FULL_TURN / 2PI).
+    private static final int ANGLE_UNITS_PER_RADIAN = 683565276;
+
+    // The sine table covers one full turn, with one more entry at the end (equal to the first) so that
+    // interpolating from the last entry needs no wrap around.
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    // The bits of an angle below the table index, which interpolate between entries.
+    private static final int INTERPOLATION_BITS = 16 - TABLE_BITS;
+    private static final int INTERPOLATION_MASK = (1 << INTERPOLATION_BITS) - 1;
+    private static final int[] SIN_TABLE = new int[TABLE_SIZE + 1];
+
+    static
+    {
+        for (int i = 0; i < TABLE_SIZE; i++)
+        {
+            SIN_TABLE[i] = (int) Math.round(StrictMath.sin(2 * StrictMath.PI * i / TABLE_SIZE) * ONE);
+        }
+        SIN_TABLE[TABLE_SIZE] = SIN_TABLE[0];
+    }
+
+    /**
+     * No instantiation.
+     */
+    private FixedMath() {}
+
+    // ____________
+    // CONVERSIONS.
+
+    @Contract(pure = true)
+    public static int fromInt(int value)
+    {
+        return value << FRACTION_BITS;
+    }
+
+    /**
+     * Converts a float to the nearest fixed-point number. Only for setting things up (e.g. from level data);
+     * floats that were computed differently on different devices will of course not convert the same.
+     */
+    @Contract(pure = true)
+    public static int fromFloat(float value)
+    {
+        return Math.round(value * ONE);
+    }
+
+    /**
+     * Rounds toward negative infinity, like Math.floor().
+     */
+    @Contract(pure = true)
+    public static int toInt(int fixed)
+    {
+        return fixed >> FRACTION_BITS;
+    }
+
+    /**
+     * Converts to float, e.g. for rendering. Do not feed the result back into the simulation.
+     */
+    @Contract(pure = true)
+    public static float toFloat(int fixed)
+    {
+        return fixed / (float) ONE;
+    }
+
+    /**
+     * Converts an angle in radians (in Q16.16) to angle units.
+     */
+    @Contract(pure = true)
+    public static int angleFromRadians(int radians)
+    {
+        // Both are Q16.16, and angles have no fraction bits.
+        return (int) (((long) radians * ANGLE_UNITS_PER_RADIAN) >> (2 * FRACTION_BITS));
+    }
+
+    // ___________
+    // OPERATIONS.
+
+    /**
+     * Multiplies two fixed-point numbers, rounding toward negative infinity.
+     */
+    @Contract(pure = true)
+    public static int mul(int a, int b)
+    {
+        return (int) (((long) a * b) >> FRACTION_BITS);
+    }
+
+    /**
+     * Divides two fixed-point numbers, rounding toward zero.
+     * @throws ArithmeticException if b is 0.
+     */
+    @Contract(pure = true)
+    public static int div(int a, int b)
+    {
+        return (int) (((long) a << FRACTION_BITS) / b);
+    }
+
+    /**
+     * Takes the square root of a fixed-point number, rounding down.
+     * @throws ArithmeticException if the number is negative.
+     */
+    @Contract(pure = true)
+    public static int sqrt(int fixed)
+    {
+        if (fixed < 0)
+        {
+            throw new ArithmeticException("Cannot take the square root of a negative number: " + toFloat(fixed));
+        }
+        // sqrt(a / 2^16) * 2^16 = sqrt(a * 2^16).
+        return (int) sqrtLong((long) fixed << FRACTION_BITS);
+    }
+
+    /**
+     * The integer square root of a non-negative long, rounding down. Digit by digit, so it is exact.
+     */
+    /* pack */ static long sqrtLong(long value)
+    {
+        long result = 0;
+        // The highest power of four that is not above value.
+        long bit = 1L << 62;
+        while (bit > value)
+        {
+            bit >>= 2;
+        }
+        while (bit != 0)
+        {
+            if (value >= result + bit)
+            {
+                value -= result + bit;
+                result = (result >> 1) + bit;
+            }
+            else
+            {
+                result >>= 1;
+            }
+            bit >>= 2;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the sine of an angle.
+     * @param angle the angle, in units of 1/65536 of a turn. Any int, since angles wrap around.
+     * @return the sine, in Q16.16.
+     */
+    @Contract(pure = true)
+    public static int sin(int angle)
+    {
+        int wrapped = angle & (FULL_TURN - 1);
+        int index = wrapped >> INTERPOLATION_BITS;
+        int fraction = wrapped & INTERPOLATION_MASK;
+        int from = SIN_TABLE[index];
+        return from + (((SIN_TABLE[index + 1] - from) * fraction) >> INTERPOLATION_BITS);
+    }
+
+    /**
+     * Gets the cosine of an angle.
+     * @param angle the angle, in units of 1/65536 of a turn. Any int, since angles wrap around.
+     * @return the cosine, in Q16.16.
+     */
+    @Contract(pure = true)
+    public static int cos(int angle)
+    {
+        return sin(angle + QUARTER_TURN);
+    }
+}
@@ -0,0 +1,212 @@
+package box.shoe.gameutils;
+
+import android.support.annotation.NonNull;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * A MutableVector in fixed-point (Q16.16, see FixedMath), whose operations give bit-identical results on
+ * every device. Like MutableVector, operations change this FixedVector and return it, so nothing is allocated.
+ */
+
+public final class FixedVector
+{
+    // Length in the +x (rightward) direction, in Q16.16.
+    private int x;
+    // Length in the +y (downward) direction, in Q16.16.
+    private int y;
+
+    /**
+     * Constructs a zero FixedVector.
+     */
+    public FixedVector()
+    {
+        this(0, 0);
+    }
+
+    /**
+     * @param x the X length, in Q16.16.
+     * @param y the Y length, in Q16.16.
+     */
+    public FixedVector(int x, int y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+
+    // ________
+    // SETTERS.
+
+    @NonNull
+    public FixedVector set(int x, int y)
+    {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    @NonNull
+    public FixedVector set(@NonNull FixedVector vector)
+    {
+        return set(vector.x, vector.y);
+    }
+
+    /**
+     * Sets this FixedVector from polar coordinate values.
+     * @param magnitude the length, in Q16.16.
+     * @param angle the angle, in units of 1/65536 of a turn (CCW from +x).
+     * @return this FixedVector.
+     */
+    @NonNull
+    public FixedVector setPolar(int magnitude, int angle)
+    {
+        return set(FixedMath.mul(magnitude, FixedMath.cos(angle)), FixedMath.mul(magnitude, FixedMath.sin(angle)));
+    }
+
+    // ___________
+    // OPERATIONS.
+
+    @NonNull
+    public FixedVector add(int x, int y)
+    {
+        this.x += x;
+        this.y += y;
+        return this;
+    }
+
+    @NonNull
+    public FixedVector add(@NonNull FixedVector otherVector)
+    {
+        return add(otherVector.x, otherVector.y);
+    }
+
+    @NonNull
+    public FixedVector subtract(@NonNull FixedVector otherVector)
+    {
+        return add(-otherVector.x, -otherVector.y);
+    }
+
+    /**
+     * Adds another FixedVector, scaled by a factor, to this one (e.g. a velocity times a number of steps).
+     * @param otherVector the FixedVector to add.
+     * @param factor what to scale it by first, in Q16.16.
+     * @return this FixedVector.
+     */
+    @NonNull
+    public FixedVector addScaled(@NonNull FixedVector otherVector, int factor)
+    {
+        return add(FixedMath.mul(otherVector.x, factor), FixedMath.mul(otherVector.y, factor));
+    }
+
+    /**
+     * @param factor what to scale by, in Q16.16.
+     */
+    @NonNull
+    public FixedVector scale(int factor)
+    {
+        return set(FixedMath.mul(x, factor), FixedMath.mul(y, factor));
+    }
+
+    /**
+     * Scales this FixedVector to a magnitude of 1, keeping its direction (as closely as Q16.16 can).
+     * @return this FixedVector.
+     * @throws ArithmeticException if the magnitude is 0.
+     */
+    @NonNull
+    public FixedVector unit()
+    {
+        int magnitude = getMagnitude();
+        if (magnitude == 0)
+        {
+            throw new ArithmeticException("Vector magnitude is 0. Cannot create unit vector.");
+        }
+        return set(FixedMath.div(x, magnitude), FixedMath.div(y, magnitude));
+    }
+
+    /**
+     * Rotates this FixedVector.
+     * @param deltaAngle the angle to rotate by, in units of 1/65536 of a turn.
+     * @return this FixedVector.
+     */
+    @NonNull
+    public FixedVector rotateBy(int deltaAngle)
+    {
+        int cos = FixedMath.cos(deltaAngle);
+        int sin = FixedMath.sin(deltaAngle);
+        // Sum in long before shifting, so that there is only one rounding per coordinate.
+        long rotatedX = (long) x * cos - (long) y * sin;
+        long rotatedY = (long) x * sin + (long) y * cos;
+        return set((int) (rotatedX >> FixedMath.FRACTION_BITS), (int) (rotatedY >> FixedMath.FRACTION_BITS));
+    }
+
+    @NonNull
+    public FixedVector perpendicular()
+    {
+        return set(-y, x);
+    }
+
+    // ________
+    // GETTERS.
+
+    /**
+     * @return the dot product, in Q16.16.
+     */
+    @Contract(pure = true)
+    public int dot(@NonNull FixedVector otherVector)
+    {
+        return (int) (((long) x * otherVector.x + (long) y * otherVector.y) >> FixedMath.FRACTION_BITS);
+    }
+
+    /**
+     * @return the magnitude, in Q16.16.
+     */
+    public int getMagnitude()
+    {
+        // In long with all 32 fraction bits, so neither the squares nor their sum overflow or lose precision.
+        return (int) FixedMath.sqrtLong((long) x * x + (long) y * y);
+    }
+
+    /**
+     * @return the X length, in Q16.16.
+     */
+    @Contract(pure = true)
+    public int getX()
+    {
+        return x;
+    }
+
+    /**
+     * @return the Y length, in Q16.16.
+     */
+    @Contract(pure = true)
+    public int getY()
+    {
+        return y;
+    }
+
+    public boolean isZero()
+    {
+        return x == 0 && y == 0;
+    }
+
+    /**
+     * Makes an (immutable, float) Vector with the current values of this FixedVector, e.g. for rendering.
+     * @return the new Vector.
+     */
+    @NonNull
+    public Vector toVector()
+    {
+        return Vector.fromCartesian(FixedMath.toFloat(x), FixedMath.toFloat(y));
+    }
+
+    @NonNull
+    @Contract(pure = true)
+    @Override
+    public String toString()
+    {
+        return "FixedVector{" +
+                "X=" + FixedMath.toFloat(x) +
+                ", Y=" + FixedMath.toFloat(y) +
+                '}';
+    }
+}
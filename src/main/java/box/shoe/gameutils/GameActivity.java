@@ -126,7 +126,7 @@ public abstract class GameActivity extends Activity
         // Make a new engine...
         currentGame   = provideNewGame();
         currentScreen = provideNewScreen(getApplicationContext());
-        currentEngine = new Engine(currentScreen, currentGame);
+        currentEngine = new Engine(currentScreen, currentGame, provideThreadMode());
 
         // ...show the Screen to the user...
         toGameSection();
@@ -217,6 +217,14 @@ public abstract class GameActivity extends Activity
         return new SurfaceViewScreen(context);
     }
 
+    // By default, we run updates and frames on two threads of their own.
+    // The subclass activity may run everything on the main thread instead (e.g. on devices with few cores).
+    @Engine.ThreadMode
+    protected int provideThreadMode()
+    {
+        return Engine.THREAD_MODE_DUAL;
+    }
+
     // Abstract, because there is no default Game.
     @NonNull
     protected abstract Game provideNewGame();
@@ -0,0 +1,276 @@
+package box.shoe.gameutils;
+
+import android.support.annotation.NonNull;
+
+import org.jetbrains.annotations.Contract;
+
+/**
+ * A magnitude and a direction in 2D space, which can be changed in place.
+ *
+ * Has the same operations as Vector, but they change this MutableVector and return it (so that they chain),
+ * instead of creating new Vectors. Use it wherever Vectors would be created every update (e.g. velocities of
+ * many Entities), so that nothing is left for the garbage collector. Keep a MutableVector in a field and reuse it,
+ * and never hand out one that you will change later when a Vector would do (see toVector()).
+ * Like Vector, only has float precision.
+ */
+
+public final class MutableVector
+{
+    // Length in the +x (rightward) direction.
+    private float x;
+    // Length in the +y (downward) direction.
+    private float y;
+
+    /**
+     * Constructs a zero MutableVector.
+     */
+    public MutableVector()
+    {
+        this(0, 0);
+    }
+
+    public MutableVector(float x, float y)
+    {
+        this.x = x;
+        this.y = y;
+    }
+
+    public MutableVector(@NonNull Vector vector)
+    {
+        this(vector.getX(), vector.getY());
+    }
+
+    // ________
+    // SETTERS.
+
+    @NonNull
+    public MutableVector set(float x, float y)
+    {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
+    @NonNull
+    public MutableVector set(@NonNull Vector vector)
+    {
+        return set(vector.getX(), vector.getY());
+    }
+
+    @NonNull
+    public MutableVector set(@NonNull MutableVector vector)
+    {
+        return set(vector.x, vector.y);
+    }
+
+    /**
+     * Sets this MutableVector from polar coordinate values.
+     * @param magnitude the length
+     * @param thetaRadians the angle in radians (CCW from +x).
+     * @return this MutableVector.
+     */
+    @NonNull
+    public MutableVector setPolar(double magnitude, double thetaRadians)
+    {
+        return set((float) (magnitude * FastTrig.cos(thetaRadians)), (float) (magnitude * FastTrig.sin(thetaRadians)));
+    }
+
+    // ___________
+    // OPERATIONS.
+
+    @NonNull
+    public MutableVector add(float x, float y)
+    {
+        this.x += x;
+        this.y += y;
+        return this;
+    }
+
+    @NonNull
+    public MutableVector add(@NonNull Vector otherVector)
+    {
+        return add(otherVector.getX(), otherVector.getY());
+    }
+
+    @NonNull
+    public MutableVector add(@NonNull MutableVector otherVector)
+    {
+        return add(otherVector.x, otherVector.y);
+    }
+
+    @NonNull
+    public MutableVector subtract(@NonNull Vector otherVector)
+    {
+        return add(-otherVector.getX(), -otherVector.getY());
+    }
+
+    @NonNull
+    public MutableVector subtract(@NonNull MutableVector otherVector)
+    {
+        return add(-otherVector.x, -otherVector.y);
+    }
+
+    /**
+     * Adds another MutableVector, scaled by a factor, to this one (e.g. a velocity times a number of steps).
+     * @param otherVector the MutableVector to add.
+     * @param factor what to scale it by first.
+     * @return this MutableVector.
+     */
+    @NonNull
+    public MutableVector addScaled(@NonNull MutableVector otherVector, double factor)
+    {
+        return set((float) (x + otherVector.x * factor), (float) (y + otherVector.y * factor));
+    }
+
+    @NonNull
+    public MutableVector scale(double factor)
+    {
+        return set((float) (x * factor), (float) (y * factor));
+    }
+
+    /**
+     * Scales this MutableVector to a magnitude of 1, keeping its direction.
+     * @return this MutableVector.
+     * @throws ArithmeticException if the magnitude is 0.
+     */
+    @NonNull
+    public MutableVector unit()
+    {
+        double magnitude = getMagnitude();
+        // Since we cannot scale by 1/0 we must throw an exception when this is zero.
+        if (magnitude == 0)
+        {
+            throw new ArithmeticException("Vector magnitude is 0. Cannot create unit vector.");
+        }
+        return scale(1 / magnitude);
+    }
+
+    /**
+     * Projects this MutableVector onto another.
+     * @param target the MutableVector to project onto. It is not changed.
+     * @return this MutableVector.
+     */
+    @NonNull
+    public MutableVector projectOnto(@NonNull MutableVector target)
+    {
+        return projectOnto(target.x, target.y);
+    }
+
+    @NonNull
+    public MutableVector projectOnto(@NonNull Vector target)
+    {
+        return projectOnto(target.getX(), target.getY());
+    }
+
+    private MutableVector projectOnto(float targetX, float targetY)
+    {
+        // Equivalent to target.unit().scale(this.dot(target.unit())), without making the unit vector.
+        double targetMagnitudeSquared = (targetX * targetX) + (targetY * targetY);
+        if (targetMagnitudeSquared == 0)
+        {
+            throw new ArithmeticException("Vector magnitude is 0. Cannot create unit vector.");
+        }
+        double factor = ((x * targetX) + (y * targetY)) / targetMagnitudeSquared;
+        return set((float) (targetX * factor), (float) (targetY * factor));
+    }
+
+    /**
+     * Rotates this MutableVector by a number of radians.
+     * @param deltaThetaRadians the radians to rotate by.
+     * @return this MutableVector.
+     */
+    @NonNull
+    public MutableVector rotateBy(double deltaThetaRadians)
+    {
+        double cos = FastTrig.cos(deltaThetaRadians);
+        double sin = FastTrig.sin(deltaThetaRadians);
+        return set((float) (x * cos - y * sin), (float) (x * sin + y * cos));
+    }
+
+    /**
+     * Rotates this MutableVector by a quarter turn, to be perpendicular to how it was (as Vector.perpendicular does).
+     * @return this MutableVector.
+     */
+    @NonNull
+    public MutableVector perpendicular()
+    {
+        return set(-y, x);
+    }
+
+    @NonNull
+    public MutableVector onlyX()
+    {
+        y = 0;
+        return this;
+    }
+
+    @NonNull
+    public MutableVector onlyY()
+    {
+        x = 0;
+        return this;
+    }
+
+    // ________
+    // GETTERS.
+
+    @Contract(pure = true)
+    public double dot(@NonNull MutableVector otherVector)
+    {
+        return (x * otherVector.x) + (y * otherVector.y);
+    }
+
+    @Contract(pure = true)
+    public double dot(@NonNull Vector otherVector)
+    {
+        return (x * otherVector.getX()) + (y * otherVector.getY());
+    }
+
+    public float getMagnitude()
+    {
+        return (float) Math.sqrt((x * x) + (y * y));
+    }
+
+    public double getTheta()
+    {
+        return Math.atan2(y, x);
+    }
+
+    @Contract(pure = true)
+    public float getX()
+    {
+        return x;
+    }
+
+    @Contract(pure = true)
+    public float getY()
+    {
+        return y;
+    }
+
+    public boolean isZero()
+    {
+        return x == 0 && y == 0;
+    }
+
+    /**
+     * Makes an (immutable) Vector with the current values of this MutableVector.
+     * @return the new Vector.
+     */
+    @NonNull
+    public Vector toVector()
+    {
+        return Vector.fromCartesian(x, y);
+    }
+
+    @NonNull
+    @Contract(pure = true)
+    @Override
+    public String toString()
+    {
+        return "MutableVector{" +
+                "X=" + x +
+                ", Y=" + y +
+                '}';
+    }
+}
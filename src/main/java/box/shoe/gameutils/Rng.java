@@ -1,5 +1,7 @@
 package box.shoe.gameutils;
 
+import android.support.annotation.RestrictTo;
+
 import java.util.Random;
 
 /**
@@ -8,11 +10,14 @@ import java.util.Random;
  * All public methods of java.util.Random are forwarded through,
  * and some additional methods are added, for convenience.
  * For a deterministic game, make sure to call Rng.setSeed(long seed) when the game starts.
+ * Its whole state is captured in every snapshot the Engine takes, so rolled back updates draw the same values again.
  */
 
 public class Rng
 {
-    private static final Random RANDOM = new Random();
+    // The seed that RANDOM was last given, so that a session can be recorded and replayed (see ReplayRecorder).
+    private static long seed = new Random().nextLong();
+    private static final CapturableRandom RANDOM = new CapturableRandom(seed);
 
     /**
      * No instantiation.
@@ -58,9 +63,40 @@ public class Rng
      */
     public static void setSeed(long seed)
     {
+        Rng.seed = seed;
         RANDOM.setSeed(seed);
     }
 
+    /**
+     * Get the seed that was last set (or picked at random, if none was).
+     * Note that this does not capture how many random values have been supplied since then.
+     * @return the seed.
+     */
+    public static long getSeed()
+    {
+        return seed;
+    }
+
+    /**
+     * Write the whole state of the generator, so that it can be restored by readSnapshot().
+     * @param out where to write it.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void writeSnapshot(SnapshotWriter out)
+    {
+        RANDOM.writeSnapshot(out);
+    }
+
+    /**
+     * Restore the generator to a state written by writeSnapshot(), so that it draws the same values again.
+     * @param in where to read it from.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public static void readSnapshot(SnapshotReader in)
+    {
+        RANDOM.readSnapshot(in);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -124,4 +160,79 @@ public class Rng
     {
         return RANDOM.nextGaussian();
     }
+
+    // The same algorithm as java.util.Random (so the same values for the same seed), but with its state in fields
+    // of its own, which can be written and read back. java.util.Random keeps its state private.
+    // Never serialized; its state is written with snapshots instead.
+    @SuppressWarnings("serial")
+    private static final class CapturableRandom extends Random
+    {
+        private static final long MULTIPLIER = 0x5DEECE66DL;
+        private static final long ADDEND = 0xBL;
+        private static final long MASK = (1L << 48) - 1;
+
+        // No initializers, since Random's constructor calls setSeed() before they would run.
+        private long state;
+        private double nextNextGaussian;
+        private boolean haveNextNextGaussian;
+
+        private CapturableRandom(long seed)
+        {
+            super(seed);
+            setSeed(seed);
+        }
+
+        @Override
+        public synchronized void setSeed(long seed)
+        {
+            state = (seed ^ MULTIPLIER) & MASK;
+            haveNextNextGaussian = false;
+        }
+
+        @Override
+        protected synchronized int next(int bits)
+        {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            return (int) (state >>> (48 - bits));
+        }
+
+        // Random caches every other gaussian in private fields, so this is Random's algorithm with our own.
+        @Override
+        public synchronized double nextGaussian()
+        {
+            if (haveNextNextGaussian)
+            {
+                haveNextNextGaussian = false;
+                return nextNextGaussian;
+            }
+            double v1;
+            double v2;
+            double s;
+            do
+            {
+                v1 = 2 * nextDouble() - 1;
+                v2 = 2 * nextDouble() - 1;
+                s = v1 * v1 + v2 * v2;
+            }
+            while (s >= 1 || s == 0);
+            double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+            nextNextGaussian = v2 * multiplier;
+            haveNextNextGaussian = true;
+            return v1 * multiplier;
+        }
+
+        private synchronized void writeSnapshot(SnapshotWriter out)
+        {
+            out.writeLong(state);
+            out.writeDouble(nextNextGaussian);
+            out.writeBoolean(haveNextNextGaussian);
+        }
+
+        private synchronized void readSnapshot(SnapshotReader in)
+        {
+            state = in.readLong();
+            nextNextGaussian = in.readDouble();
+            haveNextNextGaussian = in.readBoolean();
+        }
+    }
 }
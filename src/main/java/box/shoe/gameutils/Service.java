@@ -1,37 +1,371 @@
 package box.shoe.gameutils;
 
-import java.util.Collections;
+import android.util.Log;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.WeakHashMap;
 
+import box.gift.gameutils.BuildConfig;
+
 /**
  * Created by Joseph on 2/14/2018.
+ *
+ * A registry of members which is cheap to iterate, e.g. every update.
+ * Members are kept back to back in a packed array, so iterate with size() and get(int), which do not allocate,
+ * instead of getMembers(). Removing a member moves the last member into its place, so order is not preserved.
+ *
+ * Every member is also given a handle, which stays valid until the member is removed. A handle is a slot index
+ * together with a generation counter, so a handle to a removed member never finds whichever member gets its slot next.
+ *
+ * Members must be removed when they are no longer used, or they will never be garbage collected.
+ * In debug builds, members are only held weakly, and a warning is logged for any member which is garbage
+ * collected without having been removed (a leak, in release builds). Leaked members are only removed by
+ * removeLeaks(), which the Engine calls at the start of every update, so that members never move while they
+ * are being iterated.
+ * A Service is not thread safe; add, remove and iterate from one thread (e.g. the update thread).
  */
 
 public class Service<I>
 {
-    private final Set<I> members = Collections.newSetFromMap(new WeakHashMap<I, Boolean>());
+    private static final int INITIAL_CAPACITY = 16;
+
+    // A handle which never refers to any member.
+    public static final long INVALID_HANDLE = -1;
+
+    // Packed array of members (or, in debug builds, of LeakDetectors for them), and the slot of each one.
+    private Object[] members = new Object[INITIAL_CAPACITY];
+    private int[] memberSlots = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Indexed by slot. Where each slot's member is in the packed array (-1 if the slot is free),
+    // and how many times the slot has been freed.
+    private int[] memberIndices = new int[INITIAL_CAPACITY];
+    private int[] generations = new int[INITIAL_CAPACITY];
+    private int slotCount = 0;
+
+    // Slots which were freed, to be reused before new ones are made.
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount = 0;
 
-    public void addMember(I implementor)
+    // The slot of each member, to find members that are removed by reference. Weak in debug builds.
+    private final Map<I, Integer> slotsByMember;
+
+    // Debug builds only. Receives the LeakDetectors of members which were garbage collected.
+    private final ReferenceQueue<I> leaks;
+
+    // Counts every change to the members, so that users can tell cheaply when nothing has changed.
+    private int modificationCount = 0;
+
+    public Service()
     {
-        members.add(implementor);
+        if (BuildConfig.DEBUG)
+        {
+            slotsByMember = new WeakHashMap<>();
+            leaks = new ReferenceQueue<>();
+        }
+        else
+        {
+            slotsByMember = new HashMap<>();
+            leaks = null;
+        }
+    }
+
+    /**
+     * Add a member, if it is not a member already.
+     * @param implementor the member to add.
+     * @return the handle of the member.
+     */
+    public long addMember(I implementor)
+    {
+        Integer existingSlot = slotsByMember.get(implementor);
+        if (existingSlot != null)
+        {
+            return handleOf(existingSlot);
+        }
+
+        int slot;
+        if (freeSlotCount > 0)
+        {
+            freeSlotCount--;
+            slot = freeSlots[freeSlotCount];
+        }
+        else
+        {
+            if (slotCount == memberIndices.length)
+            {
+                memberIndices = Arrays.copyOf(memberIndices, slotCount * 2);
+                generations = Arrays.copyOf(generations, slotCount * 2);
+            }
+            slot = slotCount;
+            slotCount++;
+        }
+
+        if (size == members.length)
+        {
+            members = Arrays.copyOf(members, size * 2);
+            memberSlots = Arrays.copyOf(memberSlots, size * 2);
+        }
+        members[size] = BuildConfig.DEBUG ? new LeakDetector<>(implementor, slot, generations[slot], leaks) : implementor;
+        memberSlots[size] = slot;
+        memberIndices[slot] = size;
+        size++;
+
+        slotsByMember.put(implementor, slot);
+        modificationCount++;
+        return handleOf(slot);
     }
 
+    /**
+     * Remove a member.
+     * @param implementor the member to remove.
+     * @throws IllegalStateException if it is not a member.
+     */
     public void removeMember(I implementor)
     {
-        if (!members.remove(implementor))
+        Integer slot = slotsByMember.remove(implementor);
+        if (slot == null)
         {
             throw new IllegalStateException("Supplied object does not have the service to remove!");
         }
+        freeSlot(slot);
+    }
+
+    /**
+     * Remove the member that a handle refers to.
+     * @param handle the handle of the member to remove.
+     * @throws IllegalStateException if the handle does not refer to a member.
+     */
+    public void removeHandle(long handle)
+    {
+        if (!isValid(handle))
+        {
+            throw new IllegalStateException("Supplied handle does not refer to a member: " + handle);
+        }
+        int slot = slotOf(handle);
+        I member = memberAt(memberIndices[slot]);
+        if (member != null)
+        {
+            slotsByMember.remove(member);
+        }
+        freeSlot(slot);
     }
 
     public boolean hasMember(I implementor)
     {
-        return members.contains(implementor);
+        return slotsByMember.containsKey(implementor);
+    }
+
+    /**
+     * Check if a handle still refers to a member.
+     * @param handle the handle to check.
+     * @return true if the member it was given to has not been removed.
+     */
+    public boolean isValid(long handle)
+    {
+        int slot = slotOf(handle);
+        return slot >= 0 && slot < slotCount && memberIndices[slot] >= 0 && generations[slot] == generationOf(handle);
+    }
+
+    /**
+     * Get the member that a handle refers to.
+     * @param handle the handle of the member.
+     * @return the member, or null if the handle no longer refers to one.
+     */
+    public I getMember(long handle)
+    {
+        if (!isValid(handle))
+        {
+            return null;
+        }
+        return memberAt(memberIndices[slotOf(handle)]);
+    }
+
+    /**
+     * Get the number of members. Use with get(int) to iterate without allocating.
+     * @return the number of members.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Get a member by its place in the packed array.
+     * @param index from 0 to size() - 1.
+     * @return the member, which (in debug builds only) may be null if it was garbage collected
+     *          without being removed, until removeLeaks() is called.
+     */
+    public I get(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " is not between 0 and " + size);
+        }
+        return memberAt(index);
+    }
+
+    /**
+     * Get a number which changes whenever members are added or removed.
+     * @return the modification count.
+     */
+    public int getModificationCount()
+    {
+        return modificationCount;
     }
 
+    /**
+     * Get a view of the members. Iterating it allocates, so prefer size() and get(int) where it matters.
+     * @return the members, which may not be modified through the view.
+     */
     public Set<I> getMembers()
     {
-        return members;
+        return new AbstractSet<I>()
+        {
+            @Override
+            public Iterator<I> iterator()
+            {
+                return new Iterator<I>()
+                {
+                    private int index = 0;
+                    private final int expectedModificationCount = modificationCount;
+
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return index < size;
+                    }
+
+                    @Override
+                    public I next()
+                    {
+                        if (expectedModificationCount != modificationCount)
+                        {
+                            throw new ConcurrentModificationException();
+                        }
+                        if (index >= size)
+                        {
+                            throw new NoSuchElementException();
+                        }
+                        return memberAt(index++);
+                    }
+
+                    @Override
+                    public void remove()
+                    {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object object)
+            {
+                return slotsByMember.containsKey(object);
+            }
+
+            @Override
+            public int size()
+            {
+                return Service.this.size();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private I memberAt(int index)
+    {
+        Object member = members[index];
+        if (BuildConfig.DEBUG)
+        {
+            return ((LeakDetector<I>) member).get();
+        }
+        return (I) member;
+    }
+
+    private void freeSlot(int slot)
+    {
+        // Move the last member into the hole, to keep the array packed.
+        int index = memberIndices[slot];
+        int lastIndex = size - 1;
+        members[index] = members[lastIndex];
+        memberSlots[index] = memberSlots[lastIndex];
+        memberIndices[memberSlots[index]] = index;
+        members[lastIndex] = null;
+        size--;
+
+        memberIndices[slot] = -1;
+        generations[slot]++;
+        if (freeSlotCount == freeSlots.length)
+        {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount] = slot;
+        freeSlotCount++;
+        modificationCount++;
+    }
+
+    /**
+     * Debug builds only (does nothing in release builds). Remove the members which were garbage collected
+     * without being removed, and log a warning for each one. Call it where no iteration over the members
+     * is in progress, since removing moves members around.
+     */
+    public void removeLeaks()
+    {
+        if (!BuildConfig.DEBUG)
+        {
+            return;
+        }
+        LeakDetector<?> leak;
+        while ((leak = (LeakDetector<?>) leaks.poll()) != null)
+        {
+            // Only if the slot still belongs to the member that leaked.
+            if (leak.generation == generations[leak.slot] && memberIndices[leak.slot] >= 0)
+            {
+                Log.w("Service", leak.memberDescription + " was garbage collected without being removed from a " +
+                        "Service! In release builds, this is a memory leak. Try removing members that you are done with.");
+                freeSlot(leak.slot);
+            }
+        }
+    }
+
+    private long handleOf(int slot)
+    {
+        return ((long) generations[slot] << 32) | slot;
+    }
+
+    private static int slotOf(long handle)
+    {
+        return (int) handle;
+    }
+
+    private static int generationOf(long handle)
+    {
+        return (int) (handle >>> 32);
+    }
+
+    // Debug builds only. Holds a member weakly, and remembers enough about it to report it if it leaks.
+    private static final class LeakDetector<I> extends WeakReference<I>
+    {
+        private final int slot;
+        private final int generation;
+        private final String memberDescription;
+
+        private LeakDetector(I member, int slot, int generation, ReferenceQueue<I> leaks)
+        {
+            super(member, leaks);
+            this.slot = slot;
+            this.generation = generation;
+            // Members may still be under construction, so do not call their toString().
+            this.memberDescription = member.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(member));
+        }
     }
 }
@@ -0,0 +1,68 @@
+package box.shoe.gameutils;
+
+import android.support.annotation.RestrictTo;
+
+/**
+ * Where a Snapshottable reads its state back from, in the same order that it was written to a SnapshotWriter.
+ */
+
+public final class SnapshotReader
+{
+    private int[] words;
+    private int size;
+    private int position;
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public SnapshotReader() {}
+
+    /**
+     * Read from the start of some words.
+     * @param words the words to read.
+     * @param size how many of the words to read.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void reset(int[] words, int size)
+    {
+        this.words = words;
+        this.size = size;
+        this.position = 0;
+    }
+
+    public int readInt()
+    {
+        if (position >= size)
+        {
+            throw new IllegalStateException("Read past the end of the snapshot! Read in the same order as written.");
+        }
+        int value = words[position];
+        position++;
+        return value;
+    }
+
+    public float readFloat()
+    {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public long readLong()
+    {
+        long high = readInt();
+        return (high << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    public double readDouble()
+    {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    public boolean readBoolean()
+    {
+        return readInt() != 0;
+    }
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public int remaining()
+    {
+        return size - position;
+    }
+}
@@ -0,0 +1,71 @@
+package box.shoe.gameutils;
+
+import android.support.annotation.RestrictTo;
+
+import java.util.Arrays;
+
+/**
+ * Where a Snapshottable writes its state. Everything is written as 32 bit words, into an array which only grows,
+ * so writing does not allocate once the snapshots of a game have reached their usual size.
+ */
+
+public final class SnapshotWriter
+{
+    private int[] words = new int[64];
+    private int size = 0;
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public SnapshotWriter() {}
+
+    public void writeInt(int value)
+    {
+        if (size == words.length)
+        {
+            words = Arrays.copyOf(words, size * 2);
+        }
+        words[size] = value;
+        size++;
+    }
+
+    public void writeFloat(float value)
+    {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public void writeLong(long value)
+    {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    public void writeDouble(double value)
+    {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void writeBoolean(boolean value)
+    {
+        writeInt(value ? 1 : 0);
+    }
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public void clear()
+    {
+        size = 0;
+    }
+
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return the words written so far, followed by unused space.
+     */
+    @RestrictTo(RestrictTo.Scope.LIBRARY)
+    public int[] getWords()
+    {
+        return words;
+    }
+}
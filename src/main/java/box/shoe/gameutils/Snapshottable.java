@@ -0,0 +1,21 @@
+package box.shoe.gameutils;
+
+/**
+ * Something whose whole simulation state can be captured, so that the Engine can roll the game back to an
+ * earlier update and simulate it again (e.g. for rollback multiplayer, or a quick retry).
+ * Unlike an Interpolatable, which saves only what is needed to draw it, a Snapshottable must write everything
+ * that its future updates depend on, and read it back in exactly the same order.
+ *
+ * Snapshots are taken after every update, so write as little as possible, and keep what is written in the
+ * same place from update to update: consecutive snapshots are stored as the difference between them.
+ * Rng is captured along with every Snapshottable, so updates may draw from it as usual. Any other random
+ * generator must be written by a Snapshottable.
+ */
+
+public interface Snapshottable
+{
+    void writeSnapshot(SnapshotWriter out);
+    void readSnapshot(SnapshotReader in);
+
+    Service<Snapshottable> SNAPSHOTTABLE_SERVICE = new Service<>();
+}
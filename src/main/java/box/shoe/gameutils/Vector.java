@@ -92,7 +92,7 @@ public final class Vector //TODO: could change to double precision and cast to f
     @NonNull
     public static Vector fromPolar(float magnitude, float thetaRadians)
     {
-        return new Vector(magnitude * Math.cos(thetaRadians), magnitude * Math.sin(thetaRadians));
+        return new Vector(magnitude * FastTrig.cos(thetaRadians), magnitude * FastTrig.sin(thetaRadians));
     }
 
     /**
@@ -104,7 +104,7 @@ public final class Vector //TODO: could change to double precision and cast to f
     @NonNull
     public static Vector fromPolar(double magnitude, double thetaRadians)
     {
-        return new Vector(magnitude * Math.cos(thetaRadians), magnitude * Math.sin(thetaRadians));
+        return new Vector(magnitude * FastTrig.cos(thetaRadians), magnitude * FastTrig.sin(thetaRadians));
     }
 
     /**
@@ -253,7 +253,9 @@ public final class Vector //TODO: could change to double precision and cast to f
     @NonNull
     public Vector rotateBy(double deltaThetaRadians)
     {
-        return new Vector(X * Math.cos(deltaThetaRadians) - Y * Math.sin(deltaThetaRadians), X * Math.sin(deltaThetaRadians) + Y * Math.cos(deltaThetaRadians));
+        double cos = FastTrig.cos(deltaThetaRadians);
+        double sin = FastTrig.sin(deltaThetaRadians);
+        return new Vector(X * cos - Y * sin, X * sin + Y * cos);
     }
 
     /**
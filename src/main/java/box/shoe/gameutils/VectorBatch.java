@@ -0,0 +1,131 @@
+package box.shoe.gameutils;
+
+/**
+ * Vector math over many vectors at once, for particle and crowd systems which would otherwise go through
+ * thousands of Vectors one at a time. The vectors are stored as parallel arrays, one of X lengths and one of
+ * Y lengths, and every operation works on the first count of them.
+ *
+ * Each operation is a single counted loop over plain arrays, with bounds checked once up front and no calls or
+ * (where possible) branches inside, which is the shape that the JIT/ART compiler can unroll and vectorize.
+ * Nothing is allocated.
+ */
+
+public final class VectorBatch
+{
+    /**
+     * No instantiation.
+     */
+    private VectorBatch() {}
+
+    /**
+     * Adds a scaled vector to each vector, e.g. velocities times a time step to positions.
+     * x[i] += dx[i] * factor, y[i] += dy[i] * factor.
+     */
+    public static void addScaled(float[] x, float[] y, float[] dx, float[] dy, float factor, int count)
+    {
+        checkCount(count, x, y);
+        checkCount(count, dx, dy);
+        for (int i = 0; i < count; i++)
+        {
+            x[i] += dx[i] * factor;
+            y[i] += dy[i] * factor;
+        }
+    }
+
+    /**
+     * Rotates each vector by the same number of radians (CCW from +x, as Vector.rotateBy does).
+     */
+    public static void rotate(float[] x, float[] y, double deltaThetaRadians, int count)
+    {
+        checkCount(count, x, y);
+        float cos = (float) FastTrig.cos(deltaThetaRadians);
+        float sin = (float) FastTrig.sin(deltaThetaRadians);
+        for (int i = 0; i < count; i++)
+        {
+            float oldX = x[i];
+            float oldY = y[i];
+            x[i] = oldX * cos - oldY * sin;
+            y[i] = oldX * sin + oldY * cos;
+        }
+    }
+
+    /**
+     * Scales each vector to a magnitude of 1, keeping its direction.
+     * Unlike Vector.unit(), zero vectors do not throw, and are left zero.
+     */
+    public static void normalize(float[] x, float[] y, int count)
+    {
+        checkCount(count, x, y);
+        for (int i = 0; i < count; i++)
+        {
+            float magnitudeSquared = x[i] * x[i] + y[i] * y[i];
+            float scale = magnitudeSquared > 0 ? (float) (1 / Math.sqrt(magnitudeSquared)) : 0;
+            x[i] *= scale;
+            y[i] *= scale;
+        }
+    }
+
+    /**
+     * Takes the dot product of pairs of vectors.
+     * out[i] = ax[i] * bx[i] + ay[i] * by[i].
+     */
+    public static void dot(float[] ax, float[] ay, float[] bx, float[] by, float[] out, int count)
+    {
+        checkCount(count, ax, ay);
+        checkCount(count, bx, by);
+        checkCount(count, out, out);
+        for (int i = 0; i < count; i++)
+        {
+            out[i] = ax[i] * bx[i] + ay[i] * by[i];
+        }
+    }
+
+    /**
+     * Finds the squared distance from each point to one other point (e.g. to test many things against a radius
+     * around a player, without taking square roots).
+     * out[i] = (x[i] - pointX)^2 + (y[i] - pointY)^2.
+     */
+    public static void distanceSquared(float[] x, float[] y, float pointX, float pointY, float[] out, int count)
+    {
+        checkCount(count, x, y);
+        checkCount(count, out, out);
+        for (int i = 0; i < count; i++)
+        {
+            float dx = x[i] - pointX;
+            float dy = y[i] - pointY;
+            out[i] = dx * dx + dy * dy;
+        }
+    }
+
+    /**
+     * Scales down each vector which is longer than a maximum magnitude to exactly that magnitude
+     * (e.g. to cap speeds). Shorter vectors are left as they are.
+     */
+    public static void clampMagnitude(float[] x, float[] y, float maxMagnitude, int count)
+    {
+        checkCount(count, x, y);
+        if (maxMagnitude < 0)
+        {
+            throw new IllegalArgumentException("Max magnitude cannot be less than 0: " + maxMagnitude);
+        }
+        float maxMagnitudeSquared = maxMagnitude * maxMagnitude;
+        for (int i = 0; i < count; i++)
+        {
+            float magnitudeSquared = x[i] * x[i] + y[i] * y[i];
+            float scale = magnitudeSquared > maxMagnitudeSquared
+                    ? (float) (maxMagnitude / Math.sqrt(magnitudeSquared)) : 1;
+            x[i] *= scale;
+            y[i] *= scale;
+        }
+    }
+
+    // Checking once here lets the compiler drop the bounds checks inside the loops.
+    private static void checkCount(int count, float[] first, float[] second)
+    {
+        if (count < 0 || count > first.length || count > second.length)
+        {
+            throw new IndexOutOfBoundsException("Count " + count + " does not fit arrays of length "
+                    + first.length + " and " + second.length);
+        }
+    }
+}
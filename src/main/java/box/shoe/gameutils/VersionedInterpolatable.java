@@ -0,0 +1,23 @@
+package box.shoe.gameutils;
+
+/**
+ * An Interpolatable which can tell when its interp values have not changed, so that the Engine can skip
+ * saving them every update and interpolating them every frame. Cheap for things that rarely move,
+ * such as the static props of a large map.
+ */
+
+public interface VersionedInterpolatable extends Interpolatable
+{
+    // Return this from getInterpVersion to have the values saved and interpolated as usual.
+    long UNVERSIONED = Long.MIN_VALUE;
+
+    /**
+     * Called on the update thread right before saveInterpValues would be.
+     * Must return a different version whenever the values that saveInterpValues would write have changed
+     * since the last call, and the same version while they have not (in which case saveInterpValues is skipped,
+     * and the values saved last time are reused). Interpolatables which keep the same version are also not
+     * loaded again, so loadInterpValues must not be relied on to reset anything that others change.
+     * @return the version of the interp values, or UNVERSIONED.
+     */
+    long getInterpVersion();
+}
@@ -1,8 +1,10 @@
 package box.shoe.gameutils.camera;
 
 import android.graphics.Canvas;
+import android.graphics.RectF;
 
 import box.shoe.gameutils.Entity;
+import box.shoe.gameutils.engine.SavedInterpValues;
 
 /**
  * Created by Joseph on 1/1/2018.
@@ -23,4 +25,14 @@ public interface Camera
      * @return true if entity is visible, and false otherwise.
      */
     boolean isVisible(Entity entity); //todo: inbounds and check body instead of display?
+
+    /**
+     * Finds the game-space region which might be seen through this camera in a frame, from the values the camera
+     * saved into the frame's GameStates (never from its live state, since this is called on the frame thread).
+     * Should err on the side of too large, e.g. by covering where the camera was in both GameStates.
+     * @param savedValues the saved values of the frame.
+     * @param out set to the region.
+     * @return true if out was set, and false if the camera saved nothing to tell by.
+     */
+    boolean getVisibleRegion(SavedInterpValues savedValues, RectF out);
 }
\ No newline at end of file
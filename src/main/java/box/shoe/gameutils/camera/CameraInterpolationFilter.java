@@ -0,0 +1,63 @@
+package box.shoe.gameutils.camera;
+
+import android.graphics.RectF;
+
+import box.shoe.gameutils.Entity;
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.engine.InterpolationFilter;
+import box.shoe.gameutils.engine.SavedInterpValues;
+
+/**
+ * Only interpolates Entities which might be seen through a Camera. Everything else (including the Camera itself)
+ * is always interpolated.
+ * An Entity is displayed somewhere between its body as saved in the two GameStates that a frame is interpolated
+ * between (the first four interp values, which Entity saves), so the union of the two, grown by a margin,
+ * is what is checked, against where the Camera was in the same two GameStates.
+ * Entities which are held back keep their old display, so render() should still cull them with the Camera,
+ * or interpolate them on demand with Engine.interpolateNow().
+ */
+public class CameraInterpolationFilter implements InterpolationFilter
+{
+    private final Camera camera;
+    private final float margin;
+
+    // Frame thread only. What the Camera might show this frame, and whether it could tell.
+    private final RectF visibleRegion = new RectF();
+    private boolean hasVisibleRegion;
+    private final RectF dummyBounds = new RectF();
+
+    /**
+     * @param camera the Camera to check Entities against.
+     * @param margin how far outside of the Camera's view an Entity may be and still be interpolated,
+     *               in game units, e.g. to allow for things drawn outside of an Entity's display bounds.
+     */
+    public CameraInterpolationFilter(Camera camera, float margin)
+    {
+        if (margin < 0)
+        {
+            throw new IllegalArgumentException("Margin cannot be less than 0: " + margin);
+        }
+        this.camera = camera;
+        this.margin = margin;
+    }
+
+    @Override
+    public void beginFrame(SavedInterpValues savedValues)
+    {
+        hasVisibleRegion = camera.getVisibleRegion(savedValues, visibleRegion);
+    }
+
+    @Override
+    public boolean shouldInterpolate(Interpolatable interpolatable, float[] pastValues, float[] currentValues)
+    {
+        if (!(interpolatable instanceof Entity) || !hasVisibleRegion)
+        {
+            return true;
+        }
+
+        dummyBounds.set(pastValues[0], pastValues[1], pastValues[2], pastValues[3]);
+        dummyBounds.union(currentValues[0], currentValues[1], currentValues[2], currentValues[3]);
+        dummyBounds.inset(-margin, -margin);
+        return RectF.intersects(dummyBounds, visibleRegion);
+    }
+}
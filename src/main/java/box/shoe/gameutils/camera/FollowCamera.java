@@ -8,6 +8,7 @@ import android.support.annotation.RestrictTo;
 
 import box.shoe.gameutils.BoundingBox;
 import box.shoe.gameutils.Entity;
+import box.shoe.gameutils.engine.SavedInterpValues;
 
 public class FollowCamera implements Camera
 {
@@ -101,4 +102,10 @@ public class FollowCamera implements Camera
     {
         return rectCamera.isVisible(entity);
     }
+
+    @Override
+    public boolean getVisibleRegion(SavedInterpValues savedValues, RectF out)
+    {
+        return rectCamera.getVisibleRegion(savedValues, out);
+    }
 }
@@ -7,6 +7,7 @@ import android.graphics.RectF;
 import box.shoe.gameutils.BoundingBox;
 import box.shoe.gameutils.Entity;
 import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.engine.SavedInterpValues;
 
 /**
  * Created by Joseph on 2/20/2018.
@@ -21,6 +22,11 @@ public class RectCamera implements Camera, Interpolatable
 
     private RectF dummyVisibilityChecker = new RectF();
 
+    // Frame thread only. The values this camera saved into each of a frame's GameStates.
+    // Made on first use, since subclasses may save more values.
+    private float[] savedPast;
+    private float[] savedCurrent;
+
     public RectCamera(RectF gamePortionToShow, Rect fitToVisibleBounds)
     {
         this.gamePortionBounds = gamePortionToShow;
@@ -54,6 +60,33 @@ public class RectCamera implements Camera, Interpolatable
         return entity.display.intersects(dummyVisibilityChecker);
     }
 
+    @Override
+    public boolean getVisibleRegion(SavedInterpValues savedValues, RectF out)
+    {
+        if (savedPast == null)
+        {
+            savedPast = new float[getInterpValuesArrayMaxIndex() + 1];
+            savedCurrent = new float[getInterpValuesArrayMaxIndex() + 1];
+        }
+
+        // The portion of the game shown is somewhere between the one saved in each GameState.
+        boolean hasPast = savedValues.getPast(this, savedPast);
+        boolean hasCurrent = savedValues.getCurrent(this, savedCurrent);
+        if (hasPast)
+        {
+            out.set(savedPast[0], savedPast[1], savedPast[2], savedPast[3]);
+            if (hasCurrent)
+            {
+                out.union(savedCurrent[0], savedCurrent[1], savedCurrent[2], savedCurrent[3]);
+            }
+        }
+        else if (hasCurrent)
+        {
+            out.set(savedCurrent[0], savedCurrent[1], savedCurrent[2], savedCurrent[3]);
+        }
+        return hasPast || hasCurrent;
+    }
+
     // More visibility checks given that we are a rectangle.
     // A maximum of two of these can be true at any particular time (corners)?
 
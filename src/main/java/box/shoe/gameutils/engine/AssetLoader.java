@@ -0,0 +1,282 @@
+package box.shoe.gameutils.engine;
+
+import android.content.res.AssetManager;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.support.annotation.DrawableRes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the assets of a PreloadingGame in parallel, on a few background threads.
+ * Each load is a Callable (e.g. one which calls TileMapLoader.fromXml or AILoader.fromXml), and its result
+ * is handed out through an Asset once it is done.
+ * Progress, completion, and failure are reported on the thread of the Handler given to start().
+ */
+
+public final class AssetLoader
+{
+    private final Resources resources;
+
+    private final List<Callable<?>> loads = new ArrayList<>();
+    private final List<Asset<?>> assets = new ArrayList<>();
+
+    private boolean started = false;
+    private volatile boolean cancelled = false;
+    private ExecutorService executor;
+
+    /**
+     * @param resources where to load resources from, or null if there are none (e.g. in a HeadlessEngine).
+     */
+    /* pack */ AssetLoader(Resources resources)
+    {
+        this.resources = resources;
+    }
+
+    /**
+     * Ask for an asset to be loaded.
+     * @param load what loads the asset. Run on a background thread, in parallel with other loads.
+     * @param <T> the type of asset.
+     * @return the Asset, which can be got from once loading is done.
+     */
+    public <T> Asset<T> load(Callable<T> load)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Assets can only be asked for during onPreload!");
+        }
+        Asset<T> asset = new Asset<>();
+        loads.add(load);
+        assets.add(asset);
+        return asset;
+    }
+
+    /**
+     * Ask for a Bitmap to be decoded from a drawable resource.
+     * The load fails if the resource can not be decoded, rather than handing out null.
+     * @param id the resource id.
+     * @return the Asset.
+     */
+    public Asset<Bitmap> loadBitmap(@DrawableRes final int id)
+    {
+        return load(new Callable<Bitmap>()
+        {
+            @Override
+            public Bitmap call()
+            {
+                Bitmap bitmap = BitmapFactory.decodeResource(resources, id);
+                if (bitmap == null)
+                {
+                    throw new IllegalStateException("Drawable resource could not be decoded: " + id);
+                }
+                return bitmap;
+            }
+        });
+    }
+
+    public Resources getResources()
+    {
+        return resources;
+    }
+
+    public AssetManager getAssets()
+    {
+        return resources.getAssets();
+    }
+
+    /**
+     * Run every load.
+     * @param handler where to report on.
+     * @param listener what to report to.
+     */
+    /* pack */ void start(final Handler handler, final Listener listener)
+    {
+        started = true;
+        final int total = loads.size();
+        if (total == 0)
+        {
+            handler.post(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (!cancelled)
+                    {
+                        listener.onComplete();
+                    }
+                }
+            });
+            return;
+        }
+
+        // Loads mostly decode and parse, so more threads than cores would not help.
+        int threads = Math.min(total, Math.max(1, Runtime.getRuntime().availableProcessors()));
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactory()
+        {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "Preload " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // Handler thread only. Counted as results arrive there, rather than as loads finish on the workers,
+        // since results from different workers may be posted out of order.
+        final int[] loaded = new int[1];
+        for (int i = 0; i < total; i++)
+        {
+            final Callable<?> load = loads.get(i);
+            final Asset<?> asset = assets.get(i);
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (cancelled)
+                    {
+                        return;
+                    }
+                    try
+                    {
+                        asset.set(load.call());
+                    }
+                    // Errors too (e.g. OutOfMemoryError while decoding a Bitmap), which would otherwise end the
+                    // worker without a word, and leave the game waiting on preloading forever.
+                    catch (final Throwable e)
+                    {
+                        handler.post(new Runnable()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                if (!cancelled)
+                                {
+                                    cancel();
+                                    listener.onFailure(e);
+                                }
+                            }
+                        });
+                        return;
+                    }
+
+                    handler.post(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            if (!cancelled)
+                            {
+                                loaded[0]++;
+                                listener.onProgress(loaded[0], total);
+                                if (loaded[0] == total)
+                                {
+                                    executor.shutdown();
+                                    listener.onComplete();
+                                }
+                            }
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * Run every load, one after another, on the calling thread.
+     * @param listener what to report to.
+     * @throws RuntimeException if a load fails.
+     */
+    /* pack */ void loadNow(ProgressListener listener)
+    {
+        started = true;
+        int total = loads.size();
+        for (int i = 0; i < total; i++)
+        {
+            try
+            {
+                assets.get(i).set(loads.get(i).call());
+            }
+            catch (Exception e)
+            {
+                throw new RuntimeException("An asset could not be preloaded!", e);
+            }
+            listener.onProgress(i + 1, total);
+        }
+        listener.onComplete();
+    }
+
+    /**
+     * Stop loading. Loads which are running are interrupted, and nothing more is reported.
+     */
+    /* pack */ void cancel()
+    {
+        cancelled = true;
+        if (executor != null)
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    // Hears how loading is going.
+    /* pack */ interface ProgressListener
+    {
+        void onProgress(int loaded, int total);
+        void onComplete();
+    }
+
+    // Also hears of failure, on the thread of the Handler given to start().
+    /* pack */ interface Listener extends ProgressListener
+    {
+        void onFailure(Throwable e);
+    }
+
+    /**
+     * An asset which is being loaded by an AssetLoader.
+     * @param <T> the type of asset.
+     */
+    public static final class Asset<T>
+    {
+        private volatile boolean loaded = false;
+        private T value;
+
+        private Asset() {}
+
+        private void set(Object value)
+        {
+            @SuppressWarnings("unchecked")
+            T asset = (T) value;
+            this.value = asset;
+            loaded = true;
+        }
+
+        /**
+         * Get the loaded asset. Always loaded by the time Game.onStart is called.
+         * @return the asset.
+         */
+        public T get()
+        {
+            if (!loaded)
+            {
+                throw new IllegalStateException("Asset has not loaded yet! Get it from onStart on.");
+            }
+            return value;
+        }
+
+        public boolean isLoaded()
+        {
+            return loaded;
+        }
+    }
+}
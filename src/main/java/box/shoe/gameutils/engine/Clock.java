@@ -0,0 +1,151 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * The time that a Game runs on, derived from a TimeSource.
+ * The Clock may run slower or faster than its source (for slow motion or fast forward), and may be paused,
+ * in which case it stands still until it is resumed and then carries on from where it stopped,
+ * so that time spent paused never shows up as time that passed in the Game.
+ *
+ * The Clock may be read from any thread, and changed from any thread. Reading never locks or allocates;
+ * each change replaces an immutable segment which maps source time to clock time.
+ */
+
+public final class Clock
+{
+    // Clock time is clockStartNS + (source time - sourceStartNS) * scale, or just clockStartNS when paused.
+    private static final class Segment
+    {
+        private final long sourceStartNS;
+        private final long clockStartNS;
+        private final double scale;
+        private final boolean paused;
+
+        private Segment(long sourceStartNS, long clockStartNS, double scale, boolean paused)
+        {
+            this.sourceStartNS = sourceStartNS;
+            this.clockStartNS = clockStartNS;
+            this.scale = scale;
+            this.paused = paused;
+        }
+
+        private long clockTimeAt(long sourceTimeNS)
+        {
+            if (paused)
+            {
+                return clockStartNS;
+            }
+            long sinceStartNS = sourceTimeNS - sourceStartNS;
+            if (scale == 1)
+            {
+                return clockStartNS + sinceStartNS;
+            }
+            return clockStartNS + (long) (sinceStartNS * scale);
+        }
+    }
+
+    private final TimeSource timeSource;
+    private volatile Segment segment;
+
+    /**
+     * Create a Clock which starts at the current time of its source, running at normal speed.
+     * @param timeSource where to get the time from.
+     */
+    public Clock(TimeSource timeSource)
+    {
+        this.timeSource = timeSource;
+        long nowNS = timeSource.nanoTime();
+        segment = new Segment(nowNS, nowNS, 1, false);
+    }
+
+    /**
+     * Get the current clock time.
+     * @return the time, in nanoseconds.
+     */
+    public long nanoTime()
+    {
+        return segment.clockTimeAt(timeSource.nanoTime());
+    }
+
+    /**
+     * Get the clock time at a given time of the source (e.g. a Choreographer frame time, for the SystemTimeSource).
+     * Only accurate for source times since the last change to the Clock.
+     * @param sourceTimeNS the time of the TimeSource, in nanoseconds.
+     * @return the clock time, in nanoseconds.
+     */
+    public long nanoTimeAt(long sourceTimeNS)
+    {
+        return segment.clockTimeAt(sourceTimeNS);
+    }
+
+    /**
+     * Convert a duration of clock time into the duration of source time it will take to pass.
+     * @param clockDurationNS the duration of clock time, in nanoseconds.
+     * @return the duration of source time, in nanoseconds. While paused, time is assumed to run at its scale.
+     */
+    public long toSourceDuration(long clockDurationNS)
+    {
+        double scale = segment.scale;
+        if (scale == 1)
+        {
+            return clockDurationNS;
+        }
+        return (long) Math.ceil(clockDurationNS / scale);
+    }
+
+    /**
+     * Set how fast the Clock runs compared to its source. The Clock carries on from the current time.
+     * @param scale e.g. 0.5 for half speed or 2 for double speed. Must be greater than 0 (use pause() to stop time).
+     */
+    public synchronized void setScale(double scale)
+    {
+        if (!(scale > 0) || Double.isInfinite(scale))
+        {
+            throw new IllegalArgumentException("Scale must be a positive number: " + scale);
+        }
+        Segment current = segment;
+        long nowNS = timeSource.nanoTime();
+        segment = new Segment(nowNS, current.clockTimeAt(nowNS), scale, current.paused);
+    }
+
+    public double getScale()
+    {
+        return segment.scale;
+    }
+
+    /**
+     * Stop the Clock where it is. Does nothing if already paused.
+     */
+    public synchronized void pause()
+    {
+        Segment current = segment;
+        if (current.paused)
+        {
+            return;
+        }
+        long nowNS = timeSource.nanoTime();
+        segment = new Segment(nowNS, current.clockTimeAt(nowNS), current.scale, true);
+    }
+
+    /**
+     * Start the Clock again from where it was paused. Does nothing if not paused.
+     */
+    public synchronized void resume()
+    {
+        Segment current = segment;
+        if (!current.paused)
+        {
+            return;
+        }
+        segment = new Segment(timeSource.nanoTime(), current.clockStartNS, current.scale, false);
+    }
+
+    public boolean isPaused()
+    {
+        return segment.paused;
+    }
+
+    public TimeSource getTimeSource()
+    {
+        return timeSource;
+    }
+}
@@ -0,0 +1,19 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * A Game which is rendered from recorded draw commands instead of by render().
+ * After every update, the Game records what it looks like into a RenderCommandBuffer, on the update thread.
+ * The Engine keeps one buffer with each GameState, and paints frames by replaying the two newest buffers
+ * with interpolation, without ever touching the Game's live objects. With STATE_HANDOFF_TRIPLE_BUFFERED,
+ * this lets frames be painted while the next update runs, with no lock between the two.
+ * render() is never called.
+ */
+
+public interface CommandRenderedGame extends Game
+{
+    /**
+     * Called on the update thread right after each update.
+     * @param buffer an empty buffer to record the Game's draw commands into. Only valid during this call.
+     */
+    void record(RenderCommandBuffer buffer);
+}
@@ -0,0 +1,95 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * Decides which display mode the Engine should use, based on how far the time between wakeups of the update
+ * thread strays from the expected update time over a sliding window. Wakeups, not updates: the catch up updates
+ * of one wakeup run back to back, and say nothing about how regularly updates arrive.
+ * Occasional early or late updates average out, and are best shown with the fixed display mode.
+ * When updates are consistently early or late (e.g. the device is thermal throttling), the varied display mode
+ * keeps pace with them instead. Two thresholds and a minimum stay in each mode give hysteresis, so that the mode
+ * does not flip back and forth when the deviation hovers around a single threshold.
+ */
+
+/* pack */ final class DisplayModeSelector
+{
+    // Switch to the varied mode when the mean deviation is more than this fraction of the expected update time...
+    private static final double VAR_ENTER_FRACTION = 0.10;
+    // ...and back to the fixed mode once it is under this fraction.
+    private static final double FIX_ENTER_FRACTION = 0.03;
+
+    // The most recent deviations (actual - expected time between updates), as a ring.
+    private final long[] deviationsNS;
+    private int nextIndex = 0;
+    private int filled = 0;
+    private long deviationSumNS = 0;
+
+    // Intervals since the mode last changed. The mode may not change again until a whole window has passed.
+    private int intervalsSinceSwitch = 0;
+
+    public DisplayModeSelector(int windowSize)
+    {
+        if (windowSize < 1)
+        {
+            throw new IllegalArgumentException("Window size must be at least 1: " + windowSize);
+        }
+        deviationsNS = new long[windowSize];
+    }
+
+    /**
+     * Record the time between two consecutive wakeups, and decide which display mode to use.
+     * @param intervalNS the time between the previous wakeup and this one.
+     * @param expectedIntervalNS the time that was expected between them.
+     * @param currentMode the display mode in use now.
+     * @param fixMode the value of the fixed display mode.
+     * @param varMode the value of the varied display mode.
+     * @return the display mode to use from now on.
+     */
+    public int recordInterval(long intervalNS, long expectedIntervalNS, int currentMode, int fixMode, int varMode)
+    {
+        long deviationNS = intervalNS - expectedIntervalNS;
+        deviationSumNS += deviationNS - deviationsNS[nextIndex];
+        deviationsNS[nextIndex] = deviationNS;
+        nextIndex = (nextIndex + 1) % deviationsNS.length;
+        if (filled < deviationsNS.length)
+        {
+            filled++;
+        }
+        intervalsSinceSwitch++;
+
+        if (filled < deviationsNS.length || intervalsSinceSwitch < deviationsNS.length)
+        {
+            return currentMode;
+        }
+
+        double meanDeviationFraction = Math.abs(deviationSumNS / (double) filled) / expectedIntervalNS;
+        int mode = currentMode;
+        if (currentMode == fixMode && meanDeviationFraction > VAR_ENTER_FRACTION)
+        {
+            mode = varMode;
+        }
+        else if (currentMode == varMode && meanDeviationFraction < FIX_ENTER_FRACTION)
+        {
+            mode = fixMode;
+        }
+
+        if (mode != currentMode)
+        {
+            intervalsSinceSwitch = 0;
+        }
+        return mode;
+    }
+
+    /**
+     * Forget every recorded interval, e.g. after a pause (whose length says nothing about update timing).
+     */
+    public void reset()
+    {
+        for (int i = 0; i < deviationsNS.length; i++)
+        {
+            deviationsNS[i] = 0;
+        }
+        nextIndex = 0;
+        filled = 0;
+        deviationSumNS = 0;
+    }
+}
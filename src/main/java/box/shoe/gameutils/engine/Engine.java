@@ -7,7 +7,6 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Process;
-import android.os.SystemClock;
 import android.support.annotation.IntDef;
 import android.support.annotation.RestrictTo;
 import android.util.Log;
@@ -19,15 +18,14 @@ import android.view.WindowManager;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import box.gift.gameutils.BuildConfig;
 import box.gift.gameutils.R;
 import box.shoe.gameutils.Interpolatable;
-import box.shoe.gameutils.Interpolation;
+import box.shoe.gameutils.Rng;
+import box.shoe.gameutils.Snapshottable;
 import box.shoe.gameutils.rumble.Rumble;
 import box.shoe.gameutils.screen.Screen;
 
@@ -55,12 +53,34 @@ public class Engine //TODO: redo input system. make it easy, usable.
 
     // Number of Updates Per Second that we would like to receive.
     // There are timing accuracy limitations and it is possible for the updates to take too long
-    // for this to be possible (lag), so we call it 'TARGET.'
-    private final int TARGET_UPS;
+    // for this to be possible (lag), so we call it 'target.'
+    // Starts as the Game's target UPS, and may be changed while the game runs, but only by the update thread.
+    private volatile int targetUPS;
 
-    // Based on the TARGET_UPS we can define how long we expect each update to take, in milliseconds and nanoseconds.
-    private final long expectedUpdateTimeMS;
-    private final long expectedUpdateTimeNS;
+    // Based on the targetUPS we can define how long we expect each update to take, in nanoseconds.
+    // Update thread only. The frame thread reads the step of each GameState instead.
+    private long expectedUpdateTimeNS;
+
+    // The UPS that the Game asked for, or that was last set by hand. Adaptation never goes above it.
+    private volatile int preferredUPS;
+
+    // A change of UPS which was asked for, to be made by the update thread before its next update. 0 if none.
+    private final AtomicInteger requestedTargetUPS = new AtomicInteger(0);
+
+    // Steps the UPS down when updates take too long, and back up when they have room to spare. Null when disabled.
+    private volatile UpdateRateGovernor updateRateGovernor;
+
+    // The most updates that will be run back to back to catch up when updates have fallen behind.
+    private static final int DEFAULT_MAX_CATCH_UP_UPDATES = 5;
+    private int maxCatchUpUpdates = DEFAULT_MAX_CATCH_UP_UPDATES;
+
+    // Total simulation time, in nanoseconds, that was given up on because updates could not catch up.
+    // Only written by the update thread.
+    private volatile long droppedSimulationTimeNS = 0;
+
+    // The time that the game runs on. Updates are stamped with it, and frames are matched to it,
+    // so pausing or scaling it pauses or scales the game as seen on the Screen.
+    private Clock clock = new Clock(SystemTimeSource.INSTANCE);
 
     // The game itself, which the engine handles by calling its methods and telling it when to update/render.
     private Game game;
@@ -78,6 +98,13 @@ public class Engine //TODO: redo input system. make it easy, usable.
     private volatile boolean paused = false;
     private volatile boolean pauseThreads = false;
 
+    // Main thread only. Whether the game has been launched (given onStart, with threads running), and what
+    // has to happen before it can be: a PreloadingGame's assets loaded, and the Screen ready.
+    private boolean launched = false;
+    private boolean preloaded = false;
+    private boolean screenReady = false;
+    private AssetLoader assetLoader;
+
     // Threads.
     // Runs game updates.
     private Thread updateThread;
@@ -97,16 +124,79 @@ public class Engine //TODO: redo input system. make it easy, usable.
 
     // Objs - remember to cleanup those that can be!
     private Choreographer vsync;
-    private List<GameState> gameStates;
+    private GameStateRing gameStates;
+
+    // How many GameStates are buffered between the update and frame threads when no other capacity is set.
+    private static final int DEFAULT_GAME_STATE_CAPACITY = 8;
+
+    // Locked state handoff - the update thread pushes GameStates into a ring, and the frame thread
+    // interpolates and renders while holding the same monitor as updates. Updates and renders never overlap,
+    // so the Game may touch anything it likes in render().
+    public static final int STATE_HANDOFF_LOCKED = 0;
+
+    // Triple buffered state handoff - the update thread publishes the two newest GameStates through a
+    // wait-free triple buffer, and the frame thread interpolates and renders without taking the update monitor.
+    // Updates and renders run at the same time on separate cores, so the Game must only read state in render()
+    // which is written by loadInterpValues (e.g. Entity.display, never Entity.body) or is otherwise immutable.
+    public static final int STATE_HANDOFF_TRIPLE_BUFFERED = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({STATE_HANDOFF_LOCKED, STATE_HANDOFF_TRIPLE_BUFFERED})
+    public @interface StateHandoff {}
+
+    // How GameStates get from the update thread to the frame thread.
+    private int stateHandoff = STATE_HANDOFF_LOCKED;
+
+    // Used by STATE_HANDOFF_TRIPLE_BUFFERED only.
+    private TripleBuffer<GameStatePair> gameStatePairs;
+    // Update thread only. A copy of the last GameState that was published, to become the next pair's past.
+    private GameState lastPublishedGameState;
+    private boolean hasPublishedGameState;
+
+    // Timing telemetry, readable by anyone through getStats().
+    private final EngineStats stats = new EngineStats();
+
+    // Frame thread only. The interpolation ratio of the frame that was just painted.
+    private double paintedInterpolationRatio;
+
+    // Touch events waiting to be given to the Game by the update thread.
+    private static final int TOUCH_EVENT_CAPACITY = 64;
+    private final TouchEventQueue touchEvents = new TouchEventQueue(TOUCH_EVENT_CAPACITY);
+
+    // Runs the Jobs of a ParallelGame across cores during updates. Null for any other Game.
+    private JobSystem jobSystem;
+
+    // Update thread only (after launch). How many updates have been run.
+    private long updateCount = 0;
+
+    // Records the session for a Replayer, if set.
+    private ReplayRecorder replayRecorder;
+
+    // Update thread only (after launch). Snapshots of every Snapshottable after each recent update, if enabled.
+    private SnapshotHistory snapshotHistory;
+    // Update thread only. How many updates to roll back after the current one, or 0.
+    private int requestedRollback = 0;
+
+    // Saves Interpolatables into GameStates on the update thread, and loads them back on the frame thread.
+    private final Interpolator interpolator = new Interpolator();
+
+    // Frame thread only. Replays the draw commands of a CommandRenderedGame.
+    private final RenderCommandPlayer renderCommandPlayer = new RenderCommandPlayer();
+
+    // Decides which Interpolatables are loaded each frame. Null to load them all.
+    private volatile InterpolationFilter interpolationFilter;
 
     //TODO: sort
     private double displayRefreshRate;
 
-    // We keep track of the number of milliseconds that can be taken to render a frame (rounded up) based on this device's
-    // display's refresh rate (how often a VSYNC occurs). We use this to see if our frame rendering is taking too long.
-    // If it is, then we may be in a 'spiral of death,' where each new frame is taking longer due to being more and more
-    // behind. To attempt to break free, we will skip a frame when [time it took to render] > ALLOTTED_TIME_PER_FRAME_MS.
-    private final int ALLOTTED_TIME_PER_FRAME_MS;
+    // Used when the display does not report a sensible refresh rate.
+    private static final double DEFAULT_DISPLAY_REFRESH_RATE = 60;
+
+    // Frame thread only. Based on this device's display's refresh rate (how often a VSYNC occurs), and what frames
+    // have been costing to render, predicts whether each frame will be painted in time. If not, we may be in a
+    // 'spiral of death,' where each new frame is taking longer due to being more and more behind. To break free,
+    // frames which are predicted to miss are degraded (for a PacedGame) or skipped.
+    private final FramePacer framePacer;
 
     // Fixed display mode - display will attempt to paint
     // pairs of updates for a fixed amount of time (expectedUpdateDelayNS)
@@ -116,7 +206,7 @@ public class Engine //TODO: redo input system. make it easy, usable.
     // or artificially lengthen the painting of a pair of updates
     // because the next update comes too early or late.
     // Pro: looks better when an occasional update comes too early or too late.
-    private static final int DIS_MODE_FIX_UPDATE_DISPLAY_DURATION = 0;
+    public static final int DIS_MODE_FIX_UPDATE_DISPLAY_DURATION = 0;
 
     // Varied display mode - display will lengthen or shorten
     // the amount of time it takes to display a pair of updates.
@@ -125,11 +215,39 @@ public class Engine //TODO: redo input system. make it easy, usable.
     // Pro: When many updates in a row come to early or late, instead
     // of jittering the display will simply speed up or slow down
     // to keep pace with the updates, which looks very nice.
-    //fixme:BUG- game is slow for a whole update after coming back from a pause, since that pause time is counted.
-    private static final int DIS_MODE_VAR_UPDATE_DISPLAY_DURATION = 1;
+    public static final int DIS_MODE_VAR_UPDATE_DISPLAY_DURATION = 1;
+
+    // Which display mode the engine is currently using. Written by the update thread, read by the frame thread.
+    private volatile int displayMode = DIS_MODE_FIX_UPDATE_DISPLAY_DURATION;
+
+    // Whether the update thread switches display modes on its own, based on how regularly updates arrive.
+    private boolean autoDisplayMode = true;
+
+    // Update thread only. Watches the time between updates to decide which display mode fits best.
+    // The window is about half a second of updates, so that a few stray updates do not cause a switch.
+    private static final int MIN_DISPLAY_MODE_WINDOW = 4;
+    private final DisplayModeSelector displayModeSelector;
+
+    // Dual thread mode - updates run on their own thread, woken by a Handler, and frames are painted on another
+    // thread, on every VSYNC. Updates keep running while a frame is painted (and vice versa, with
+    // STATE_HANDOFF_TRIPLE_BUFFERED), which pays off when there are cores to spare.
+    public static final int THREAD_MODE_DUAL = 0;
+
+    // Single thread mode - everything happens on the main thread, on every VSYNC: first as many updates as the
+    // time since the last VSYNC calls for, then a frame painted from the newest GameStates. There are no threads
+    // or Loopers of our own, and no monitors, which costs less than handing off between threads on devices with
+    // few cores. Updates and render never overlap, and the game may only be paused and stopped from the main thread.
+    public static final int THREAD_MODE_SINGLE = 1;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({THREAD_MODE_DUAL, THREAD_MODE_SINGLE})
+    public @interface ThreadMode {}
 
-    // Which display mode the engine is currently using.
-    private int displayMode = DIS_MODE_FIX_UPDATE_DISPLAY_DURATION;
+    // Which threads run updates and frames.
+    private final int threadMode;
+
+    // Main thread only. Runs updates and frames in THREAD_MODE_SINGLE.
+    private SingleThreadFrameCallback singleThreadFrameCallback;
 
     // Choreographer tells you a fake time stamp for beginning of VSYNC.
     // It really occurs at (frameTimeNanos - vsyncOffsetNanos).
@@ -138,41 +256,35 @@ public class Engine //TODO: redo input system. make it easy, usable.
 
     public Engine(Screen screen, final Game game) //target ups should divide evenly into 1000000000, updates are accurately called to within about 10ms
     {
-        this.TARGET_UPS = game.getTargetUpdatesPerSecond();
-        this.expectedUpdateTimeMS = 1000 / this.TARGET_UPS;
-        this.expectedUpdateTimeNS = this.expectedUpdateTimeMS * 1000000;
+        this(screen, game, THREAD_MODE_DUAL);
+    }
+
+    /**
+     * @param screen where to paint the game.
+     * @param game the game.
+     * @param threadMode THREAD_MODE_DUAL (the default) or THREAD_MODE_SINGLE.
+     */
+    public Engine(Screen screen, final Game game, @ThreadMode int threadMode)
+    {
+        if (threadMode != THREAD_MODE_DUAL && threadMode != THREAD_MODE_SINGLE)
+        {
+            throw new IllegalArgumentException("Unknown thread mode: " + threadMode);
+        }
+        this.threadMode = threadMode;
+        this.targetUPS = game.getTargetUpdatesPerSecond();
+        this.preferredUPS = this.targetUPS;
+        this.expectedUpdateTimeNS = 1000000000L / this.targetUPS;
 
         this.game = game;
         this.screen = screen;
 
-        gameStates = new LinkedList<>();
-
-        // Setup the 'Updates' thread.
-        updateThread = new Thread(new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                Process.setThreadPriority(Process.THREAD_PRIORITY_FOREGROUND);
-                Looper.prepare();
-                updateThreadLooper = Looper.myLooper();
-                runUpdates();
-
-            }
-        }, this.screen.asView().getContext().getString(R.string.update_thread_name));
+        gameStates = new GameStateRing(DEFAULT_GAME_STATE_CAPACITY);
+        displayModeSelector = new DisplayModeSelector(Math.max(MIN_DISPLAY_MODE_WINDOW, targetUPS / 2));
 
-        // Setup the 'Frames' thread.
-        frameThread = new Thread(new Runnable()
+        if (threadMode == THREAD_MODE_DUAL)
         {
-            @Override
-            public void run()
-            {
-                Process.setThreadPriority(Process.THREAD_PRIORITY_FOREGROUND);
-                Looper.prepare();
-                frameThreadLooper = Looper.myLooper();
-                runFrames();
-            }
-        }, this.screen.asView().getContext().getString(R.string.frame_thread_name));
+            createThreads();
+        }
 
         this.screen.asView().setOnTouchListener(new View.OnTouchListener()
         {
@@ -186,9 +298,12 @@ public class Engine //TODO: redo input system. make it easy, usable.
                 // Only use touch event if not paused.
                 if (isPlaying() && motionEvent != null)
                 {
-                    synchronized (monitorUpdateFrame)
+                    // Never wait on the update thread here. The event is copied and queued,
+                    // and the Game receives it at the start of the next update.
+                    if (!touchEvents.offer(motionEvent) && BuildConfig.DEBUG)
                     {
-                        game.onTouch(motionEvent);
+                        Log.w("Engine", "A touch event was dropped because the touch event queue is full!" +
+                                " Perhaps your update code is taking too long.");
                     }
                     return true;
                 }
@@ -208,8 +323,11 @@ public class Engine //TODO: redo input system. make it easy, usable.
         //TODO: fallback if this cannot be done? (when the display returns null).
         Display display = ((WindowManager) this.screen.asView().getContext().getSystemService(Context.WINDOW_SERVICE)).getDefaultDisplay();
         displayRefreshRate = display.getRefreshRate();
-        ALLOTTED_TIME_PER_FRAME_MS = (int) Math.ceil(1000 / displayRefreshRate);
-        //L.d("timer per, expected 17 on this device: " + ALLOTTED_TIME_PER_FRAME_MS, "optimization");
+        if (!(displayRefreshRate > 0))
+        {
+            displayRefreshRate = DEFAULT_DISPLAY_REFRESH_RATE;
+        }
+        framePacer = new FramePacer((long) (1000000000L / displayRefreshRate), game instanceof PacedGame);
         //L.d("Display Refresh Rate: " + displayRefreshRate, "optimization");
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
@@ -222,6 +340,36 @@ public class Engine //TODO: redo input system. make it easy, usable.
         }
     }
 
+    private void createThreads()
+    {
+        // Setup the 'Updates' thread.
+        updateThread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_FOREGROUND);
+                Looper.prepare();
+                updateThreadLooper = Looper.myLooper();
+                runUpdates();
+
+            }
+        }, screen.asView().getContext().getString(R.string.update_thread_name));
+
+        // Setup the 'Frames' thread.
+        frameThread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_FOREGROUND);
+                Looper.prepare();
+                frameThreadLooper = Looper.myLooper();
+                runFrames();
+            }
+        }, screen.asView().getContext().getString(R.string.frame_thread_name));
+    }
+
     private void runUpdates()
     {
         // Make sure that we are on updateThread.
@@ -235,36 +383,91 @@ public class Engine //TODO: redo input system. make it easy, usable.
         Runnable updateCallback = new Runnable()
         {
             private boolean updateThreadPaused;
-            private long startUpdateTimeNS = 0;
+            // When the previous wakeup was (-1 if there was a pause since), and the step at the end of it,
+            // which is how long we expected to wait for this one. Only for selecting the display mode.
+            private long previousMeasuredWakeTimeNS = -1;
+            private long expectedIntervalNS;
+
+            // Fixed time step accumulator. Every wakeup adds the time that passed since the last one,
+            // and every update consumes expectedUpdateTimeNS of it. Because we never lose the leftover,
+            // scheduling inaccuracy (Handler delays have millisecond granularity) does not make us drift.
+            private long previousWakeTimeNS = -1;
+            private long accumulatedTimeNS = 0;
+
+            // The time stamp of the next GameState, as in SingleThreadFrameCallback. Catch up updates run back
+            // to back, so stamping them with when they ran would give them all nearly the same time stamp.
+            private long simulationTimeNS = 0;
 
             @Override
             public void run()
             {
                 // Keep track of what time it is now. Goes first to get most accurate timing.
-                startUpdateTimeNS = System.nanoTime();
-
-                // Schedule next update. Goes second to get as accurate as possible updates.
-                // We do it at the start to make sure we are waiting a precise amount of time
-                // (as precise as we can get with postDelayed). This means we manually remove
-                // the callback if the game stops.
-                //updateHandler.removeCallbacksAndMessages(null);
-                updateHandler.postDelayed(this, expectedUpdateTimeMS);
+                long wakeTimeNS = clock.nanoTime();
+                if (previousWakeTimeNS < 0)
+                {
+                    // The first wakeup runs one update right away.
+                    accumulatedTimeNS = expectedUpdateTimeNS;
+                    simulationTimeNS = wakeTimeNS;
+                }
+                else
+                {
+                    accumulatedTimeNS += wakeTimeNS - previousWakeTimeNS;
+                }
+                previousWakeTimeNS = wakeTimeNS;
 
                 // Acquire the monitor lock, because we cannot update the game at the same time we are trying to draw it.
                 synchronized (monitorUpdateFrame)
                 {
-                    game.update();
+                    // Measure how regularly updates arrive once per wakeup, not once per update: the catch up
+                    // updates of a wakeup run back to back, so the gaps between them would look like early updates.
+                    if (autoDisplayMode && previousMeasuredWakeTimeNS >= 0)
+                    {
+                        selectDisplayMode(wakeTimeNS - previousMeasuredWakeTimeNS, expectedIntervalNS);
+                    }
+                    previousMeasuredWakeTimeNS = wakeTimeNS;
 
-                    // Make new GameState with time stamp of the start of this update round.
-                    GameState gameState = new GameState();
-                    gameState.setTimeStamp(startUpdateTimeNS);
+                    // Run as many updates as it takes to catch up with the time that has passed,
+                    // but not so many that this wakeup takes longer than the time it is catching up on
+                    // (which would leave us further behind each time, a 'spiral of death').
+                    int updatesThisWakeup = 0;
+                    while (accumulatedTimeNS >= expectedUpdateTimeNS && updatesThisWakeup < maxCatchUpUpdates)
+                    {
+                        // Change UPS only between updates, so that every update runs a whole step at one rate.
+                        applyRequestedTargetUPS();
+
+                        // The GameState is stamped with when its step was due, not when it happened to run.
+                        long stepNS = expectedUpdateTimeNS;
+                        long updateDurationNS = runUpdate(simulationTimeNS);
+                        simulationTimeNS += stepNS;
 
-                    // Allow all Interpolatables to save their values.
-                    doSaveInterpValues(gameState);
+                        accumulatedTimeNS -= stepNS;
+                        updatesThisWakeup++;
+
+                        governUpdateRate(updateDurationNS);
+                    }
+                    expectedIntervalNS = expectedUpdateTimeNS;
 
-                    gameStates.add(gameState);
+                    // If we hit the catch up limit, give up on the whole updates we could not run
+                    // (keeping the partial one), and remember how much simulation time we dropped.
+                    long droppedTimeNS = 0;
+                    if (accumulatedTimeNS >= expectedUpdateTimeNS)
+                    {
+                        droppedTimeNS = accumulatedTimeNS - (accumulatedTimeNS % expectedUpdateTimeNS);
+                        accumulatedTimeNS -= droppedTimeNS;
+                        simulationTimeNS += droppedTimeNS;
+                        droppedSimulationTimeNS += droppedTimeNS;
+                        if (BuildConfig.DEBUG)
+                        {
+                            Log.i("Engine", "Updates could not keep up, so " + droppedTimeNS + "ns of simulation " +
+                                    "time was dropped. Perhaps your update code is taking too long.");
+                        }
+                    }
+                    if (updatesThisWakeup > 0)
+                    {
+                        stats.recordWakeup(updatesThisWakeup, droppedTimeNS);
+                    }
 
-                    // Pause game (postDelayed runnable should not run while this thread is waiting, so no issues there)
+                    // Pause game.
                     while (pauseThreads)
                     {
                         try
@@ -281,7 +484,19 @@ public class Engine //TODO: redo input system. make it easy, usable.
                             e.printStackTrace();
                         }
                     }
-                    updateThreadPaused = false;
+                    if (updateThreadPaused)
+                    {
+                        // The clock resumes before the Screen is ready again, so make sure that time spent
+                        // waiting is not simulation time that we need to catch up on,
+                        // nor does it say anything about how regularly updates arrive.
+                        // Simulation time skips it too, so that it keeps up with the clock the frames are painted by.
+                        long resumeTimeNS = clock.nanoTime();
+                        simulationTimeNS += resumeTimeNS - previousWakeTimeNS;
+                        previousWakeTimeNS = resumeTimeNS;
+                        previousMeasuredWakeTimeNS = -1;
+                        displayModeSelector.reset();
+                        updateThreadPaused = false;
+                    }
 
                     // Stop thread.
                     if (stopThreads)
@@ -290,8 +505,14 @@ public class Engine //TODO: redo input system. make it easy, usable.
                         stopLatch.countDown();
                         return;
                     }
-                    //TODO: if updates are consistently taking too long (or even too short! [impossible?]) we can switch visualization modes.
                 }
+
+                // Schedule the next wakeup for when the next update is due, rounding up to the next millisecond
+                // since that is the granularity of postDelayed. Waking a little late is fine, the accumulator
+                // will account for it; waking early would just make us wake again.
+                long untilNextUpdateNS = clock.toSourceDuration(
+                        (expectedUpdateTimeNS - accumulatedTimeNS) - (clock.nanoTime() - previousWakeTimeNS));
+                updateHandler.postDelayed(this, Math.max(0, (untilNextUpdateNS + 999999) / 1000000));
             }
         };
 
@@ -299,53 +520,203 @@ public class Engine //TODO: redo input system. make it easy, usable.
         Looper.loop();
     }
 
-    private void doSaveInterpValues(GameState gameState)
+    // Run a single update, and hand its GameState off to be painted.
+    // Returns how long it took, in real time.
+    private long runUpdate(long timeStampNS)
     {
-        Map<Interpolatable, float[]> savedInterpValues = gameState.getSavedInterpValues();
-        for (Interpolatable interpolatable : Interpolatable.INTERPOLATABLE_SERVICE.getMembers())
+        long startUpdateRealTimeNS = System.nanoTime();
+
+        // Before anything iterates the Services this update, since removing leaked members moves others around.
+        Interpolatable.INTERPOLATABLE_SERVICE.removeLeaks();
+        Snapshottable.SNAPSHOTTABLE_SERVICE.removeLeaks();
+
+        // Give the Game all input that arrived since the last update.
+        MotionEvent touchEvent;
+        while ((touchEvent = touchEvents.poll()) != null)
+        {
+            if (replayRecorder != null)
+            {
+                replayRecorder.recordTouch(updateCount, touchEvent);
+            }
+            game.onTouch(touchEvent);
+            touchEvent.recycle();
+        }
+
+        game.update();
+
+        // Every Job the Game submitted must finish before we save the GameState.
+        if (jobSystem != null)
+        {
+            jobSystem.join();
+        }
+        updateCount++;
+
+        if (snapshotHistory != null)
         {
-            int interpValuesArrayMaxIndex = interpolatable.getInterpValuesArrayMaxIndex();
-            float[] out = new float[interpValuesArrayMaxIndex + 1];
+            snapshotHistory.capture(updateCount, Snapshottable.SNAPSHOTTABLE_SERVICE);
+            if (requestedRollback > 0)
+            {
+                int updates = requestedRollback;
+                requestedRollback = 0;
+                performRollback(updates);
+            }
+        }
+
+        if (stateHandoff == STATE_HANDOFF_TRIPLE_BUFFERED)
+        {
+            publishGameStatePair(timeStampNS);
+        }
+        else
+        {
+            // Reuse the next GameState in the ring.
+            GameState gameState = gameStates.obtain();
+            gameState.setTimeStamp(timeStampNS);
+            gameState.setStepDurationNS(expectedUpdateTimeNS);
 
-            interpolatable.saveInterpValues(out);
+            // Allow all Interpolatables to save their values.
+            interpolator.save(gameState);
+            recordRenderCommands(gameState);
 
-            savedInterpValues.put(interpolatable, out);
+            gameStates.push();
         }
+
+        long updateDurationNS = System.nanoTime() - startUpdateRealTimeNS;
+        stats.recordUpdate(updateDurationNS);
+        return updateDurationNS;
     }
 
-    private void doLoadInterpValues(GameState gameStatePast, GameState gameStateCurrent, double interpolationRatio)
+    private void applyRequestedTargetUPS()
     {
-        Map<Interpolatable, float[]> savedInterpValuesPast = gameStatePast.getSavedInterpValues();
-        Map<Interpolatable, float[]> savedInterpValuesCurrent = gameStateCurrent.getSavedInterpValues();
-        for (Interpolatable interpolatable : savedInterpValuesCurrent.keySet())
+        int requestedUPS = requestedTargetUPS.getAndSet(0);
+        if (requestedUPS != 0)
         {
-            if (savedInterpValuesPast.containsKey(interpolatable))
+            UpdateRateGovernor governor = updateRateGovernor;
+            if (governor != null)
             {
-                float[] pastOut = savedInterpValuesPast.get(interpolatable);
-                float[] currentOut = savedInterpValuesCurrent.get(interpolatable);
+                governor.setMaximumUPS(requestedUPS);
+            }
+            changeTargetUPS(requestedUPS);
+        }
+    }
 
-                if (pastOut.length != currentOut.length)
-                {
-                    throw new IllegalStateException("Interpolatable " + interpolatable + " does not consistently " +
-                            "save the same amount of interp values!");
-                }
+    private void governUpdateRate(long updateDurationNS)
+    {
+        UpdateRateGovernor governor = updateRateGovernor;
+        if (governor != null)
+        {
+            int governedUPS = governor.recordUpdate(updateDurationNS, targetUPS);
+            if (governedUPS != targetUPS)
+            {
+                changeTargetUPS(governedUPS);
+            }
+        }
+    }
 
-                int outLength = currentOut.length;
-                float[] in = new float[outLength];
-                for (int i = 0; i < outLength; i++)
-                {
-                    float pastValue = pastOut[i];
-                    float currentValue = currentOut[i];
+    // Restore the snapshot from some updates ago, and run those updates again.
+    private void performRollback(int updates)
+    {
+        long startNS = System.nanoTime();
+        long restoredUpdate = updateCount - updates;
+        snapshotHistory.restore(restoredUpdate, Snapshottable.SNAPSHOTTABLE_SERVICE);
+        for (long update = restoredUpdate + 1; update <= updateCount; update++)
+        {
+            game.update();
+            if (jobSystem != null)
+            {
+                jobSystem.join();
+            }
+            snapshotHistory.capture(update, Snapshottable.SNAPSHOTTABLE_SERVICE);
+        }
+        stats.recordRollback(System.nanoTime() - startNS);
+    }
 
-                    float interpolatedValue = Interpolation.interpolateFloat(pastValue, currentValue, interpolationRatio);
-                    in[i] = interpolatedValue;
-                }
+    private void changeTargetUPS(int ups)
+    {
+        if (ups == targetUPS)
+        {
+            return;
+        }
+        if (BuildConfig.DEBUG)
+        {
+            Log.i("Engine", "Changing target UPS from " + targetUPS + " to " + ups + ".");
+        }
+        targetUPS = ups;
+        expectedUpdateTimeNS = 1000000000L / ups;
+        if (replayRecorder != null)
+        {
+            replayRecorder.recordUpdateRateChange(updateCount, ups);
+        }
+
+        // Intervals at the old rate say nothing about intervals at the new one.
+        displayModeSelector.reset();
+
+        if (game instanceof RateAwareGame)
+        {
+            ((RateAwareGame) game).onUpdateRateChanged(ups);
+        }
+    }
 
-                interpolatable.loadInterpValues(in);
+    private void selectDisplayMode(long wakeIntervalNS, long expectedIntervalNS)
+    {
+        int newDisplayMode = displayModeSelector.recordInterval(wakeIntervalNS, expectedIntervalNS, displayMode,
+                DIS_MODE_FIX_UPDATE_DISPLAY_DURATION, DIS_MODE_VAR_UPDATE_DISPLAY_DURATION);
+        if (newDisplayMode != displayMode)
+        {
+            displayMode = newDisplayMode;
+            stats.recordDisplayModeChange(newDisplayMode);
+            if (BuildConfig.DEBUG)
+            {
+                Log.i("Engine", "Switched to display mode " + newDisplayMode + ", because updates " +
+                        (newDisplayMode == DIS_MODE_VAR_UPDATE_DISPLAY_DURATION ? "are" : "are no longer") +
+                        " consistently early or late.");
             }
         }
     }
 
+    private void recordRenderCommands(GameState gameState)
+    {
+        if (game instanceof CommandRenderedGame)
+        {
+            RenderCommandBuffer renderCommands = gameState.getRenderCommands();
+            renderCommands.clear();
+            ((CommandRenderedGame) game).record(renderCommands);
+        }
+    }
+
+    private void renderFrame(GameState gameStatePast, GameState gameStateCurrent, double interpolationRatio, Canvas renderCanvas)
+    {
+        if (game instanceof CommandRenderedGame)
+        {
+            renderCommandPlayer.play(gameStatePast.getRenderCommands(), gameStateCurrent.getRenderCommands(),
+                    interpolationRatio, renderCanvas);
+        }
+        else
+        {
+            game.render(screen.asView().getResources(), renderCanvas); //TODO: i don't like getting context from the Screen view....
+        }
+    }
+
+    private void publishGameStatePair(long timeStamp)
+    {
+        GameStatePair gameStatePair = gameStatePairs.getWriteBuffer();
+
+        gameStatePair.current.setTimeStamp(timeStamp);
+        gameStatePair.current.setStepDurationNS(expectedUpdateTimeNS);
+        interpolator.save(gameStatePair.current);
+        recordRenderCommands(gameStatePair.current);
+
+        // The frame thread may skip publications, so each pair carries its own past GameState.
+        gameStatePair.hasPast = hasPublishedGameState;
+        if (hasPublishedGameState)
+        {
+            gameStatePair.past.copyFrom(lastPublishedGameState);
+        }
+        lastPublishedGameState.copyFrom(gameStatePair.current);
+        hasPublishedGameState = true;
+
+        gameStatePairs.publish();
+    }
+
     private void runFrames()
     {
         // Make sure that we are on frameThread.
@@ -358,9 +729,6 @@ public class Engine //TODO: redo input system. make it easy, usable.
 
         Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback()
         {
-            private long beginDoFrameThreadTimeMS;
-            private boolean skipNextFrame = false;
-
             private boolean frameThreadPaused;
 
             private Canvas renderCanvas = null;
@@ -368,130 +736,156 @@ public class Engine //TODO: redo input system. make it easy, usable.
             @Override
             public void doFrame(long frameTimeNanos)
             {
-                beginDoFrameThreadTimeMS = SystemClock.currentThreadTimeMillis();
+                long beginDoFrameTimeNS = System.nanoTime();
 
                 // Correct for minor difference in VSYNC time.
                 // This is probably totally unnecessary, but we might as well be as accurate as possible.
                 // (And will only change frameTimeNanos in a sufficiently high API anyway).
                 // See notes above for field vsyncOffsetNanos.
                 frameTimeNanos -= vsyncOffsetNanos;
+                long vsyncTimeNS = frameTimeNanos;
+
+                // Frame times are real time, but GameStates are stamped with the time of the clock.
+                // Any other TimeSource has nothing to do with VSYNC, so we can only ask it what time it is now.
+                if (clock.getTimeSource() == SystemTimeSource.INSTANCE)
+                {
+                    frameTimeNanos = clock.nanoTimeAt(frameTimeNanos);
+                }
+                else
+                {
+                    frameTimeNanos = clock.nanoTime();
+                }
 
-                // Skip a frame if last frame indicated that it took too long.
-                if (skipNextFrame)
+                // Predict whether this frame will be painted in time, and let the Game know.
+                int pacing = framePacer.decide(beginDoFrameTimeNS, vsyncTimeNS);
+                // If we plan on stopping or pausing during this frame, then
+                // we will not skip it, and instead continue as normal.
+                if (pacing == PacedGame.FRAME_SKIP && (stopThreads || pauseThreads))
+                {
+                    pacing = PacedGame.FRAME_RENDER;
+                }
+                if (game instanceof PacedGame)
                 {
-                    skipNextFrame = false;
+                    ((PacedGame) game).onFramePacing(pacing);
+                }
 
-                    // If we plan on stopping or pausing during this frame, then
-                    // we will not skip it, and instead continue as normal.
-                    if (!stopThreads && !pauseThreads)
+                // Skip this frame if it would not be painted in time anyway.
+                if (pacing == PacedGame.FRAME_SKIP)
+                {
+                    stats.recordSkippedFrame();
+                    if (BuildConfig.DEBUG)
                     {
-                        // Put ourselves up for the next frame...
-                        vsync.postFrameCallback(this);
-                        // ...and don't do any further work this frame.
-                        return;
+                        Log.i(Engine.this.getClass().getSimpleName(),
+                                "Frames are taking too long to render, so we will skip this one to " +
+                                        "ease up on the load and avoid jank. If this is happening a lot, your drawing " +
+                                        "routine may be doing too much work!");
                     }
-                } //TODO: we may need to not skip if we just came out of a pause because the engine might misidentify that as a frame that took too long.
+
+                    // Put ourselves up for the next frame...
+                    vsync.postFrameCallback(this);
+                    // ...and don't do any further work this frame.
+                    return;
+                }
 
                 boolean paintedFrame = false;
-                synchronized (monitorUpdateFrame)
+                // Only take the monitor when we have been asked to pause or stop. While updates run,
+                // the update thread holds the monitor, and in STATE_HANDOFF_TRIPLE_BUFFERED we must not wait for it.
+                if (pauseThreads || stopThreads)
                 {
-                    // Pause this thread if prompted.
-                    // Spin lock when we want to pause.
-                    while (pauseThreads)
+                    synchronized (monitorUpdateFrame)
                     {
-                        try
+                        // Pause this thread if prompted.
+                        // Spin lock when we want to pause.
+                        while (pauseThreads)
                         {
-                            if (!frameThreadPaused)
+                            try
                             {
-                                if (screen.isRendering())
+                                if (!frameThreadPaused)
                                 {
-                                    // Unlock the canvas without painting anything new.
-                                    screen.endRender(); //TODO: we should really be posting the most recent state, we don't want to end up rendering the last frame (due to buffer swapping).
+                                    if (screen.isRendering())
+                                    {
+                                        // Unlock the canvas without painting anything new.
+                                        screen.endRender(); //TODO: we should really be posting the most recent state, we don't want to end up rendering the last frame (due to buffer swapping).
+                                    }
+
+                                    // Let the pauser know that we have reached the pause routine.
+                                    pauseLatch.countDown();
                                 }
 
-                                // Let the pauser know that we have reached the pause routine.
-                                pauseLatch.countDown();
-                            }
-
-                            // We are now paused, so make sure that we know in event of a spurious wakeup
-                            // that we were paused already (and do not count down latch/endRender again).
-                            frameThreadPaused = true;
+                                // We are now paused, so make sure that we know in event of a spurious wakeup
+                                // that we were paused already (and do not count down latch/endRender again).
+                                frameThreadPaused = true;
 
-                            // Now we wait on the monitor. It is true that we already counted down the pause latch,
-                            // but the pauser will not truly continue until we have called .wait() (and released the lock).
-                            monitorUpdateFrame.wait();
-                        } catch (InterruptedException e)
+                                // Now we wait on the monitor. It is true that we already counted down the pause latch,
+                                // but the pauser will not truly continue until we have called .wait() (and released the lock).
+                                monitorUpdateFrame.wait();
+                            } catch (InterruptedException e)
+                            {
+                                e.printStackTrace();
+                            }
+                        }
+                        if (frameThreadPaused)
                         {
-                            e.printStackTrace();
+                            // What frames cost before the pause says little about what they will cost now.
+                            framePacer.reset();
+                            frameThreadPaused = false;
                         }
-                    }
-                    frameThreadPaused = false;
 
-                    // Stop this thread if prompted.
-                    if (stopThreads)
-                    {
-                        stopLatch.countDown();
+                        // Stop this thread if prompted.
+                        if (stopThreads)
+                        {
+                            stopLatch.countDown();
 
-                        // It is true that we already counted down the stop latch, but the stopper will not truly
-                        // continue until we have returned (and released the lock). This is to be sure that our
-                        // Looper has processed that this Choreographer callback is over before our Looper is stopped.
-                        return;
+                            // It is true that we already counted down the stop latch, but the stopper will not truly
+                            // continue until we have returned (and released the lock). This is to be sure that our
+                            // Looper has processed that this Choreographer callback is over before our Looper is stopped.
+                            return;
+                        }
                     }
                 }
 
+                // What it costs to render this frame, leaving out any time spent waiting for updates.
+                long renderCostNS = 0;
                 if (!screen.isRendering())
                 {
+                    long startRenderNS = System.nanoTime();
                     renderCanvas = screen.startRender();
+                    renderCostNS += System.nanoTime() - startRenderNS;
                 }
 
                 // Must ask for new callback each frame!
                 vsync.postFrameCallback(this);
 
-                synchronized (monitorUpdateFrame)
+                long paintStartNS;
+                if (stateHandoff == STATE_HANDOFF_TRIPLE_BUFFERED)
+                {
+                    // No need for the monitor, the GameStates we read are ours until we acquire again.
+                    paintStartNS = System.nanoTime();
+                    paintedFrame = paintFromGameStatePair(frameTimeNanos, renderCanvas);
+                }
+                else
                 {
-                    // Paint frame.
-                    while (gameStates.size() >= 2 && !paintedFrame)
+                    synchronized (monitorUpdateFrame)
                     {
-                        GameState gameStatePast = gameStates.get(0);
-                        GameState gameStateCurrent = gameStates.get(1);
-
-                        double interpolationRatio;
-                        // TODO: auto switch paint modes in response to update lag. priority=low
-                        if (displayMode == DIS_MODE_FIX_UPDATE_DISPLAY_DURATION)
-                        {
-                            interpolationRatio = (frameTimeNanos - gameStateCurrent.getTimeStamp()) / ((double) expectedUpdateTimeNS);
-                        }
-                        else if (displayMode == DIS_MODE_VAR_UPDATE_DISPLAY_DURATION)
-                        {
-                            // Time that passed between the game states in question.
-                            long timeBetween = gameStateCurrent.getTimeStamp() - gameStatePast.getTimeStamp();
-                            interpolationRatio = (frameTimeNanos - gameStateCurrent.getTimeStamp()) / ((double) timeBetween);
-                        }
-                        else
-                        {
-                            throw new IllegalStateException("Engine is in an invalid displayMode.");
-                        }
-
-                        if (interpolationRatio >= 1)
-                        {
-                            // Remove the old GameState.
-                            if (gameStates.size() >= 1)
-                            {
-                                gameStates.remove(0);
-                            }
-                        }
-                        else
-                        {
-                            doLoadInterpValues(gameStatePast, gameStateCurrent, interpolationRatio);
-
-                            game.render(screen.asView().getResources(), renderCanvas); //TODO: i don't like getting context from the Screen view....
-                            paintedFrame = true;
-                        }
+                        paintStartNS = System.nanoTime();
+                        paintedFrame = paintFromGameStateRing(frameTimeNanos, renderCanvas);
                     }
                 }
                 if (paintedFrame)
                 {
                     screen.endRender();
+                    long endRenderNS = System.nanoTime();
+                    renderCostNS += endRenderNS - paintStartNS;
+                    framePacer.recordRender(renderCostNS, pacing);
+                    stats.recordFrame(endRenderNS - beginDoFrameTimeNS, paintedInterpolationRatio);
+                    if (pacing == PacedGame.FRAME_DEGRADE)
+                    {
+                        stats.recordDegradedFrame();
+                    }
+                }
+                else
+                {
+                    stats.recordStarvedFrame();
                 }
 
                 if (!paintedFrame && BuildConfig.DEBUG)
@@ -499,23 +893,6 @@ public class Engine //TODO: redo input system. make it easy, usable.
                     Log.i("Engine", "No frame was painted because there were not enough new GameStates!" +
                             " Perhaps your update code is taking too long.");
                 }
-
-                //TODO: we should only skip frames if it takes too long to draw, not if the updates are taking too long. so this needs to make sure to only count the draw frame time, which is not working.
-                // If we took more time than we are allowed, it may be that we are stuck
-                // in a "death spiral", where we are constantly unable to catch up due to
-                // the constant demand to generate the next frame. So we ease up a little bit
-                // by skipping the next frame, so that we do not get screen jank.
-                if (SystemClock.currentThreadTimeMillis() - beginDoFrameThreadTimeMS > ALLOTTED_TIME_PER_FRAME_MS)
-                {
-                    skipNextFrame = true;
-                    if (BuildConfig.DEBUG)
-                    {
-                        Log.i(Engine.this.getClass().getSimpleName(),
-                                "We took too long to generate this past frame, so we will skip the next one to " +
-                                        "ease up on the load and avoid jank. If this is happening a lot, your drawing " +
-                                        "routine may be doing too much work!");
-                    }
-                }
             }
         };
         //Looper.myLooper().setMessageLogging(new LogPrinter(Log.DEBUG, "Looper"));
@@ -523,6 +900,207 @@ public class Engine //TODO: redo input system. make it easy, usable.
         Looper.loop();
     }
 
+    // THREAD_MODE_SINGLE only. Runs on the main thread, and does the work of both threads on every VSYNC:
+    // the same fixed step accumulator as the update thread, then the same painting as the frame thread,
+    // minus all of the monitors and pausing machinery (pauseGame simply takes the callback off the Choreographer).
+    private final class SingleThreadFrameCallback implements Choreographer.FrameCallback
+    {
+        private long previousWakeTimeNS = -1;
+        private long accumulatedTimeNS = 0;
+
+        // The time stamp of the next GameState. Updates are run as the clock passes whole steps,
+        // so GameStates are stamped with exactly when they were due, and every step paints for exactly as long.
+        private long simulationTimeNS = 0;
+
+        private Canvas renderCanvas = null;
+
+        @Override
+        public void doFrame(long frameTimeNanos)
+        {
+            long beginDoFrameTimeNS = System.nanoTime();
+
+            // See the frame thread for why.
+            frameTimeNanos -= vsyncOffsetNanos;
+            long vsyncTimeNS = frameTimeNanos;
+            if (clock.getTimeSource() == SystemTimeSource.INSTANCE)
+            {
+                frameTimeNanos = clock.nanoTimeAt(frameTimeNanos);
+            }
+            else
+            {
+                frameTimeNanos = clock.nanoTime();
+            }
+
+            // Must ask for new callback each frame!
+            vsync.postFrameCallback(this);
+
+            runUpdates(frameTimeNanos);
+
+            int pacing = framePacer.decide(System.nanoTime(), vsyncTimeNS);
+            if (game instanceof PacedGame)
+            {
+                ((PacedGame) game).onFramePacing(pacing);
+            }
+            if (pacing == PacedGame.FRAME_SKIP)
+            {
+                stats.recordSkippedFrame();
+                return;
+            }
+
+            long paintStartNS = System.nanoTime();
+            if (!screen.isRendering())
+            {
+                renderCanvas = screen.startRender();
+            }
+            if (paintFromGameStateRing(frameTimeNanos, renderCanvas))
+            {
+                screen.endRender();
+                long endRenderNS = System.nanoTime();
+                framePacer.recordRender(endRenderNS - paintStartNS, pacing);
+                stats.recordFrame(endRenderNS - beginDoFrameTimeNS, paintedInterpolationRatio);
+                if (pacing == PacedGame.FRAME_DEGRADE)
+                {
+                    stats.recordDegradedFrame();
+                }
+            }
+            else
+            {
+                stats.recordStarvedFrame();
+            }
+        }
+
+        private void runUpdates(long wakeTimeNS)
+        {
+            if (previousWakeTimeNS < 0)
+            {
+                // The first frame runs one update right away.
+                accumulatedTimeNS = expectedUpdateTimeNS;
+                simulationTimeNS = wakeTimeNS;
+            }
+            else
+            {
+                accumulatedTimeNS += wakeTimeNS - previousWakeTimeNS;
+            }
+            previousWakeTimeNS = wakeTimeNS;
+
+            int updatesThisWakeup = 0;
+            while (accumulatedTimeNS >= expectedUpdateTimeNS && updatesThisWakeup < maxCatchUpUpdates)
+            {
+                applyRequestedTargetUPS();
+
+                long stepNS = expectedUpdateTimeNS;
+                long updateDurationNS = runUpdate(simulationTimeNS);
+                simulationTimeNS += stepNS;
+                accumulatedTimeNS -= stepNS;
+                updatesThisWakeup++;
+
+                governUpdateRate(updateDurationNS);
+            }
+
+            // As on the update thread, give up on whole updates past the catch up limit.
+            long droppedTimeNS = 0;
+            if (accumulatedTimeNS >= expectedUpdateTimeNS)
+            {
+                droppedTimeNS = accumulatedTimeNS - (accumulatedTimeNS % expectedUpdateTimeNS);
+                accumulatedTimeNS -= droppedTimeNS;
+                simulationTimeNS += droppedTimeNS;
+                droppedSimulationTimeNS += droppedTimeNS;
+            }
+            if (updatesThisWakeup > 0)
+            {
+                stats.recordWakeup(updatesThisWakeup, droppedTimeNS);
+            }
+        }
+
+        private void pause()
+        {
+            vsync.removeFrameCallback(this);
+            if (screen.isRendering())
+            {
+                // Unlock the canvas without painting anything new.
+                screen.endRender();
+            }
+        }
+
+        private void resume()
+        {
+            // Time spent paused is not simulation time that we need to catch up on.
+            previousWakeTimeNS = clock.nanoTime();
+            framePacer.reset();
+            vsync.postFrameCallback(this);
+        }
+    }
+
+    private boolean paintFromGameStateRing(long frameTimeNanos, Canvas renderCanvas)
+    {
+        // Paint frame.
+        while (gameStates.size() >= 2)
+        {
+            GameState gameStatePast = gameStates.get(0);
+            GameState gameStateCurrent = gameStates.get(1);
+
+            double interpolationRatio = calculateInterpolationRatio(gameStatePast, gameStateCurrent, frameTimeNanos);
+
+            if (interpolationRatio >= 1)
+            {
+                // Remove the old GameState.
+                gameStates.removeOldest();
+            }
+            else
+            {
+                interpolator.load(gameStatePast, gameStateCurrent, interpolationRatio, interpolationFilter);
+                paintedInterpolationRatio = interpolationRatio;
+
+                renderFrame(gameStatePast, gameStateCurrent, interpolationRatio, renderCanvas);
+                // Once we let go of the monitor, the update thread may reuse these GameStates.
+                interpolator.forgetLoad();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean paintFromGameStatePair(long frameTimeNanos, Canvas renderCanvas)
+    {
+        gameStatePairs.acquire();
+        GameStatePair gameStatePair = gameStatePairs.getReadBuffer();
+        if (!gameStatePair.hasPast)
+        {
+            return false;
+        }
+
+        // We only ever hold the newest pair, so there is nothing newer to move on to.
+        // Hold on the current GameState until the next one is published.
+        double interpolationRatio = Math.min(1,
+                calculateInterpolationRatio(gameStatePair.past, gameStatePair.current, frameTimeNanos));
+
+        interpolator.load(gameStatePair.past, gameStatePair.current, interpolationRatio, interpolationFilter);
+        paintedInterpolationRatio = interpolationRatio;
+
+        renderFrame(gameStatePair.past, gameStatePair.current, interpolationRatio, renderCanvas);
+        interpolator.forgetLoad();
+        return true;
+    }
+
+    private double calculateInterpolationRatio(GameState gameStatePast, GameState gameStateCurrent, long frameTimeNanos)
+    {
+        if (displayMode == DIS_MODE_FIX_UPDATE_DISPLAY_DURATION)
+        {
+            // Each GameState carries its own step, so the ratio stays right across a change of UPS.
+            return (frameTimeNanos - gameStateCurrent.getTimeStamp()) / ((double) gameStateCurrent.getStepDurationNS());
+        }
+        else if (displayMode == DIS_MODE_VAR_UPDATE_DISPLAY_DURATION)
+        {
+            // Time that passed between the game states in question.
+            long timeBetween = gameStateCurrent.getTimeStamp() - gameStatePast.getTimeStamp();
+            return (frameTimeNanos - gameStateCurrent.getTimeStamp()) / ((double) timeBetween);
+        }
+        else
+        {
+            throw new IllegalStateException("Engine is in an invalid displayMode.");
+        }
+    }
+
     public void startGame()
     {
         if (started)
@@ -533,6 +1111,7 @@ public class Engine //TODO: redo input system. make it easy, usable.
         else
         {
             started = true;
+            preload();
             screen.setReadyListener(new Screen.ReadyListener()
             {
                 @Override
@@ -547,20 +1126,102 @@ public class Engine //TODO: redo input system. make it easy, usable.
                             game.onScreenSizeChanged(newScreenWidth, newScreenHeight, oldScreenWidth, oldScreenHeight);
                         }
                     });
-                    launch();
+                    screenReady = true;
+                    launchIfReady();
                 }
             });
         }
     }
 
+    // Start loading a PreloadingGame's assets in the background, while the Screen gets ready.
+    private void preload()
+    {
+        if (!(game instanceof PreloadingGame))
+        {
+            preloaded = true;
+            return;
+        }
+
+        final PreloadingGame preloadingGame = (PreloadingGame) game;
+        assetLoader = new AssetLoader(screen.asView().getResources());
+        preloadingGame.onPreload(assetLoader);
+        assetLoader.start(new Handler(Looper.getMainLooper()), new AssetLoader.Listener()
+        {
+            @Override
+            public void onProgress(int loaded, int total)
+            {
+                preloadingGame.onPreloadProgress(loaded, total);
+            }
+
+            @Override
+            public void onComplete()
+            {
+                assetLoader = null;
+                preloaded = true;
+                launchIfReady();
+            }
+
+            @Override
+            public void onFailure(Throwable e)
+            {
+                // Just as if onStart had failed to load it.
+                throw new RuntimeException("An asset could not be preloaded!", e);
+            }
+        });
+    }
+
+    private void launchIfReady()
+    {
+        if (!launched && preloaded && screenReady && !paused)
+        {
+            launched = true;
+            launch();
+        }
+    }
+
     private void launch()
     {
+        if (game instanceof ParallelGame)
+        {
+            jobSystem = JobSystem.forAvailableCores();
+            ((ParallelGame) game).onAttachJobSystem(jobSystem);
+        }
+
+        if (replayRecorder != null)
+        {
+            // Start the random sequence over from its seed, so that a replay can start from the same place.
+            long seed = Rng.getSeed();
+            Rng.setSeed(seed);
+            replayRecorder.begin(seed, targetUPS, screen.getWidth(), screen.getHeight());
+        }
+
         // At this point, the Screen has dimensions, so we can do initialization based on them.
         game.onStart(screen.getWidth(), screen.getHeight());
+        if (snapshotHistory != null)
+        {
+            snapshotHistory.capture(0, Snapshottable.SNAPSHOTTABLE_SERVICE);
+        }
+
+        if (threadMode == THREAD_MODE_SINGLE)
+        {
+            // There is nobody to hand GameStates off to, so the ring will do.
+            stateHandoff = STATE_HANDOFF_LOCKED;
+            vsync = Choreographer.getInstance();
+            singleThreadFrameCallback = new SingleThreadFrameCallback();
+            vsync.postFrameCallback(singleThreadFrameCallback);
+            return;
+        }
 
         // We will launch two threads.
         // 1) Do game logic (game updates).
         // 2) Alert surface view (render frames).
+        if (stateHandoff == STATE_HANDOFF_TRIPLE_BUFFERED)
+        {
+            gameStatePairs = new TripleBuffer<>(new GameStatePair(), new GameStatePair(), new GameStatePair());
+            lastPublishedGameState = new GameState();
+            hasPublishedGameState = false;
+        }
+
         updateThread.start();
         frameThread.start();
     }
@@ -603,6 +1264,33 @@ public class Engine //TODO: redo input system. make it easy, usable.
                 throw new IllegalStateException("Cannot stop if game is not active!");
             }
 
+            // If there are no threads yet, there is nothing to stop but loading.
+            // With a single thread, there is no thread to stop at all.
+            if (!launched || threadMode == THREAD_MODE_SINGLE)
+            {
+                checkMainThread();
+                boolean wasLaunched = launched;
+                if (assetLoader != null)
+                {
+                    assetLoader.cancel();
+                    assetLoader = null;
+                }
+                screen.removeReadyListener();
+                if (singleThreadFrameCallback != null)
+                {
+                    singleThreadFrameCallback.pause();
+                    singleThreadFrameCallback = null;
+                }
+                stopped = true;
+                if (wasLaunched)
+                {
+                    finishReplay();
+                    game.onStop();
+                }
+                cleanup();
+                return;
+            }
+
             // Check if we are paused.
             // If so, we must first pause the game before we can attempt to stop it.
             if (isPlaying())
@@ -649,17 +1337,49 @@ public class Engine //TODO: redo input system. make it easy, usable.
             stopThreads = false;
         }
 
-        // Now cleanup all references.
-        // After calling stopGame, this engine is no longer usable.
+        finishReplay();
         game.onStop();
+        cleanup();
+    }
+
+    // The updates have stopped, so nothing else will be recorded.
+    private void finishReplay()
+    {
+        if (replayRecorder != null)
+        {
+            replayRecorder.finish(updateCount);
+            replayRecorder = null;
+        }
+    }
+
+    private void checkMainThread()
+    {
+        if (threadMode == THREAD_MODE_SINGLE && Looper.myLooper() != Looper.getMainLooper())
+        {
+            throw new IllegalThreadStateException("Can only be called from the main thread in THREAD_MODE_SINGLE!");
+        }
+    }
+
+    // Now cleanup all references.
+    // After calling stopGame, this engine is no longer usable.
+    private void cleanup()
+    {
         game = null;
+        if (jobSystem != null)
+        {
+            jobSystem.shutdown();
+            jobSystem = null;
+        }
         screen.cleanup();
         screen = null;
         updateThread = null;
         updateThreadLooper = null;
         frameThread = null;
         frameThreadLooper = null;
-        gameStates.clear(); //TODO: throw interps to the pool?
+        gameStates.clear();
+        touchEvents.clear();
+        gameStatePairs = null;
+        lastPublishedGameState = null;
     }
 
     /**
@@ -693,6 +1413,21 @@ public class Engine //TODO: redo input system. make it easy, usable.
                 throw new IllegalStateException("Cannot pause game that isn't running!");
             }
 
+            // Before launch, there are no threads to pause, but launch must wait for resume.
+            // With a single thread, we are on it, so just stop asking for frames.
+            if (!launched || threadMode == THREAD_MODE_SINGLE)
+            {
+                checkMainThread();
+                if (singleThreadFrameCallback != null)
+                {
+                    singleThreadFrameCallback.pause();
+                    Rumble.stop();
+                }
+                clock.pause();
+                paused = true;
+                return;
+            }
+
             pauseLatch = new CountDownLatch(NUMBER_OF_THREADS);
 
             // Tell threads to pause.
@@ -714,6 +1449,10 @@ public class Engine //TODO: redo input system. make it easy, usable.
             // Now that we have paused, stop any other system threads we may have been using.
             Rumble.stop();
 
+            // Time spent paused does not pass in the game, so the GameStates we already have
+            // carry on being painted from where they left off once we resume.
+            clock.pause();
+
             paused = true;
         }
     }
@@ -745,11 +1484,42 @@ public class Engine //TODO: redo input system. make it easy, usable.
             throw new IllegalStateException("Cannot resume game that isn't paused.");
         }
 
-        //TODO: When we resume, time has passed, so push game states ahead because they are not invalid yet. (Visual fix).
-
+        checkMainThread();
+        clock.resume();
         pauseThreads = false;
         paused = false;
 
+        if (!launched)
+        {
+            launchIfReady();
+            return;
+        }
+        if (threadMode == THREAD_MODE_SINGLE)
+        {
+            // Carry on once the Screen is ready again. If it is already ready, this will run right away.
+            screen.setReadyListener(new Screen.ReadyListener()
+            {
+                @Override
+                public void onReady(int screenWidth, int screenHeight)
+                {
+                    screen.removeReadyListener();
+                    screen.setSizeChangedListener(new Screen.SizeChangedListener()
+                    {
+                        @Override
+                        public void onSizeChanged(int newScreenWidth, int newScreenHeight, int oldScreenWidth, int oldScreenHeight)
+                        {
+                            game.onScreenSizeChanged(newScreenWidth, newScreenHeight, oldScreenWidth, oldScreenHeight);
+                        }
+                    });
+                    if (singleThreadFrameCallback != null && !paused)
+                    {
+                        singleThreadFrameCallback.resume();
+                    }
+                }
+            });
+            return;
+        }
+
         // Release the threads once we are sure the Screen is ready.
         // If it is already ready, this will run right away.
         screen.setReadyListener(new Screen.ReadyListener()
@@ -774,11 +1544,316 @@ public class Engine //TODO: redo input system. make it easy, usable.
         });
     }
 
+    /**
+     * Set how many GameStates are buffered between the update and frame threads.
+     * When the frame thread falls behind and the buffer is full, the oldest GameState is dropped.
+     * All GameStates are allocated here, up front, so that the game itself never has to allocate them.
+     * May only be called before the game is started.
+     * @param capacity the number of GameStates to buffer. Must be at least 2.
+     */
+    public void setGameStateCapacity(int capacity)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot change GameState capacity after the game has started!");
+        }
+        gameStates = new GameStateRing(capacity);
+    }
+
+    /**
+     * Set how GameStates are handed from the update thread to the frame thread.
+     * With STATE_HANDOFF_TRIPLE_BUFFERED, rendering no longer waits for updates (or vice versa), so the Game's
+     * render() must only read state that is written by loadInterpValues, or that is otherwise safe to read
+     * while an update is running.
+     * Has no effect in THREAD_MODE_SINGLE, where there is only one thread.
+     * May only be called before the game is started.
+     * @param stateHandoff one of STATE_HANDOFF_LOCKED (the default) or STATE_HANDOFF_TRIPLE_BUFFERED.
+     */
+    public void setStateHandoff(@StateHandoff int stateHandoff)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot change state handoff after the game has started!");
+        }
+        if (stateHandoff != STATE_HANDOFF_LOCKED && stateHandoff != STATE_HANDOFF_TRIPLE_BUFFERED)
+        {
+            throw new IllegalArgumentException("Unknown state handoff: " + stateHandoff);
+        }
+        this.stateHandoff = stateHandoff;
+    }
+
+    /**
+     * Set the display mode to use, and stop the Engine from switching display modes on its own.
+     * By default, the Engine starts in DIS_MODE_FIX_UPDATE_DISPLAY_DURATION, and switches to
+     * DIS_MODE_VAR_UPDATE_DISPLAY_DURATION while updates are consistently early or late.
+     * May only be called before the game is started.
+     * @param displayMode one of DIS_MODE_FIX_UPDATE_DISPLAY_DURATION or DIS_MODE_VAR_UPDATE_DISPLAY_DURATION.
+     */
+    public void setDisplayMode(int displayMode)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot change display mode after the game has started!");
+        }
+        if (displayMode != DIS_MODE_FIX_UPDATE_DISPLAY_DURATION && displayMode != DIS_MODE_VAR_UPDATE_DISPLAY_DURATION)
+        {
+            throw new IllegalArgumentException("Unknown display mode: " + displayMode);
+        }
+        this.displayMode = displayMode;
+        this.autoDisplayMode = false;
+    }
+
+    /**
+     * Take a snapshot of every Snapshottable after each update, keeping the most recent ones so that the game
+     * can be rolled back (see rollback). Snapshots are taken while updates hold the update monitor,
+     * so keep what Snapshottables write small.
+     * May only be called before the game is started.
+     * @param capacity how many snapshots to keep. Rollbacks of up to capacity - 8 updates are always possible.
+     */
+    public void enableSnapshots(int capacity)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot enable snapshots after the game has started!");
+        }
+        snapshotHistory = new SnapshotHistory(capacity);
+    }
+
+    /**
+     * Roll the game back: right after the current update, every Snapshottable is restored to how it was some
+     * updates ago, and those updates are run again (without rendering in between), before the next GameState
+     * is saved. Touch events are not given to the Game again, so a Game which rolls back to apply late input
+     * (e.g. from a remote player) must keep the input it applies in each update itself.
+     * Must be called from the update thread, e.g. from Game.update() or Game.onTouch().
+     * @param updates how many updates to go back, from 1 to getMaxRollback().
+     */
+    public void rollback(int updates)
+    {
+        if (!isCurrentThread(threadMode, updateThread))
+        {
+            throw new IllegalThreadStateException("Can only be called from updateThread!");
+        }
+        if (snapshotHistory == null)
+        {
+            throw new IllegalStateException("Snapshots are not enabled!");
+        }
+        if (updates < 1 || updates > getMaxRollback())
+        {
+            throw new IllegalArgumentException("Cannot roll back " + updates + " updates, only up to " + getMaxRollback());
+        }
+        requestedRollback = Math.max(requestedRollback, updates);
+    }
+
+    /**
+     * Get how many updates back the game can certainly be rolled back right now.
+     * Must be called from the update thread.
+     * @return the number of updates, which is 0 if snapshots are not enabled.
+     */
+    public int getMaxRollback()
+    {
+        if (snapshotHistory == null)
+        {
+            return 0;
+        }
+        // The snapshot of the current update is yet to be taken.
+        return snapshotHistory.getGuaranteedDepth(1);
+    }
+
+    /**
+     * Record the session, for a Replayer to run again later. Rng is reseeded with its own seed when the game starts,
+     * and the log is finished when the game is stopped. Screen size changes during the session are not recorded.
+     * May only be called before the game is started.
+     * @param replayRecorder the recorder, or null to not record (the default).
+     */
+    public void setReplayRecorder(ReplayRecorder replayRecorder)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot change replay recorder after the game has started!");
+        }
+        this.replayRecorder = replayRecorder;
+    }
+
+    /**
+     * Set where the Engine gets its time from, e.g. a VirtualTimeSource to control time from a test.
+     * The Engine's clock starts over from the new source, at normal speed.
+     * May only be called before the game is started.
+     * @param timeSource the TimeSource. SystemTimeSource.INSTANCE is used by default.
+     */
+    public void setTimeSource(TimeSource timeSource)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot change time source after the game has started!");
+        }
+        clock = new Clock(timeSource);
+    }
+
+    /**
+     * Set how fast the game runs compared to real time, e.g. 0.5 for slow motion or 2 for fast forward.
+     * Updates are still run with the same step each, they just run less or more often.
+     * May be called at any time, from any thread.
+     * @param timeScale how fast the game's clock runs. Must be greater than 0.
+     */
+    public void setTimeScale(double timeScale)
+    {
+        clock.setScale(timeScale);
+    }
+
+    /**
+     * Get the clock that the game runs on. GameStates are stamped with its time, and it stands still while paused.
+     * @return the Clock.
+     */
+    public Clock getClock()
+    {
+        return clock;
+    }
+
+    /**
+     * Change how many updates are run per second, while the game runs (or before it starts).
+     * The change is made by the update thread between two updates, and interpolation carries on smoothly across it.
+     * Note that anything the Game moves by a fixed amount per update will move faster or slower after the change;
+     * implement RateAwareGame to be told when it happens.
+     * May be called from any thread.
+     * @param updatesPerSecond the new target UPS, which should be a factor of 1000 for best looking results.
+     */
+    public void setTargetUpdatesPerSecond(@UPS_Options int updatesPerSecond)
+    {
+        if (updatesPerSecond < 1 || updatesPerSecond > 1000)
+        {
+            throw new IllegalArgumentException("Target UPS must be between 1 and 1000: " + updatesPerSecond);
+        }
+        preferredUPS = updatesPerSecond;
+        requestedTargetUPS.set(updatesPerSecond);
+    }
+
+    /**
+     * Get how many updates are currently run per second.
+     * @return the target UPS.
+     */
+    public int getTargetUpdatesPerSecond()
+    {
+        return targetUPS;
+    }
+
+    /**
+     * Let the Engine lower the target UPS, one UPS_Options step at a time, while updates take up too much of the
+     * time between them (e.g. on a weak device, or one that is thermal throttling), and raise it again once they
+     * have room to spare. The UPS is never raised above the one the Game asked for (or last set by hand).
+     * Saves battery and CPU at the cost of a less fine simulation. See setTargetUpdatesPerSecond for caveats.
+     * May be called from any thread.
+     * @param minimumUPS the lowest UPS to step down to.
+     */
+    public void enableAdaptiveUpdateRate(@UPS_Options int minimumUPS)
+    {
+        updateRateGovernor = new UpdateRateGovernor(minimumUPS, Math.max(minimumUPS, preferredUPS));
+    }
+
+    /**
+     * Stop the Engine from changing the target UPS on its own. The UPS stays wherever it is.
+     */
+    public void disableAdaptiveUpdateRate()
+    {
+        updateRateGovernor = null;
+    }
+
+    /**
+     * Set which Interpolatables are interpolated each frame. For example, a CameraInterpolationFilter only
+     * interpolates Entities which might be seen through a Camera, which saves a lot of work on large maps.
+     * May be called at any time, from any thread.
+     * @param interpolationFilter the filter, or null to interpolate every Interpolatable (the default).
+     */
+    public void setInterpolationFilter(InterpolationFilter interpolationFilter)
+    {
+        this.interpolationFilter = interpolationFilter;
+    }
+
+    /**
+     * Interpolate an Interpolatable for the frame being rendered, if the InterpolationFilter held it back.
+     * Does nothing if it was already interpolated this frame.
+     * May only be called from the Game's render().
+     * @param interpolatable the Interpolatable to interpolate.
+     * @return true if the Interpolatable now holds the values of this frame, and false if it was not saved
+     *          in both of the GameStates that this frame is interpolated between (e.g. it was just created).
+     */
+    public boolean interpolateNow(Interpolatable interpolatable)
+    {
+        if (!isCurrentThread(threadMode, frameThread))
+        {
+            throw new IllegalThreadStateException("Can only be called from the thread that renders, during render!");
+        }
+        return interpolator.loadNow(interpolatable);
+    }
+
+    /**
+     * Check whether the calling thread is the one that plays a role (running updates, or rendering frames).
+     * In THREAD_MODE_SINGLE, the main thread plays every role, and the role threads are never made.
+     * @param threadMode the Engine's thread mode.
+     * @param roleThread the thread which plays the role in THREAD_MODE_DUAL (updateThread or frameThread).
+     * @return true if the calling thread plays the role.
+     */
+    /* pack */ static boolean isCurrentThread(int threadMode, Thread roleThread)
+    {
+        if (threadMode == THREAD_MODE_SINGLE)
+        {
+            return Looper.myLooper() == Looper.getMainLooper();
+        }
+        return roleThread != null && Thread.currentThread() == roleThread;
+    }
+
+    /**
+     * Set the most updates that may be run back to back when updates have fallen behind.
+     * Any simulation time beyond that is dropped (see getDroppedSimulationTimeNS()), so that a game whose updates
+     * take longer than it has for them slows down instead of falling further and further behind.
+     * May only be called before the game is started.
+     * @param maxCatchUpUpdates the most updates to run per wakeup of the update thread. Must be at least 1.
+     */
+    public void setMaxCatchUpUpdates(int maxCatchUpUpdates)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot change max catch up updates after the game has started!");
+        }
+        if (maxCatchUpUpdates < 1)
+        {
+            throw new IllegalArgumentException("Must allow at least one update: " + maxCatchUpUpdates);
+        }
+        this.maxCatchUpUpdates = maxCatchUpUpdates;
+    }
+
+    /**
+     * Get the total simulation time that was dropped because updates could not keep up with real time,
+     * even after running the maximum number of catch up updates.
+     * @return the dropped time, in nanoseconds.
+     */
+    public long getDroppedSimulationTimeNS()
+    {
+        return droppedSimulationTimeNS;
+    }
+
+    /**
+     * Get the timing telemetry that this Engine records while it runs.
+     * May be read from any thread, at any time, without disturbing the Engine.
+     * @return the EngineStats.
+     */
+    public EngineStats getStats()
+    {
+        return stats;
+    }
+
     public boolean isActive()
     {
         return started && !stopped;
     }
 
+    /**
+     * @return THREAD_MODE_DUAL or THREAD_MODE_SINGLE, as given when the Engine was made.
+     */
+    public int getThreadMode()
+    {
+        return threadMode;
+    }
+
     public boolean isPlaying()
     {
         return isActive() && !paused;
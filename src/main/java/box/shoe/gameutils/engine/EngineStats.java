@@ -0,0 +1,193 @@
+package box.shoe.gameutils.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing telemetry recorded by an Engine while it runs.
+ * Everything is recorded into fixed-size Histograms and counters, so recording does not allocate,
+ * and everything may be read from any thread at any time (e.g. to be sent off with other telemetry).
+ */
+
+public final class EngineStats
+{
+    // Durations start at buckets of 1/16 ms, doubling up to ~2 seconds.
+    private static final long FIRST_DURATION_BUCKET_NS = 62500;
+    private static final int DURATION_BUCKETS = 16;
+
+    // Interpolation ratios are recorded in thousandths, in buckets of a tenth.
+    public static final int INTERPOLATION_RATIO_SCALE = 1000;
+
+    // Time taken by each update, including the Jobs it submitted and saving its GameState, in nanoseconds.
+    private final Histogram updateDurations = Histogram.exponential(FIRST_DURATION_BUCKET_NS, DURATION_BUCKETS);
+
+    // Time taken by each frame callback which painted a frame, in nanoseconds.
+    private final Histogram frameDurations = Histogram.exponential(FIRST_DURATION_BUCKET_NS, DURATION_BUCKETS);
+
+    // The ratio used to interpolate each painted frame, times INTERPOLATION_RATIO_SCALE.
+    private final Histogram interpolationRatios = Histogram.linear(INTERPOLATION_RATIO_SCALE / 10, 10);
+
+    // The number of updates run by each wakeup of the update thread. More than one means it was catching up.
+    private final Histogram updatesPerWakeup = Histogram.linear(1, 10);
+
+    // Frames which were skipped on purpose, to ease the load.
+    private final AtomicLong skippedFrames = new AtomicLong();
+
+    // Frames which were painted cheaper on purpose, because a full frame was not expected to be painted in time.
+    private final AtomicLong degradedFrames = new AtomicLong();
+
+    // Frames which could not be painted because there were not enough GameStates.
+    private final AtomicLong starvedFrames = new AtomicLong();
+
+    // Wakeups of the update thread which ran more than one update to catch up.
+    private final AtomicLong catchUps = new AtomicLong();
+
+    // Simulation time which was given up on because updates could not catch up, in nanoseconds.
+    private final AtomicLong droppedSimulationTimeNS = new AtomicLong();
+
+    // Times the Engine switched display modes on its own, and the display mode it switched to last.
+    private final AtomicLong displayModeChanges = new AtomicLong();
+    private volatile int displayMode = Engine.DIS_MODE_FIX_UPDATE_DISPLAY_DURATION;
+
+    // Time taken by each rollback, from restoring its snapshot to finishing its updates again, in nanoseconds.
+    private final Histogram rollbackDurations = Histogram.exponential(FIRST_DURATION_BUCKET_NS, DURATION_BUCKETS);
+
+    /* pack */ EngineStats() {}
+
+    // __________
+    // RECORDING.
+
+    /* pack */ void recordUpdate(long durationNS)
+    {
+        updateDurations.record(durationNS);
+    }
+
+    /* pack */ void recordWakeup(int updates, long droppedTimeNS)
+    {
+        updatesPerWakeup.record(updates);
+        if (updates > 1)
+        {
+            catchUps.incrementAndGet();
+        }
+        if (droppedTimeNS > 0)
+        {
+            droppedSimulationTimeNS.addAndGet(droppedTimeNS);
+        }
+    }
+
+    /* pack */ void recordFrame(long durationNS, double interpolationRatio)
+    {
+        frameDurations.record(durationNS);
+        interpolationRatios.record((long) (interpolationRatio * INTERPOLATION_RATIO_SCALE));
+    }
+
+    /* pack */ void recordSkippedFrame()
+    {
+        skippedFrames.incrementAndGet();
+    }
+
+    /* pack */ void recordDegradedFrame()
+    {
+        degradedFrames.incrementAndGet();
+    }
+
+    /* pack */ void recordStarvedFrame()
+    {
+        starvedFrames.incrementAndGet();
+    }
+
+    /* pack */ void recordDisplayModeChange(int newDisplayMode)
+    {
+        displayMode = newDisplayMode;
+        displayModeChanges.incrementAndGet();
+    }
+
+    /* pack */ void recordRollback(long durationNS)
+    {
+        rollbackDurations.record(durationNS);
+    }
+
+    // ________
+    // READING.
+
+    public Histogram getUpdateDurations()
+    {
+        return updateDurations;
+    }
+
+    public Histogram getFrameDurations()
+    {
+        return frameDurations;
+    }
+
+    public Histogram getInterpolationRatios()
+    {
+        return interpolationRatios;
+    }
+
+    public Histogram getUpdatesPerWakeup()
+    {
+        return updatesPerWakeup;
+    }
+
+    public long getSkippedFrames()
+    {
+        return skippedFrames.get();
+    }
+
+    public long getDegradedFrames()
+    {
+        return degradedFrames.get();
+    }
+
+    public long getStarvedFrames()
+    {
+        return starvedFrames.get();
+    }
+
+    public long getCatchUps()
+    {
+        return catchUps.get();
+    }
+
+    public long getDroppedSimulationTimeNS()
+    {
+        return droppedSimulationTimeNS.get();
+    }
+
+    public long getDisplayModeChanges()
+    {
+        return displayModeChanges.get();
+    }
+
+    public Histogram getRollbackDurations()
+    {
+        return rollbackDurations;
+    }
+
+    /**
+     * Get the display mode that the Engine last switched to on its own.
+     * @return one of Engine.DIS_MODE_FIX_UPDATE_DISPLAY_DURATION or Engine.DIS_MODE_VAR_UPDATE_DISPLAY_DURATION.
+     */
+    public int getDisplayMode()
+    {
+        return displayMode;
+    }
+
+    /**
+     * Forget everything recorded so far, e.g. after sending it off.
+     */
+    public void reset()
+    {
+        updateDurations.reset();
+        frameDurations.reset();
+        interpolationRatios.reset();
+        updatesPerWakeup.reset();
+        rollbackDurations.reset();
+        skippedFrames.set(0);
+        degradedFrames.set(0);
+        starvedFrames.set(0);
+        catchUps.set(0);
+        droppedSimulationTimeNS.set(0);
+        displayModeChanges.set(0);
+    }
+}
@@ -0,0 +1,124 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * Predicts whether the next frame will be painted before the following VSYNC, and decides what to do about it.
+ * Keeps an exponential moving average of what it costs to render a frame, measured in nanoseconds from
+ * starting to render until the frame is handed off (leaving out any time spent waiting for updates).
+ * At the start of each frame, that average is compared with the time left until the next VSYNC:
+ * if it fits, the frame is rendered; if a cheaper frame would fit, the frame is degraded (or, if the Game cannot
+ * degrade, rendered); otherwise it is skipped.
+ * Never skips two frames in a row, so the display can not starve.
+ */
+
+/* pack */ final class FramePacer
+{
+    // Weight of each new render cost in the moving average.
+    private static final double AVERAGE_WEIGHT = 0.2;
+
+    // Leave some slack, since the average is only a prediction.
+    private static final double BUDGET_FRACTION = 0.9;
+
+    // How much of a full render we assume a degraded render costs.
+    private static final double DEGRADED_COST_FRACTION = 0.6;
+
+    // Only full renders are measured, so after this many frames in a row which were not, render fully
+    // to find out whether things have got better.
+    private static final int PROBE_INTERVAL = 30;
+
+    // Time between VSYNCs.
+    private final long framePeriodNS;
+
+    // Whether the Game can render a cheaper frame (is a PacedGame). If not, frames are never degraded.
+    private final boolean canDegrade;
+
+    private double averageRenderCostNS = -1;
+    private boolean skippedLastFrame = false;
+    private int framesSinceFullRender = 0;
+
+    public FramePacer(long framePeriodNS, boolean canDegrade)
+    {
+        if (framePeriodNS <= 0)
+        {
+            throw new IllegalArgumentException("Frame period must be positive: " + framePeriodNS);
+        }
+        this.framePeriodNS = framePeriodNS;
+        this.canDegrade = canDegrade;
+    }
+
+    /**
+     * Decide what to do with the frame that is starting.
+     * @param nowNS the current time, in System.nanoTime() time.
+     * @param vsyncTimeNS the time of the VSYNC that started this frame, in System.nanoTime() time.
+     * @return one of PacedGame.FRAME_RENDER, PacedGame.FRAME_DEGRADE or PacedGame.FRAME_SKIP.
+     */
+    public int decide(long nowNS, long vsyncTimeNS)
+    {
+        int decision;
+        if (averageRenderCostNS < 0 || framesSinceFullRender >= PROBE_INTERVAL)
+        {
+            // Nothing (new) to go on.
+            decision = PacedGame.FRAME_RENDER;
+        }
+        else
+        {
+            double budgetNS = (vsyncTimeNS + framePeriodNS - nowNS) * BUDGET_FRACTION;
+            if (averageRenderCostNS <= budgetNS)
+            {
+                decision = PacedGame.FRAME_RENDER;
+            }
+            else if (averageRenderCostNS * DEGRADED_COST_FRACTION <= budgetNS || skippedLastFrame)
+            {
+                // A Game which cannot degrade renders in full instead (which is then measured like any full render).
+                decision = canDegrade ? PacedGame.FRAME_DEGRADE : PacedGame.FRAME_RENDER;
+            }
+            else
+            {
+                decision = PacedGame.FRAME_SKIP;
+            }
+        }
+
+        skippedLastFrame = decision == PacedGame.FRAME_SKIP;
+        if (decision == PacedGame.FRAME_RENDER)
+        {
+            framesSinceFullRender = 0;
+        }
+        else
+        {
+            framesSinceFullRender++;
+        }
+        return decision;
+    }
+
+    /**
+     * Record what it cost to render a frame.
+     * @param renderCostNS the time spent rendering, in nanoseconds.
+     * @param decision what was decided for the frame.
+     */
+    public void recordRender(long renderCostNS, int decision)
+    {
+        // A degraded frame says little about what a full one costs.
+        if (decision != PacedGame.FRAME_RENDER)
+        {
+            return;
+        }
+
+        if (averageRenderCostNS < 0)
+        {
+            averageRenderCostNS = renderCostNS;
+        }
+        else
+        {
+            averageRenderCostNS += AVERAGE_WEIGHT * (renderCostNS - averageRenderCostNS);
+        }
+    }
+
+    /**
+     * Forget everything measured so far, e.g. after a pause (after which the device may be in a different state).
+     */
+    public void reset()
+    {
+        averageRenderCostNS = -1;
+        skippedLastFrame = false;
+        framesSinceFullRender = 0;
+    }
+}
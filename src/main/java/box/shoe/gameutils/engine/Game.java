@@ -45,9 +45,9 @@ public interface Game extends Updatable, Renderable
 
     /**
      * Called when the player touches the touchscreen to interact with the Game.
-     * May not be called precisely when the touch event happens, because onTouch is synchronized with update and render,
-     * so do not rely on exact timings, but an event that occurs before another event will always be passed into
-     * onTouch first.
+     * Touch events are queued as they happen, and given to the Game on the update thread right before the next
+     * update, so do not rely on exact timings, but an event that occurs before another event will always be passed
+     * into onTouch first. The event is recycled once onTouch returns, so do not hold on to it.
      * @param touchEvent the touchscreen event that occurred.
      */
     void onTouch(MotionEvent touchEvent);
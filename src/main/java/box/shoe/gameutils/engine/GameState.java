@@ -1,10 +1,5 @@
 package box.shoe.gameutils.engine;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import box.shoe.gameutils.Interpolatable;
-
 /**
  * The job of a GameState is two fold.
  * 1) Keep track of a time stamp which is used for generated an interpolation ratio for rendering.
@@ -12,6 +7,10 @@ import box.shoe.gameutils.Interpolatable;
  *      so that they can be interpolated.
  * Crucially, it is NOT a save state. A GameState is a representation of a point in time, but does not hold all
  * game data at that point.
+ *
+ * The saved values of all Interpolatables are kept back to back in one flat float buffer.
+ * Which range of the buffer belongs to which Interpolatable is described by the InterpValuesLayout
+ * that the GameState was saved with.
  */
 
 /* pack */ class GameState
@@ -19,15 +18,30 @@ import box.shoe.gameutils.Interpolatable;
     // The time at which the update which generated this GameState occurred.
     private long timeStamp;
 
-    // Maps each Interpolatable to the values that it wishes to interpolate.
-    private Map<Interpolatable, float[]> savedInterpValues;
+    // The length of the update step which generated this GameState, which may change while the game runs.
+    private long stepDurationNS;
+
+    // Describes which Interpolatable owns which range of interpValues.
+    private InterpValuesLayout layout;
+
+    // The values that every Interpolatable wishes to interpolate, back to back.
+    // Only grows, so that a GameState can be reused without allocating.
+    private float[] interpValues;
+
+    // The version of each slot's values (see VersionedInterpolatable), or UNVERSIONED. Only grows, like interpValues.
+    private long[] interpVersions;
+
+    // The draw commands of a CommandRenderedGame, recorded after the update which generated this GameState.
+    // Created the first time it is needed.
+    private RenderCommandBuffer renderCommands;
 
     /**
      * Create a GameState.
      */
     public GameState()
     {
-        savedInterpValues = new HashMap<>();
+        interpValues = new float[0];
+        interpVersions = new long[0];
     }
 
     public void setTimeStamp(long timeStamp)
@@ -40,19 +54,85 @@ import box.shoe.gameutils.Interpolatable;
         return timeStamp;
     }
 
-    public Map<Interpolatable, float[]> getSavedInterpValues()
+    public void setStepDurationNS(long stepDurationNS)
+    {
+        this.stepDurationNS = stepDurationNS;
+    }
+
+    public long getStepDurationNS()
+    {
+        return stepDurationNS;
+    }
+
+    /**
+     * Set the layout that this GameState's values will be saved with,
+     * growing the buffers if they are not large enough to hold them.
+     * @param layout the layout to use.
+     */
+    public void setLayout(InterpValuesLayout layout)
+    {
+        this.layout = layout;
+        if (interpValues.length < layout.getTotalLength())
+        {
+            interpValues = new float[layout.getTotalLength()];
+        }
+        if (interpVersions.length < layout.getCount())
+        {
+            interpVersions = new long[layout.getCount()];
+        }
+    }
+
+    public InterpValuesLayout getLayout()
+    {
+        return layout;
+    }
+
+    public float[] getInterpValues()
+    {
+        return interpValues;
+    }
+
+    public long[] getInterpVersions()
+    {
+        return interpVersions;
+    }
+
+    public RenderCommandBuffer getRenderCommands()
     {
-        return savedInterpValues;
+        if (renderCommands == null)
+        {
+            renderCommands = new RenderCommandBuffer();
+        }
+        return renderCommands;
     }
 
-    /*
-    private static class Factory implements FactoryObjectPool.Factory<GameState>
+    /**
+     * Make this GameState hold the same time stamp, step duration, values, versions and render commands
+     * as another one.
+     * Only grows the buffer if it is not already large enough.
+     * @param other the GameState to copy.
+     */
+    public void copyFrom(GameState other)
     {
-        @Override
-        public GameState create()
+        timeStamp = other.timeStamp;
+        stepDurationNS = other.stepDurationNS;
+        if (other.layout != null)
+        {
+            setLayout(other.layout);
+            System.arraycopy(other.interpValues, 0, interpValues, 0, other.layout.getTotalLength());
+            System.arraycopy(other.interpVersions, 0, interpVersions, 0, other.layout.getCount());
+        }
+        else
+        {
+            layout = null;
+        }
+        if (other.renderCommands != null)
+        {
+            getRenderCommands().copyFrom(other.renderCommands);
+        }
+        else if (renderCommands != null)
         {
-            return new GameState();
+            renderCommands.clear();
         }
     }
-    */
 }
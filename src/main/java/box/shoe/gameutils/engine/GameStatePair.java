@@ -0,0 +1,25 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * The two most recent GameStates at the time of publishing, which is everything the frame thread needs
+ * to interpolate. Published as one unit so that the frame thread never has to look at older publications.
+ */
+
+/* pack */ final class GameStatePair
+{
+    // The GameState from the update before the current one.
+    public final GameState past;
+
+    // The GameState from the update which published this pair.
+    public final GameState current;
+
+    // False until there have been two updates, so that past holds something meaningful.
+    public boolean hasPast;
+
+    public GameStatePair()
+    {
+        past = new GameState();
+        current = new GameState();
+        hasPast = false;
+    }
+}
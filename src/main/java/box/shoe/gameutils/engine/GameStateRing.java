@@ -0,0 +1,110 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * A fixed-capacity ring of pre-allocated GameStates.
+ * The update thread obtains the next GameState to write into and pushes it once it is saved,
+ * and the frame thread reads GameStates by index (0 is the oldest) and removes them once they are painted.
+ * GameStates are never created after construction, so the steady state allocates nothing.
+ * Not thread safe; callers must synchronize access (the Engine uses its update-frame monitor).
+ */
+
+/* pack */ final class GameStateRing
+{
+    private final GameState[] gameStates;
+
+    // Index in gameStates of the oldest GameState that has been pushed.
+    private int oldest;
+
+    // Number of GameStates that have been pushed and not yet removed.
+    private int size;
+
+    /**
+     * Create a GameStateRing and all of the GameStates it will ever hold.
+     * @param capacity the number of GameStates that can be held at once. Must be at least 2,
+     *                 because two GameStates are needed to interpolate between.
+     */
+    public GameStateRing(int capacity)
+    {
+        if (capacity < 2)
+        {
+            throw new IllegalArgumentException("Capacity must be at least 2: " + capacity);
+        }
+
+        gameStates = new GameState[capacity];
+        for (int i = 0; i < capacity; i++)
+        {
+            gameStates[i] = new GameState();
+        }
+        oldest = 0;
+        size = 0;
+    }
+
+    /**
+     * Get the GameState that the next push() will add to the ring, so that it can be written to.
+     * If the ring is full, the oldest GameState is dropped to make room.
+     * @return the GameState to write into.
+     */
+    public GameState obtain()
+    {
+        if (size == gameStates.length)
+        {
+            removeOldest();
+        }
+        return gameStates[(oldest + size) % gameStates.length];
+    }
+
+    /**
+     * Add the GameState most recently returned by obtain() to the ring.
+     */
+    public void push()
+    {
+        if (size == gameStates.length)
+        {
+            throw new IllegalStateException("Must obtain() a GameState before pushing it!");
+        }
+        size++;
+    }
+
+    /**
+     * Get a GameState which has been pushed.
+     * @param index 0 for the oldest GameState, up to size() - 1 for the newest.
+     * @return the GameState at that index.
+     */
+    public GameState get(int index)
+    {
+        if (index < 0 || index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return gameStates[(oldest + index) % gameStates.length];
+    }
+
+    /**
+     * Remove the oldest GameState, making its slot available to be written again.
+     */
+    public void removeOldest()
+    {
+        if (size == 0)
+        {
+            throw new IllegalStateException("Ring is empty!");
+        }
+        oldest = (oldest + 1) % gameStates.length;
+        size--;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int capacity()
+    {
+        return gameStates.length;
+    }
+
+    public void clear()
+    {
+        oldest = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,402 @@
+package box.shoe.gameutils.engine;
+
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.Snapshottable;
+
+/**
+ * Runs a Game without a Screen, a Choreographer, or any threads of its own (other than the JobSystem of a
+ * ParallelGame).
+ * Everything happens on the thread that calls into the HeadlessEngine, so it can be used from a plain JVM:
+ * soak tests, server-side validation, bots, or measuring how many updates per second a Game can sustain.
+ *
+ * Updates are run either as fast as possible (runUpdates) or paced to the Game's target UPS (runPaced).
+ * Pacing follows a TimeSource. With a VirtualTimeSource, runPaced advances time instead of sleeping,
+ * so a paced run takes no longer than an unpaced one, but the TimeSource still reads as though it did.
+ * The assets of a PreloadingGame are loaded one after another by start(), before onStart.
+ * Interpolatables are still saved into GameStates after every update, so that the cost of saving is measured too.
+ * Rendering is off by default. When turned on, the newest GameState is loaded and the Game is rendered
+ * after every update, to the supplied Canvas (which may be null, or e.g. a Picture's recording Canvas).
+ */
+
+public class HeadlessEngine
+{
+    // The game itself, which the engine handles by calling its methods and telling it when to update/render.
+    private Game game;
+
+    // Based on the target UPS, how long each update would take in a real Engine.
+    private int targetUPS;
+    private long expectedUpdateTimeNS;
+
+    // The time stamp of the next GameState, which advances by one step every update.
+    private long simulationTimeNS = 0;
+
+    // Where runPaced gets its time from.
+    private final TimeSource timeSource;
+
+    // Two GameStates, alternated between so that there is always a past and a current one.
+    private final GameState[] gameStates;
+    private final Interpolator interpolator;
+    // Created the first time commands are played, since it needs the graphics framework (unlike the rest of us).
+    private RenderCommandPlayer renderCommandPlayer;
+
+    // Runs the Jobs of a ParallelGame across cores during updates. Null for any other Game.
+    private JobSystem jobSystem;
+
+    // Snapshots of every Snapshottable after each recent update, if enabled.
+    private SnapshotHistory snapshotHistory;
+    private long lastRollbackDurationNS = 0;
+
+    private boolean rendering = false;
+    private Canvas renderCanvas = null;
+
+    private boolean started = false;
+    private boolean stopped = false;
+
+    // Number of updates run since start().
+    private long updateCount = 0;
+
+    // Measurements of the most recent call to runUpdates or runPaced.
+    private long lastRunUpdateCount = 0;
+    private long lastRunDurationNS = 0;
+
+    public HeadlessEngine(Game game)
+    {
+        this(game, SystemTimeSource.INSTANCE);
+    }
+
+    public HeadlessEngine(Game game, TimeSource timeSource)
+    {
+        this.game = game;
+        this.timeSource = timeSource;
+        this.targetUPS = game.getTargetUpdatesPerSecond();
+        this.expectedUpdateTimeNS = 1000000000L / targetUPS;
+
+        gameStates = new GameState[] {new GameState(), new GameState()};
+        interpolator = new Interpolator();
+    }
+
+    /**
+     * Start the Game, as though it were shown on a Screen of the given size.
+     * @param screenWidth the width to report to the Game.
+     * @param screenHeight the height to report to the Game.
+     */
+    public void start(int screenWidth, int screenHeight)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Game already started!");
+        }
+        started = true;
+        if (game instanceof PreloadingGame)
+        {
+            // Nothing else is going on, so there is no need to load in the background.
+            final PreloadingGame preloadingGame = (PreloadingGame) game;
+            AssetLoader assetLoader = new AssetLoader(null);
+            preloadingGame.onPreload(assetLoader);
+            assetLoader.loadNow(new AssetLoader.ProgressListener()
+            {
+                @Override
+                public void onProgress(int loaded, int total)
+                {
+                    preloadingGame.onPreloadProgress(loaded, total);
+                }
+
+                @Override
+                public void onComplete() {}
+            });
+        }
+        if (game instanceof ParallelGame)
+        {
+            jobSystem = JobSystem.forAvailableCores();
+            ((ParallelGame) game).onAttachJobSystem(jobSystem);
+        }
+        game.onStart(screenWidth, screenHeight);
+        if (snapshotHistory != null)
+        {
+            snapshotHistory.capture(0, Snapshottable.SNAPSHOTTABLE_SERVICE);
+        }
+    }
+
+    /**
+     * Stop the Game. After calling this, the HeadlessEngine is no longer usable.
+     */
+    public void stop()
+    {
+        checkRunning();
+        stopped = true;
+        game.onStop();
+        game = null;
+        if (jobSystem != null)
+        {
+            jobSystem.shutdown();
+            jobSystem = null;
+        }
+        renderCanvas = null;
+    }
+
+    /**
+     * Give the Game a touch event, as a Screen would.
+     * @param touchEvent the touchscreen event to give the Game.
+     */
+    public void touch(MotionEvent touchEvent)
+    {
+        checkRunning();
+        game.onTouch(touchEvent);
+    }
+
+    /**
+     * Run a single update (and a render, if rendering is on).
+     */
+    public void step()
+    {
+        checkRunning();
+
+        // As Engine does, before anything iterates the Services this update (but not between the updates of a
+        // rollback, which must see the same members as the updates they run again).
+        Interpolatable.INTERPOLATABLE_SERVICE.removeLeaks();
+        Snapshottable.SNAPSHOTTABLE_SERVICE.removeLeaks();
+        runUpdate(updateCount + 1);
+
+        GameState gameStatePast = gameStates[(int) ((updateCount + 1) % 2)];
+        GameState gameStateCurrent = gameStates[(int) (updateCount % 2)];
+        gameStateCurrent.setTimeStamp(simulationTimeNS);
+        simulationTimeNS += expectedUpdateTimeNS;
+        interpolator.save(gameStateCurrent);
+        if (game instanceof CommandRenderedGame)
+        {
+            RenderCommandBuffer renderCommands = gameStateCurrent.getRenderCommands();
+            renderCommands.clear();
+            ((CommandRenderedGame) game).record(renderCommands);
+        }
+        updateCount++;
+
+        if (rendering && updateCount >= 2)
+        {
+            // With no display to keep pace with, we always show the newest GameState.
+            interpolator.load(gameStatePast, gameStateCurrent, 1);
+            if (game instanceof CommandRenderedGame)
+            {
+                // Commands can only be played to a real Canvas.
+                if (renderCanvas != null)
+                {
+                    if (renderCommandPlayer == null)
+                    {
+                        renderCommandPlayer = new RenderCommandPlayer();
+                    }
+                    renderCommandPlayer.play(gameStatePast.getRenderCommands(), gameStateCurrent.getRenderCommands(),
+                            1, renderCanvas);
+                }
+            }
+            else
+            {
+                game.render(null, renderCanvas);
+            }
+        }
+    }
+
+    private void runUpdate(long update)
+    {
+        game.update();
+        if (jobSystem != null)
+        {
+            jobSystem.join();
+        }
+        if (snapshotHistory != null)
+        {
+            snapshotHistory.capture(update, Snapshottable.SNAPSHOTTABLE_SERVICE);
+        }
+    }
+
+    /**
+     * Take a snapshot of every Snapshottable after each update, as Engine.enableSnapshots would.
+     * May only be called before start().
+     * @param capacity how many snapshots to keep. Rollbacks of up to capacity - 8 updates are always possible.
+     */
+    public void enableSnapshots(int capacity)
+    {
+        if (started)
+        {
+            throw new IllegalStateException("Cannot enable snapshots after the game has started!");
+        }
+        snapshotHistory = new SnapshotHistory(capacity);
+    }
+
+    /**
+     * Restore every Snapshottable to how it was some updates ago, and run those updates again, right away.
+     * The update count does not change, and nothing is rendered until the next step.
+     * @param updates how many updates to go back, from 1 to getMaxRollback().
+     */
+    public void rollback(int updates)
+    {
+        checkRunning();
+        if (snapshotHistory == null)
+        {
+            throw new IllegalStateException("Snapshots are not enabled!");
+        }
+        if (updates < 1 || updates > getMaxRollback())
+        {
+            throw new IllegalArgumentException("Cannot roll back " + updates + " updates, only up to " + getMaxRollback());
+        }
+
+        long startNS = System.nanoTime();
+        long restoredUpdate = updateCount - updates;
+        snapshotHistory.restore(restoredUpdate, Snapshottable.SNAPSHOTTABLE_SERVICE);
+        for (long update = restoredUpdate + 1; update <= updateCount; update++)
+        {
+            runUpdate(update);
+        }
+        lastRollbackDurationNS = System.nanoTime() - startNS;
+    }
+
+    /**
+     * Get how many updates back the game can certainly be rolled back right now.
+     * @return the number of updates, which is 0 if snapshots are not enabled.
+     */
+    public int getMaxRollback()
+    {
+        if (snapshotHistory == null)
+        {
+            return 0;
+        }
+        return snapshotHistory.getGuaranteedDepth(0);
+    }
+
+    /**
+     * Get how long the most recent rollback took, including running its updates again.
+     * @return the duration in nanoseconds, or 0 if there has been no rollback.
+     */
+    public long getLastRollbackDurationNS()
+    {
+        return lastRollbackDurationNS;
+    }
+
+    /**
+     * Run updates back to back, as fast as possible.
+     * @param count the number of updates to run.
+     */
+    public void runUpdates(long count)
+    {
+        checkRunning();
+
+        long startNS = System.nanoTime();
+        for (long i = 0; i < count; i++)
+        {
+            step();
+        }
+        recordRun(count, System.nanoTime() - startNS);
+    }
+
+    /**
+     * Run updates paced to the Game's target UPS, sleeping between them as a real Engine would
+     * (or advancing time, if the TimeSource is a VirtualTimeSource).
+     * @param count the number of updates to run.
+     * @throws InterruptedException if the calling thread is interrupted while sleeping.
+     */
+    public void runPaced(long count) throws InterruptedException
+    {
+        checkRunning();
+
+        long startNS = timeSource.nanoTime();
+        for (long i = 0; i < count; i++)
+        {
+            step();
+
+            long untilNextUpdateNS = startNS + (i + 1) * expectedUpdateTimeNS - timeSource.nanoTime();
+            if (untilNextUpdateNS > 0)
+            {
+                if (timeSource instanceof VirtualTimeSource)
+                {
+                    ((VirtualTimeSource) timeSource).advanceBy(untilNextUpdateNS);
+                }
+                else
+                {
+                    Thread.sleep(untilNextUpdateNS / 1000000, (int) (untilNextUpdateNS % 1000000));
+                }
+            }
+        }
+        recordRun(count, timeSource.nanoTime() - startNS);
+    }
+
+    /**
+     * Change how many updates are run per second, as Engine.setTargetUpdatesPerSecond would (but right away).
+     * Once started, a RateAwareGame is told about the change.
+     * @param updatesPerSecond the new target UPS.
+     */
+    public void setTargetUpdatesPerSecond(int updatesPerSecond)
+    {
+        if (updatesPerSecond < 1 || updatesPerSecond > 1000)
+        {
+            throw new IllegalArgumentException("Target UPS must be between 1 and 1000: " + updatesPerSecond);
+        }
+        if (updatesPerSecond == targetUPS)
+        {
+            return;
+        }
+        targetUPS = updatesPerSecond;
+        expectedUpdateTimeNS = 1000000000L / updatesPerSecond;
+        if (started && game instanceof RateAwareGame)
+        {
+            checkRunning();
+            ((RateAwareGame) game).onUpdateRateChanged(updatesPerSecond);
+        }
+    }
+
+    public int getTargetUpdatesPerSecond()
+    {
+        return targetUPS;
+    }
+
+    private void recordRun(long count, long durationNS)
+    {
+        lastRunUpdateCount = count;
+        lastRunDurationNS = durationNS;
+    }
+
+    /**
+     * Turn rendering after every update on or off.
+     * @param rendering whether to render.
+     * @param renderCanvas the Canvas to render to, which may be null if the Game does not draw without a Screen.
+     */
+    public void setRendering(boolean rendering, Canvas renderCanvas)
+    {
+        this.rendering = rendering;
+        this.renderCanvas = renderCanvas;
+    }
+
+    /**
+     * Get the number of updates that the most recent runUpdates or runPaced call sustained per second.
+     * @return the updates per second, or 0 if nothing has been run.
+     */
+    public double getUpdatesPerSecond()
+    {
+        if (lastRunDurationNS <= 0)
+        {
+            return 0;
+        }
+        return lastRunUpdateCount / (lastRunDurationNS / 1000000000.0);
+    }
+
+    /**
+     * Get the total number of updates that have been run since start().
+     * @return the number of updates.
+     */
+    public long getUpdateCount()
+    {
+        return updateCount;
+    }
+
+    private void checkRunning()
+    {
+        if (!started)
+        {
+            throw new IllegalStateException("Game was never started!");
+        }
+        if (stopped)
+        {
+            throw new IllegalStateException("Game was already stopped!");
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package box.shoe.gameutils.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how many recorded values fall into each of a fixed set of buckets.
+ * All buckets are allocated up front, so recording never allocates and is cheap enough to do every frame.
+ * Recording is thread safe, and the Histogram may be read from any thread while it is being recorded to
+ * (although a reading taken during recording may be off by the values recorded in the meantime).
+ */
+
+public final class Histogram
+{
+    // The largest value that each bucket holds, in ascending order.
+    // The last bucket holds everything larger than the bucket before it.
+    private final long[] upperBounds;
+    private final AtomicLongArray counts;
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Create a Histogram with the given buckets.
+     * @param upperBounds the largest value each bucket holds, in strictly ascending order. One more bucket is
+     *                    added at the end for all larger values.
+     */
+    public Histogram(long[] upperBounds)
+    {
+        for (int i = 1; i < upperBounds.length; i++)
+        {
+            if (upperBounds[i] <= upperBounds[i - 1])
+            {
+                throw new IllegalArgumentException("Upper bounds must be strictly ascending: " + Arrays.toString(upperBounds));
+            }
+        }
+
+        this.upperBounds = Arrays.copyOf(upperBounds, upperBounds.length + 1);
+        this.upperBounds[upperBounds.length] = Long.MAX_VALUE;
+        counts = new AtomicLongArray(this.upperBounds.length);
+    }
+
+    /**
+     * Create a Histogram whose buckets double in size, which suits durations well.
+     * @param firstUpperBound the largest value of the first bucket.
+     * @param bucketCount the number of doubling buckets (one more is added for all larger values).
+     * @return the Histogram.
+     */
+    public static Histogram exponential(long firstUpperBound, int bucketCount)
+    {
+        long[] upperBounds = new long[bucketCount];
+        long upperBound = firstUpperBound;
+        for (int i = 0; i < bucketCount; i++)
+        {
+            upperBounds[i] = upperBound;
+            upperBound *= 2;
+        }
+        return new Histogram(upperBounds);
+    }
+
+    /**
+     * Create a Histogram whose buckets are all the same size, starting from 0.
+     * @param bucketWidth the number of values in each bucket.
+     * @param bucketCount the number of equal buckets (one more is added for all larger values).
+     * @return the Histogram.
+     */
+    public static Histogram linear(long bucketWidth, int bucketCount)
+    {
+        long[] upperBounds = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++)
+        {
+            upperBounds[i] = bucketWidth * (i + 1) - 1;
+        }
+        return new Histogram(upperBounds);
+    }
+
+    /**
+     * Count a value in the bucket it falls in.
+     * @param value the value to record.
+     */
+    public void record(long value)
+    {
+        // Binary search for the first bucket whose upper bound is at least the value.
+        int low = 0;
+        int high = upperBounds.length - 1;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (upperBounds[middle] < value)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        counts.incrementAndGet(low);
+
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long currentMax;
+        while (value > (currentMax = max.get()))
+        {
+            if (max.compareAndSet(currentMax, value))
+            {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Get the approximate value below which the given fraction of recorded values fall.
+     * @param fraction between 0 and 1, e.g. 0.99 for the 99th percentile.
+     * @return the upper bound of the bucket that holds the value, capped at the largest value recorded,
+     *          or 0 if nothing has been recorded.
+     */
+    public long getValueAtFraction(double fraction)
+    {
+        long total = count.get();
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long needed = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < upperBounds.length; i++)
+        {
+            seen += counts.get(i);
+            if (seen >= needed)
+            {
+                return Math.min(upperBounds[i], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    public long getSum()
+    {
+        return sum.get();
+    }
+
+    public double getMean()
+    {
+        long total = count.get();
+        return total == 0 ? 0 : sum.get() / (double) total;
+    }
+
+    public long getMax()
+    {
+        return count.get() == 0 ? 0 : max.get();
+    }
+
+    public int getBucketCount()
+    {
+        return upperBounds.length;
+    }
+
+    public long getBucketUpperBound(int bucket)
+    {
+        return upperBounds[bucket];
+    }
+
+    public long getCountInBucket(int bucket)
+    {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Forget every recorded value.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < upperBounds.length; i++)
+        {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(Long.MIN_VALUE);
+    }
+}
@@ -0,0 +1,169 @@
+package box.shoe.gameutils.engine;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.Service;
+import box.shoe.gameutils.VersionedInterpolatable;
+
+/**
+ * Describes where each Interpolatable's values live inside of the flat interp values buffer of a GameState.
+ * Every Interpolatable is given a slot, and each slot owns a fixed range (offset, length) of the buffer.
+ * A layout is immutable once built, so that GameStates which were saved with the same layout can be
+ * interpolated with a single linear sweep over both buffers. A new layout is only built when the
+ * set of Interpolatables changes.
+ */
+
+/* pack */ final class InterpValuesLayout
+{
+    // The Interpolatable which owns each slot.
+    private final Interpolatable[] interpolatables;
+
+    // Where each slot's values begin in the buffer, and how many values it has.
+    private final int[] offsets;
+    private final int[] lengths;
+
+    // Whether each slot's Interpolatable is a VersionedInterpolatable, so we need not check every update.
+    private final boolean[] versioned;
+
+    // The number of slots.
+    private final int count;
+
+    // The number of floats needed to hold the values of every slot.
+    private final int totalLength;
+
+    // The most values that any single slot has.
+    private final int maxLength;
+
+    // Built lazily, only when we must match slots between two different layouts.
+    private Map<Interpolatable, Integer> slotLookup;
+
+    private InterpValuesLayout(Service<Interpolatable> members)
+    {
+        int memberCount = members.size();
+        Interpolatable[] slotted = new Interpolatable[memberCount];
+        int[] slottedOffsets = new int[memberCount];
+        int[] slottedLengths = new int[memberCount];
+        boolean[] slottedVersioned = new boolean[memberCount];
+
+        int slot = 0;
+        int offset = 0;
+        int longest = 0;
+        for (int index = 0; index < memberCount; index++)
+        {
+            Interpolatable interpolatable = members.get(index);
+            if (interpolatable == null)
+            {
+                // Garbage collected without being removed (debug builds only), so it has nothing to save.
+                continue;
+            }
+
+            int length = interpolatable.getInterpValuesArrayMaxIndex() + 1;
+            slotted[slot] = interpolatable;
+            slottedOffsets[slot] = offset;
+            slottedLengths[slot] = length;
+            slottedVersioned[slot] = interpolatable instanceof VersionedInterpolatable;
+
+            offset += length;
+            longest = Math.max(longest, length);
+            slot++;
+        }
+        count = slot;
+        interpolatables = slot == memberCount ? slotted : Arrays.copyOf(slotted, slot);
+        offsets = slot == memberCount ? slottedOffsets : Arrays.copyOf(slottedOffsets, slot);
+        lengths = slot == memberCount ? slottedLengths : Arrays.copyOf(slottedLengths, slot);
+        versioned = slot == memberCount ? slottedVersioned : Arrays.copyOf(slottedVersioned, slot);
+        totalLength = offset;
+        maxLength = longest;
+    }
+
+    /**
+     * Build a layout which gives a slot to every supplied Interpolatable, in the order they are packed in.
+     * @param members the Interpolatables to lay out.
+     * @return the new layout.
+     */
+    public static InterpValuesLayout of(Service<Interpolatable> members)
+    {
+        return new InterpValuesLayout(members);
+    }
+
+    /**
+     * Checks if this layout still describes the supplied Interpolatables, in the same order.
+     * This does not allocate, so it is cheap enough to be done every update.
+     * @param members the Interpolatables to check against.
+     * @return true if every member has the same slot it had when this layout was built.
+     */
+    public boolean matches(Service<Interpolatable> members)
+    {
+        if (members.size() != count)
+        {
+            return false;
+        }
+
+        for (int slot = 0; slot < count; slot++)
+        {
+            if (members.get(slot) != interpolatables[slot])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the slot of an Interpolatable in this layout.
+     * @param interpolatable the Interpolatable to look for.
+     * @return its slot, or -1 if it has none.
+     */
+    public synchronized int slotOf(Interpolatable interpolatable)
+    {
+        if (slotLookup == null)
+        {
+            slotLookup = new IdentityHashMap<>(count);
+            for (int slot = 0; slot < count; slot++)
+            {
+                slotLookup.put(interpolatables[slot], slot);
+            }
+        }
+
+        Integer slot = slotLookup.get(interpolatable);
+        return slot == null ? -1 : slot;
+    }
+
+    public Interpolatable getInterpolatable(int slot)
+    {
+        return interpolatables[slot];
+    }
+
+    public int getOffset(int slot)
+    {
+        return offsets[slot];
+    }
+
+    public int getLength(int slot)
+    {
+        return lengths[slot];
+    }
+
+    public boolean isVersioned(int slot)
+    {
+        return versioned[slot];
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    public int getTotalLength()
+    {
+        return totalLength;
+    }
+
+    public int getMaxLength()
+    {
+        return maxLength;
+    }
+}
@@ -0,0 +1,31 @@
+package box.shoe.gameutils.engine;
+
+import box.shoe.gameutils.Interpolatable;
+
+/**
+ * Decides which Interpolatables are worth interpolating for a frame, e.g. only those which might be seen.
+ * Anything held back keeps the values it was last loaded with, unless it is loaded on demand with
+ * Engine.interpolateNow().
+ */
+
+public interface InterpolationFilter
+{
+    /**
+     * Called on the frame thread at the start of every frame, before shouldInterpolate() is called for it.
+     * @param savedValues the values every Interpolatable saved into the two GameStates of the frame, e.g. to
+     *                    find where a Camera was. Only valid until the next call, and on the frame thread.
+     */
+    void beginFrame(SavedInterpValues savedValues);
+
+    /**
+     * Called on the frame thread for every Interpolatable, every frame, so it must be cheap.
+     * Decide from the saved values only: the Interpolatable itself belongs to the update thread, which may be
+     * changing it at the same time.
+     * @param interpolatable the Interpolatable which is about to be interpolated, to tell what it is.
+     * @param pastValues the values it saved (with saveInterpValues()) into the older GameState, from index 0.
+     *                   Must not be changed or kept.
+     * @param currentValues the values it saved into the newer GameState, from index 0. Must not be changed or kept.
+     * @return true to interpolate it, and false to hold it back.
+     */
+    boolean shouldInterpolate(Interpolatable interpolatable, float[] pastValues, float[] currentValues);
+}
@@ -0,0 +1,326 @@
+package box.shoe.gameutils.engine;
+
+import java.util.Arrays;
+
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.Interpolation;
+import box.shoe.gameutils.Service;
+import box.shoe.gameutils.VersionedInterpolatable;
+
+/**
+ * Moves the values of all Interpolatables into GameStates, and interpolated values back out of them.
+ * save() is called by whichever thread runs updates, and load() by whichever thread renders frames.
+ * Each has its own scratch space, so the two may run at the same time.
+ *
+ * An InterpolationFilter may hold back Interpolatables from being loaded (e.g. those off screen).
+ * Anything held back can still be loaded later in the same frame with loadNow().
+ *
+ * VersionedInterpolatables whose version has not changed are neither saved again (their last saved values
+ * are reused) nor interpolated again (their past and current values are the same, and they already hold them).
+ */
+
+/* pack */ final class Interpolator
+{
+    // The layout of the most recently saved GameState. Reused until the Interpolatables change.
+    private InterpValuesLayout interpValuesLayout;
+    // The modification count of the Service when interpValuesLayout was last known to match it.
+    private int interpValuesLayoutModificationCount;
+
+    // Interpolatables read and write their values starting at index 0, so we save and load through
+    // these scratch arrays instead of allocating new ones. One per thread, since both threads use them.
+    private float[] saveInterpScratch = new float[0];
+    private float[] loadInterpScratch = new float[0];
+
+    // Load thread only. The saved values that the InterpolationFilter is shown, from each of the two GameStates.
+    private float[] filterPastScratch = new float[0];
+    private float[] filterCurrentScratch = new float[0];
+    // Load thread only. Lets the InterpolationFilter look up any Interpolatable's saved values.
+    private final SavedInterpValues filterSavedValues = new SavedInterpValues();
+
+    // Save thread only. The values and version that each versioned slot of interpValuesLayout was last saved with,
+    // laid out the same way as a GameState. Versions are UNVERSIONED until saved.
+    private float[] savedValues = new float[0];
+    private long[] savedVersions = new long[0];
+
+    // Load thread only. The version that each slot of loadedVersionsLayout was last loaded with, or UNVERSIONED
+    // if it was last loaded with values that were interpolated.
+    private InterpValuesLayout loadedVersionsLayout;
+    private long[] loadedVersions = new long[0];
+
+    // Load thread only. What the most recent load() interpolated between, so that loadNow() can catch up on
+    // Interpolatables which were held back by the filter.
+    private GameState loadedPast;
+    private GameState loadedCurrent;
+    private double loadedInterpolationRatio;
+
+    // Load thread only. The load() which last loaded each slot of loadedCurrent's layout.
+    // A new load() does not need to clear it, it just counts up.
+    private int[] slotLoadedAt = new int[0];
+    private int loadCount = 0;
+
+    /**
+     * Save the values of every Interpolatable into a GameState.
+     * @param gameState the GameState to save into.
+     */
+    public void save(GameState gameState)
+    {
+        Service<Interpolatable> members = Interpolatable.INTERPOLATABLE_SERVICE;
+
+        // Only build a new layout when the Interpolatables have changed since the last update.
+        // Otherwise every Interpolatable keeps the same slot, so consecutive GameStates line up exactly.
+        // Nothing has changed if the Service has not been modified, so we need not even look.
+        if (interpValuesLayout == null || interpValuesLayoutModificationCount != members.getModificationCount())
+        {
+            if (interpValuesLayout == null || !interpValuesLayout.matches(members))
+            {
+                interpValuesLayout = InterpValuesLayout.of(members);
+
+                // Slots have moved, so nothing that was saved before can be reused.
+                if (savedValues.length < interpValuesLayout.getTotalLength())
+                {
+                    savedValues = new float[interpValuesLayout.getTotalLength()];
+                }
+                if (savedVersions.length < interpValuesLayout.getCount())
+                {
+                    savedVersions = new long[interpValuesLayout.getCount()];
+                }
+                Arrays.fill(savedVersions, VersionedInterpolatable.UNVERSIONED);
+            }
+            interpValuesLayoutModificationCount = members.getModificationCount();
+        }
+        if (saveInterpScratch.length < interpValuesLayout.getMaxLength())
+        {
+            saveInterpScratch = new float[interpValuesLayout.getMaxLength()];
+        }
+
+        gameState.setLayout(interpValuesLayout);
+        float[] interpValues = gameState.getInterpValues();
+        long[] interpVersions = gameState.getInterpVersions();
+
+        for (int slot = 0; slot < interpValuesLayout.getCount(); slot++)
+        {
+            Interpolatable interpolatable = interpValuesLayout.getInterpolatable(slot);
+            int offset = interpValuesLayout.getOffset(slot);
+            int length = interpValuesLayout.getLength(slot);
+
+            long version = VersionedInterpolatable.UNVERSIONED;
+            if (interpValuesLayout.isVersioned(slot))
+            {
+                version = ((VersionedInterpolatable) interpolatable).getInterpVersion();
+                if (version != VersionedInterpolatable.UNVERSIONED && version == savedVersions[slot])
+                {
+                    // Nothing changed since the last save, so reuse its values.
+                    System.arraycopy(savedValues, offset, interpValues, offset, length);
+                    interpVersions[slot] = version;
+                    continue;
+                }
+            }
+
+            if (interpolatable.getInterpValuesArrayMaxIndex() + 1 != length)
+            {
+                throw new IllegalStateException("Interpolatable " + interpolatable + " does not consistently " +
+                        "save the same amount of interp values!");
+            }
+
+            // Interpolatables write from index 0, so save into the scratch array and copy into place.
+            interpolatable.saveInterpValues(saveInterpScratch);
+            System.arraycopy(saveInterpScratch, 0, interpValues, offset, length);
+            interpVersions[slot] = version;
+
+            if (version != VersionedInterpolatable.UNVERSIONED)
+            {
+                System.arraycopy(saveInterpScratch, 0, savedValues, offset, length);
+                savedVersions[slot] = version;
+            }
+        }
+    }
+
+    /**
+     * Interpolate between the values saved in two GameStates, and load the result into every Interpolatable
+     * which exists in both.
+     * @param gameStatePast the older GameState.
+     * @param gameStateCurrent the newer GameState.
+     * @param interpolationRatio how far from gameStatePast (0) to gameStateCurrent (1) to interpolate.
+     */
+    public void load(GameState gameStatePast, GameState gameStateCurrent, double interpolationRatio)
+    {
+        load(gameStatePast, gameStateCurrent, interpolationRatio, null);
+    }
+
+    /**
+     * Interpolate between the values saved in two GameStates, and load the result into every Interpolatable
+     * which exists in both and which the filter lets through.
+     * @param gameStatePast the older GameState.
+     * @param gameStateCurrent the newer GameState.
+     * @param interpolationRatio how far from gameStatePast (0) to gameStateCurrent (1) to interpolate.
+     * @param filter decides which Interpolatables to load, or null to load them all.
+     */
+    public void load(GameState gameStatePast, GameState gameStateCurrent, double interpolationRatio,
+                     InterpolationFilter filter)
+    {
+        InterpValuesLayout layoutCurrent = gameStateCurrent.getLayout();
+
+        if (loadInterpScratch.length < layoutCurrent.getMaxLength())
+        {
+            loadInterpScratch = new float[layoutCurrent.getMaxLength()];
+        }
+        if (filter != null && filterCurrentScratch.length < layoutCurrent.getMaxLength())
+        {
+            filterPastScratch = new float[layoutCurrent.getMaxLength()];
+            filterCurrentScratch = new float[layoutCurrent.getMaxLength()];
+        }
+        if (slotLoadedAt.length < layoutCurrent.getCount())
+        {
+            slotLoadedAt = new int[layoutCurrent.getCount()];
+        }
+        if (loadedVersionsLayout != layoutCurrent)
+        {
+            // Slots have moved, so we no longer know what each one was loaded with.
+            if (loadedVersions.length < layoutCurrent.getCount())
+            {
+                loadedVersions = new long[layoutCurrent.getCount()];
+            }
+            Arrays.fill(loadedVersions, VersionedInterpolatable.UNVERSIONED);
+            loadedVersionsLayout = layoutCurrent;
+        }
+
+        loadedPast = gameStatePast;
+        loadedCurrent = gameStateCurrent;
+        loadedInterpolationRatio = interpolationRatio;
+        loadCount++;
+
+        if (filter != null)
+        {
+            filterSavedValues.set(gameStatePast, gameStateCurrent);
+            filter.beginFrame(filterSavedValues);
+        }
+        for (int slot = 0; slot < layoutCurrent.getCount(); slot++)
+        {
+            if (filter == null || passesFilter(filter, slot))
+            {
+                loadSlot(slot);
+            }
+        }
+    }
+
+    /**
+     * Load a single Interpolatable from the GameStates of the most recent load(), if it was not loaded then
+     * (e.g. because the filter held it back). Must be called from the thread that calls load(), before the
+     * GameStates of the most recent load() may be reused.
+     * @param interpolatable the Interpolatable to load.
+     * @return true if the Interpolatable now holds the values of the most recent load(),
+     *          and false if it does not exist in both of its GameStates.
+     */
+    public boolean loadNow(Interpolatable interpolatable)
+    {
+        if (loadedCurrent == null)
+        {
+            return false;
+        }
+
+        int slot = loadedCurrent.getLayout().slotOf(interpolatable);
+        if (slot < 0)
+        {
+            return false;
+        }
+        if (slotLoadedAt[slot] == loadCount)
+        {
+            return true;
+        }
+        return loadSlot(slot);
+    }
+
+    /**
+     * Forget the GameStates of the most recent load(), e.g. once they are about to be reused.
+     */
+    public void forgetLoad()
+    {
+        loadedPast = null;
+        loadedCurrent = null;
+    }
+
+    // Show the filter the values that the slot would be interpolated between, rather than the Interpolatable's
+    // live state, which the update thread may be changing meanwhile.
+    private boolean passesFilter(InterpolationFilter filter, int slot)
+    {
+        InterpValuesLayout layoutPast = loadedPast.getLayout();
+        InterpValuesLayout layoutCurrent = loadedCurrent.getLayout();
+        Interpolatable interpolatable = layoutCurrent.getInterpolatable(slot);
+
+        int slotPast = layoutPast == layoutCurrent ? slot : layoutPast.slotOf(interpolatable);
+        if (slotPast < 0)
+        {
+            // Could not be interpolated anyway.
+            return false;
+        }
+        int length = layoutCurrent.getLength(slot);
+        if (layoutPast.getLength(slotPast) != length)
+        {
+            // Let loadSlot() report it.
+            return true;
+        }
+        System.arraycopy(loadedPast.getInterpValues(), layoutPast.getOffset(slotPast), filterPastScratch, 0, length);
+        System.arraycopy(loadedCurrent.getInterpValues(), layoutCurrent.getOffset(slot), filterCurrentScratch, 0, length);
+        return filter.shouldInterpolate(interpolatable, filterPastScratch, filterCurrentScratch);
+    }
+
+    private boolean loadSlot(int slot)
+    {
+        InterpValuesLayout layoutPast = loadedPast.getLayout();
+        InterpValuesLayout layoutCurrent = loadedCurrent.getLayout();
+        Interpolatable interpolatable = layoutCurrent.getInterpolatable(slot);
+
+        // When both GameStates were saved with the same layout, every slot lines up.
+        // Otherwise the Interpolatables changed between the two GameStates, so match up the slots.
+        // Only Interpolatables that exist in both GameStates can be interpolated.
+        int slotPast = layoutPast == layoutCurrent ? slot : layoutPast.slotOf(interpolatable);
+        if (slotPast < 0)
+        {
+            return false;
+        }
+        if (layoutPast.getLength(slotPast) != layoutCurrent.getLength(slot))
+        {
+            throw new IllegalStateException("Interpolatable " + interpolatable + " does not consistently " +
+                    "save the same amount of interp values!");
+        }
+
+        slotLoadedAt[slot] = loadCount;
+
+        long version = loadedCurrent.getInterpVersions()[slot];
+        if (version != VersionedInterpolatable.UNVERSIONED && version == loadedPast.getInterpVersions()[slotPast])
+        {
+            // Past and current values are the same, so there is nothing to interpolate.
+            if (loadedVersions[slot] == version)
+            {
+                // The Interpolatable already holds these values.
+                return true;
+            }
+            System.arraycopy(loadedCurrent.getInterpValues(), layoutCurrent.getOffset(slot),
+                    loadInterpScratch, 0, layoutCurrent.getLength(slot));
+            interpolatable.loadInterpValues(loadInterpScratch);
+        }
+        else
+        {
+            loadInterpValuesForSlot(interpolatable, loadedPast.getInterpValues(), layoutPast.getOffset(slotPast),
+                    loadedCurrent.getInterpValues(), layoutCurrent.getOffset(slot), layoutCurrent.getLength(slot));
+            version = VersionedInterpolatable.UNVERSIONED;
+        }
+        loadedVersions[slot] = version;
+        return true;
+    }
+
+    private void loadInterpValuesForSlot(Interpolatable interpolatable,
+                                         float[] interpValuesPast, int offsetPast,
+                                         float[] interpValuesCurrent, int offsetCurrent,
+                                         int length)
+    {
+        double interpolationRatio = loadedInterpolationRatio;
+        for (int i = 0; i < length; i++)
+        {
+            loadInterpScratch[i] = Interpolation.interpolateFloat(
+                    interpValuesPast[offsetPast + i], interpValuesCurrent[offsetCurrent + i], interpolationRatio);
+        }
+
+        interpolatable.loadInterpValues(loadInterpScratch);
+    }
+}
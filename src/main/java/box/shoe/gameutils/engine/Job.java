@@ -0,0 +1,73 @@
+package box.shoe.gameutils.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A unit of update work that can be run by a JobSystem on any core.
+ * Jobs are meant to be created once and submitted again every update, so that
+ * submitting work does not allocate. Dependencies are declared once, with after().
+ * A Job will not run until every dependency that was submitted in the same update has finished.
+ */
+
+public final class Job
+{
+    // The work to do.
+    private final Runnable work;
+
+    // Jobs which must finish before this one can start. Configured once.
+    private final List<Job> dependencies;
+
+    // ________________
+    // PER-UPDATE STATE.
+    // Reset every time the Job is submitted.
+
+    // The JobSystem batch that this Job was last submitted in.
+    /* pack */ int submittedBatch = -1;
+
+    // Number of dependencies which have not finished yet, plus one while the Job is still being submitted.
+    /* pack */ final AtomicInteger unfinishedDependencies = new AtomicInteger();
+
+    // Jobs which are waiting on this one. Guarded by this Job's monitor.
+    /* pack */ final List<Job> dependents = new ArrayList<>();
+
+    // Whether this Job has finished in its current batch. Guarded by this Job's monitor.
+    /* pack */ boolean finished = false;
+
+    /**
+     * Create a Job.
+     * @param work the work to do whenever the Job is run.
+     */
+    public Job(Runnable work)
+    {
+        this.work = work;
+        this.dependencies = new ArrayList<>();
+    }
+
+    /**
+     * Make this Job wait for another Job to finish before it starts, whenever both are submitted in the same update.
+     * The dependency must be submitted before this Job is.
+     * @param dependency the Job to wait for.
+     * @return this Job, for chaining.
+     */
+    public Job after(Job dependency)
+    {
+        if (dependency == this)
+        {
+            throw new IllegalArgumentException("A Job cannot depend on itself!");
+        }
+        dependencies.add(dependency);
+        return this;
+    }
+
+    /* pack */ List<Job> getDependencies()
+    {
+        return dependencies;
+    }
+
+    /* pack */ void run()
+    {
+        work.run();
+    }
+}
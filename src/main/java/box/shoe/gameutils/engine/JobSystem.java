@@ -0,0 +1,335 @@
+package box.shoe.gameutils.engine;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Jobs across several cores during an update, so that a Game is not limited to the single update thread.
+ * Every worker thread has its own deque of ready Jobs. A worker runs the newest Job from its own deque,
+ * and when that is empty, steals the oldest Job from another deque (work stealing), so that work spreads out
+ * without a single contended queue. The thread which submits Jobs (the update thread) has a deque too,
+ * and helps run Jobs while it waits in join().
+ *
+ * Usage, during an update: submit() the Jobs that should run this update, in dependency order.
+ * The Engine calls join() once the Game's update() returns, so every Job has finished before the
+ * GameState is saved. A Game which is run by a HeadlessEngine gets the same treatment.
+ */
+
+public final class JobSystem
+{
+    private final Worker[] workers;
+
+    // One deque per worker, and a last one for the submitting thread. Each guarded by its own monitor.
+    private final ArrayDeque<Job>[] deques;
+
+    // Jobs which were submitted in the current batch and have not finished.
+    private final AtomicInteger pendingJobs = new AtomicInteger();
+
+    // Jobs which are sitting in a deque, ready to be run.
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+
+    // Workers (and joiners) wait on this when there is nothing to run.
+    private final Object monitorWork = new Object();
+
+    // Increments every join, so that Jobs can tell whether their dependencies were submitted this update.
+    private volatile int batch = 0;
+
+    // The first thing a Job threw in the current batch, to be rethrown by join().
+    private volatile Throwable failure = null;
+
+    private volatile boolean shutdown = false;
+
+    // Used to spread Jobs from the submitting thread across the workers' deques.
+    private int nextDeque = 0;
+
+    /**
+     * Create a JobSystem, and start its worker threads.
+     * @param workerCount the number of worker threads, not including the thread which calls join().
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public JobSystem(int workerCount)
+    {
+        if (workerCount < 0)
+        {
+            throw new IllegalArgumentException("Worker count cannot be less than 0: " + workerCount);
+        }
+
+        deques = new ArrayDeque[workerCount + 1];
+        for (int i = 0; i < deques.length; i++)
+        {
+            deques[i] = new ArrayDeque<>();
+        }
+
+        workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++)
+        {
+            workers[i] = new Worker(i);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Create a JobSystem with one worker for every core except the one that calls join().
+     * @return the JobSystem.
+     */
+    public static JobSystem forAvailableCores()
+    {
+        return new JobSystem(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    /**
+     * Submit a Job to run during this update. It runs as soon as every one of its dependencies
+     * which was submitted this update has finished. May also be called from inside a running Job.
+     * @param job the Job to run.
+     */
+    public void submit(Job job)
+    {
+        if (shutdown)
+        {
+            throw new IllegalStateException("JobSystem has been shut down!");
+        }
+
+        int currentBatch = batch;
+        synchronized (job)
+        {
+            if (job.submittedBatch == currentBatch)
+            {
+                throw new IllegalStateException("Job was already submitted this update!");
+            }
+            job.submittedBatch = currentBatch;
+            job.finished = false;
+            job.dependents.clear();
+        }
+
+        pendingJobs.incrementAndGet();
+
+        // Hold one count ourselves, so that the Job cannot become ready while we are still registering it.
+        job.unfinishedDependencies.set(1);
+        List<Job> dependencies = job.getDependencies();
+        for (int i = 0; i < dependencies.size(); i++)
+        {
+            Job dependency = dependencies.get(i);
+            synchronized (dependency)
+            {
+                if (dependency.submittedBatch == currentBatch && !dependency.finished)
+                {
+                    job.unfinishedDependencies.incrementAndGet();
+                    dependency.dependents.add(job);
+                }
+            }
+        }
+
+        if (job.unfinishedDependencies.decrementAndGet() == 0)
+        {
+            enqueue(job);
+        }
+    }
+
+    /**
+     * Wait until every Job submitted this update has finished, helping to run them in the meantime.
+     * @throws RuntimeException if any Job threw, wrapping the first thing that was thrown.
+     */
+    public void join()
+    {
+        int ownDeque = ownDequeIndex();
+        while (pendingJobs.get() > 0)
+        {
+            Job job = take(ownDeque);
+            if (job != null)
+            {
+                runJob(job);
+            }
+            else
+            {
+                synchronized (monitorWork)
+                {
+                    while (pendingJobs.get() > 0 && queuedJobs.get() == 0)
+                    {
+                        try
+                        {
+                            monitorWork.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        }
+
+        batch++;
+
+        Throwable thrown = failure;
+        if (thrown != null)
+        {
+            failure = null;
+            throw new RuntimeException("A Job threw during the update!", thrown);
+        }
+    }
+
+    /**
+     * Stop the worker threads once they finish what they are running.
+     * After calling this, the JobSystem is no longer usable.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        synchronized (monitorWork)
+        {
+            monitorWork.notifyAll();
+        }
+    }
+
+    public int getWorkerCount()
+    {
+        return workers.length;
+    }
+
+    private void enqueue(Job job)
+    {
+        int index = ownDequeIndex();
+        if (index == workers.length && workers.length > 0)
+        {
+            // Jobs from the submitting thread are spread across the workers, so they start right away.
+            synchronized (this)
+            {
+                index = nextDeque;
+                nextDeque = (nextDeque + 1) % workers.length;
+            }
+        }
+
+        ArrayDeque<Job> deque = deques[index];
+        synchronized (deque)
+        {
+            deque.addLast(job);
+        }
+        queuedJobs.incrementAndGet();
+
+        synchronized (monitorWork)
+        {
+            monitorWork.notifyAll();
+        }
+    }
+
+    // Take the newest Job from our own deque, or else steal the oldest Job from someone else's.
+    private Job take(int ownDeque)
+    {
+        Job job;
+        ArrayDeque<Job> own = deques[ownDeque];
+        synchronized (own)
+        {
+            job = own.pollLast();
+        }
+
+        for (int i = 1; job == null && i < deques.length; i++)
+        {
+            ArrayDeque<Job> victim = deques[(ownDeque + i) % deques.length];
+            synchronized (victim)
+            {
+                job = victim.pollFirst();
+            }
+        }
+
+        if (job != null)
+        {
+            queuedJobs.decrementAndGet();
+        }
+        return job;
+    }
+
+    private void runJob(Job job)
+    {
+        try
+        {
+            job.run();
+        }
+        catch (Throwable thrown)
+        {
+            if (failure == null)
+            {
+                failure = thrown;
+            }
+        }
+
+        // Once finished is set, no new dependents can be added, so we may walk the list outside of the lock.
+        synchronized (job)
+        {
+            job.finished = true;
+        }
+        List<Job> dependents = job.dependents;
+        for (int i = 0; i < dependents.size(); i++)
+        {
+            Job dependent = dependents.get(i);
+            if (dependent.unfinishedDependencies.decrementAndGet() == 0)
+            {
+                enqueue(dependent);
+            }
+        }
+
+        if (pendingJobs.decrementAndGet() == 0)
+        {
+            synchronized (monitorWork)
+            {
+                monitorWork.notifyAll();
+            }
+        }
+    }
+
+    private int ownDequeIndex()
+    {
+        Thread thread = Thread.currentThread();
+        if (thread instanceof Worker && ((Worker) thread).getJobSystem() == this)
+        {
+            return ((Worker) thread).index;
+        }
+        return workers.length;
+    }
+
+    private class Worker extends Thread
+    {
+        private final int index;
+
+        private Worker(int index)
+        {
+            super("Jobs " + index);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        private JobSystem getJobSystem()
+        {
+            return JobSystem.this;
+        }
+
+        @Override
+        public void run()
+        {
+            while (!shutdown)
+            {
+                Job job = take(index);
+                if (job != null)
+                {
+                    runJob(job);
+                    continue;
+                }
+
+                synchronized (monitorWork)
+                {
+                    while (!shutdown && queuedJobs.get() == 0)
+                    {
+                        try
+                        {
+                            monitorWork.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
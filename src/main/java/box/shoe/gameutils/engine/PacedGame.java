@@ -0,0 +1,26 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * A Game which wants to know, frame by frame, whether the Engine expects the frame to be painted in time.
+ * When frames are expected to miss VSYNC, the Engine first asks the Game to render a cheaper frame
+ * (FRAME_DEGRADE), and if even that is not expected to make it, skips the frame altogether (FRAME_SKIP).
+ */
+
+public interface PacedGame extends Game
+{
+    // The frame is expected to be painted in time. Render as usual.
+    int FRAME_RENDER = 0;
+
+    // The frame is expected to miss VSYNC unless it is cheaper. Render less (e.g. fewer particles or effects).
+    int FRAME_DEGRADE = 1;
+
+    // The frame is expected to miss VSYNC no matter what, so it will not be rendered.
+    int FRAME_SKIP = 2;
+
+    /**
+     * Called on the frame thread at the start of every frame, before render() (which may be running while an
+     * update is, so only record the decision here, e.g. in a volatile field, and act on it in render()).
+     * @param decision one of FRAME_RENDER, FRAME_DEGRADE or FRAME_SKIP.
+     */
+    void onFramePacing(int decision);
+}
@@ -0,0 +1,17 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * A Game which splits its updates into Jobs, to be run across several cores.
+ * The Engine owns the JobSystem, and waits for every Job submitted during update() to finish
+ * before the GameState is saved, so render() never sees a half-finished update.
+ */
+
+public interface ParallelGame extends Game
+{
+    /**
+     * Called once, right before onStart, with the JobSystem to submit update Jobs to.
+     * The JobSystem belongs to the Engine and is shut down after onStop.
+     * @param jobSystem the JobSystem to use during update().
+     */
+    void onAttachJobSystem(JobSystem jobSystem);
+}
@@ -0,0 +1,26 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * A Game which loads its assets (Bitmaps, TileMaps, AIs...) before it starts, on background threads.
+ * The Engine calls onPreload as soon as the game is started, while the Screen is still getting ready,
+ * and onStart only once every asset that was asked for has loaded, so nothing is decoded on the main thread
+ * or in the way of the first frame.
+ */
+
+public interface PreloadingGame extends Game
+{
+    /**
+     * Called once, on the thread that started the game, before anything else. Ask the AssetLoader for every asset
+     * that onStart needs, and keep the Assets it returns to get() them from onStart on.
+     * If the game is stopped before loading is done, loading is cancelled, and onStart and onStop are never called.
+     * @param assetLoader where to ask for assets. Only usable during this call.
+     */
+    void onPreload(AssetLoader assetLoader);
+
+    /**
+     * Called on the main thread each time an asset has loaded, e.g. to show a progress bar.
+     * @param loaded how many assets have loaded so far.
+     * @param total how many assets were asked for.
+     */
+    void onPreloadProgress(int loaded, int total);
+}
@@ -0,0 +1,17 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * A Game which wants to know when the Engine changes how many updates it runs per second
+ * (see Engine.setTargetUpdatesPerSecond and Engine.enableAdaptiveUpdateRate).
+ * A Game which moves things by a fixed amount per update will speed up or slow down when the UPS changes,
+ * so it should scale those amounts here (or move things by amounts per second instead).
+ */
+
+public interface RateAwareGame extends Game
+{
+    /**
+     * Called on the update thread, right before the first update at the new UPS.
+     * @param updatesPerSecond the new UPS.
+     */
+    void onUpdateRateChanged(int updatesPerSecond);
+}
@@ -0,0 +1,314 @@
+package box.shoe.gameutils.engine;
+
+import android.graphics.Bitmap;
+
+import java.util.Arrays;
+
+/**
+ * A list of draw commands, recorded by a CommandRenderedGame on the update thread, to be replayed by the Engine
+ * on the frame thread. Commands are kept in flat primitive arrays which only grow, so recording into a buffer
+ * that is reused every update does not allocate.
+ *
+ * A command may be given an id, which must be unique within the buffer. When a frame is painted between two
+ * GameStates, every command whose id was also recorded (with the same kind of command) in the older buffer has
+ * its coordinates interpolated between the two. Commands with NO_ID are drawn exactly as recorded.
+ * Colors, Bitmaps and text are never interpolated; the newest ones are drawn.
+ *
+ * Bitmaps are drawn on the frame thread some time after they are recorded, so do not recycle or draw into a
+ * Bitmap which may still be in a buffer.
+ */
+
+public final class RenderCommandBuffer
+{
+    // An id which is never interpolated.
+    public static final int NO_ID = 0;
+
+    // Kinds of command.
+    /* pack */ static final int COMMAND_COLOR = 0;
+    /* pack */ static final int COMMAND_RECT = 1;
+    /* pack */ static final int COMMAND_BITMAP = 2;
+    /* pack */ static final int COMMAND_TEXT = 3;
+    /* pack */ static final int COMMAND_SAVE = 4;
+    /* pack */ static final int COMMAND_RESTORE = 5;
+    /* pack */ static final int COMMAND_TRANSLATE = 6;
+    /* pack */ static final int COMMAND_SCALE = 7;
+
+    private static final int INITIAL_COMMAND_CAPACITY = 64;
+
+    // Per command: its kind, id, where its float arguments start, its int argument (a color), and its
+    // object argument (a Bitmap or text), if any.
+    private int[] commands = new int[INITIAL_COMMAND_CAPACITY];
+    private int[] ids = new int[INITIAL_COMMAND_CAPACITY];
+    private int[] floatStarts = new int[INITIAL_COMMAND_CAPACITY];
+    private int[] intArguments = new int[INITIAL_COMMAND_CAPACITY];
+    private Object[] objectArguments = new Object[INITIAL_COMMAND_CAPACITY];
+    private int commandCount = 0;
+
+    // The float arguments (coordinates) of every command, back to back.
+    private float[] floatArguments = new float[INITIAL_COMMAND_CAPACITY * 4];
+    private int floatCount = 0;
+
+    // Open addressing table from id to command, built the first time it is needed after recording.
+    private int[] lookupIds = new int[0];
+    private int[] lookupCommands = new int[0];
+    private boolean lookupBuilt = false;
+
+    // __________
+    // RECORDING.
+
+    /**
+     * Fill the whole canvas with a color.
+     * @param color the color.
+     */
+    public void color(int color)
+    {
+        addCommand(COMMAND_COLOR, NO_ID, color, null);
+    }
+
+    /**
+     * Fill a rectangle with a color.
+     * @param id the id to interpolate by, or NO_ID.
+     * @param color the color.
+     */
+    public void rect(int id, float left, float top, float right, float bottom, int color)
+    {
+        addCommand(COMMAND_RECT, id, color, null);
+        addFloats(left, top, right, bottom);
+    }
+
+    /**
+     * Draw a whole Bitmap, scaled to fill a rectangle.
+     * @param id the id to interpolate by, or NO_ID.
+     * @param bitmap the Bitmap.
+     */
+    public void bitmap(int id, Bitmap bitmap, float left, float top, float right, float bottom)
+    {
+        addCommand(COMMAND_BITMAP, id, 0, bitmap);
+        addFloats(left, top, right, bottom);
+    }
+
+    /**
+     * Draw text.
+     * @param id the id to interpolate by, or NO_ID.
+     * @param text the text.
+     * @param x the x coordinate of the start of the text.
+     * @param y the y coordinate of the baseline of the text.
+     * @param textSize the size of the text.
+     * @param color the color of the text.
+     */
+    public void text(int id, String text, float x, float y, float textSize, int color)
+    {
+        addCommand(COMMAND_TEXT, id, color, text);
+        addFloats(x, y, textSize, 0);
+    }
+
+    /**
+     * Save the canvas' transformation, to be restored by a matching restore().
+     */
+    public void save()
+    {
+        addCommand(COMMAND_SAVE, NO_ID, 0, null);
+    }
+
+    /**
+     * Restore the canvas' transformation to the matching save().
+     */
+    public void restore()
+    {
+        addCommand(COMMAND_RESTORE, NO_ID, 0, null);
+    }
+
+    /**
+     * Translate every command that follows (until a restore()).
+     * @param id the id to interpolate by, or NO_ID.
+     */
+    public void translate(int id, float dx, float dy)
+    {
+        addCommand(COMMAND_TRANSLATE, id, 0, null);
+        addFloats(dx, dy, 0, 0);
+    }
+
+    /**
+     * Scale every command that follows (until a restore()).
+     * @param id the id to interpolate by, or NO_ID.
+     */
+    public void scale(int id, float sx, float sy)
+    {
+        addCommand(COMMAND_SCALE, id, 0, null);
+        addFloats(sx, sy, 0, 0);
+    }
+
+    /**
+     * Forget every recorded command, keeping the space they used.
+     */
+    public void clear()
+    {
+        // Let go of Bitmaps and text, so that they may be collected.
+        Arrays.fill(objectArguments, 0, commandCount, null);
+        commandCount = 0;
+        floatCount = 0;
+        lookupBuilt = false;
+    }
+
+    /**
+     * Make this buffer hold the same commands as another one.
+     * @param other the buffer to copy.
+     */
+    public void copyFrom(RenderCommandBuffer other)
+    {
+        clear();
+        ensureCommandCapacity(other.commandCount);
+        ensureFloatCapacity(other.floatCount);
+        System.arraycopy(other.commands, 0, commands, 0, other.commandCount);
+        System.arraycopy(other.ids, 0, ids, 0, other.commandCount);
+        System.arraycopy(other.floatStarts, 0, floatStarts, 0, other.commandCount);
+        System.arraycopy(other.intArguments, 0, intArguments, 0, other.commandCount);
+        System.arraycopy(other.objectArguments, 0, objectArguments, 0, other.commandCount);
+        System.arraycopy(other.floatArguments, 0, floatArguments, 0, other.floatCount);
+        commandCount = other.commandCount;
+        floatCount = other.floatCount;
+    }
+
+    private void addCommand(int command, int id, int intArgument, Object objectArgument)
+    {
+        ensureCommandCapacity(commandCount + 1);
+        commands[commandCount] = command;
+        ids[commandCount] = id;
+        floatStarts[commandCount] = floatCount;
+        intArguments[commandCount] = intArgument;
+        objectArguments[commandCount] = objectArgument;
+        commandCount++;
+        lookupBuilt = false;
+    }
+
+    // Every command has its floats in a run of four, whether or not it uses them all, which keeps this simple.
+    private void addFloats(float a, float b, float c, float d)
+    {
+        ensureFloatCapacity(floatCount + 4);
+        floatArguments[floatCount] = a;
+        floatArguments[floatCount + 1] = b;
+        floatArguments[floatCount + 2] = c;
+        floatArguments[floatCount + 3] = d;
+        floatCount += 4;
+    }
+
+    private void ensureCommandCapacity(int capacity)
+    {
+        if (capacity > commands.length)
+        {
+            int newCapacity = Math.max(capacity, commands.length * 2);
+            commands = Arrays.copyOf(commands, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            floatStarts = Arrays.copyOf(floatStarts, newCapacity);
+            intArguments = Arrays.copyOf(intArguments, newCapacity);
+            objectArguments = Arrays.copyOf(objectArguments, newCapacity);
+        }
+    }
+
+    private void ensureFloatCapacity(int capacity)
+    {
+        if (capacity > floatArguments.length)
+        {
+            floatArguments = Arrays.copyOf(floatArguments, Math.max(capacity, floatArguments.length * 2));
+        }
+    }
+
+    // ________
+    // READING.
+
+    /* pack */ int getCommandCount()
+    {
+        return commandCount;
+    }
+
+    /* pack */ int getCommand(int index)
+    {
+        return commands[index];
+    }
+
+    /* pack */ int getId(int index)
+    {
+        return ids[index];
+    }
+
+    /* pack */ float getFloat(int index, int argument)
+    {
+        return floatArguments[floatStarts[index] + argument];
+    }
+
+    /* pack */ int getInt(int index)
+    {
+        return intArguments[index];
+    }
+
+    /* pack */ Object getObject(int index)
+    {
+        return objectArguments[index];
+    }
+
+    /**
+     * Find the command with an id.
+     * @param id the id to look for. May not be NO_ID.
+     * @return the index of the command, or -1 if there is none.
+     */
+    /* pack */ int indexOf(int id)
+    {
+        if (!lookupBuilt)
+        {
+            buildLookup();
+        }
+        int mask = lookupIds.length - 1;
+        for (int i = hash(id) & mask; ; i = (i + 1) & mask)
+        {
+            int command = lookupCommands[i];
+            if (command < 0)
+            {
+                return -1;
+            }
+            if (lookupIds[i] == id)
+            {
+                return command;
+            }
+        }
+    }
+
+    private void buildLookup()
+    {
+        // Keep the table at most half full, with a power of two size.
+        int capacity = Integer.highestOneBit(Math.max(1, commandCount) * 2) * 2;
+        if (lookupIds.length < capacity)
+        {
+            lookupIds = new int[capacity];
+            lookupCommands = new int[capacity];
+        }
+        Arrays.fill(lookupCommands, -1);
+
+        int mask = lookupIds.length - 1;
+        for (int command = 0; command < commandCount; command++)
+        {
+            int id = ids[command];
+            if (id == NO_ID)
+            {
+                continue;
+            }
+            int i = hash(id) & mask;
+            while (lookupCommands[i] >= 0 && lookupIds[i] != id)
+            {
+                i = (i + 1) & mask;
+            }
+            if (lookupCommands[i] < 0)
+            {
+                // The first command with an id wins.
+                lookupIds[i] = id;
+                lookupCommands[i] = command;
+            }
+        }
+        lookupBuilt = true;
+    }
+
+    private static int hash(int id)
+    {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
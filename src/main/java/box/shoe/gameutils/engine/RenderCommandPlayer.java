@@ -0,0 +1,111 @@
+package box.shoe.gameutils.engine;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+import box.shoe.gameutils.Interpolation;
+
+/**
+ * Draws the commands of a RenderCommandBuffer to a Canvas, interpolating commands which share an id with
+ * a command of an older buffer. Only touches the buffers, never live game objects, so it needs no lock
+ * as long as nobody records into the buffers while they are played.
+ * Owned by one thread (the one that renders frames), since it keeps its own Paint and scratch space.
+ */
+
+/* pack */ final class RenderCommandPlayer
+{
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    private final RectF dummyRect = new RectF();
+
+    // The interpolated float arguments of the command being played.
+    private final float[] floats = new float[4];
+
+    /**
+     * Play a buffer of commands.
+     * @param past the older buffer, to interpolate from, or null to draw the current one as recorded.
+     * @param current the newer buffer, which is the one that is drawn.
+     * @param interpolationRatio how far from past (0) to current (1) to interpolate.
+     * @param canvas the Canvas to draw to.
+     */
+    public void play(RenderCommandBuffer past, RenderCommandBuffer current, double interpolationRatio, Canvas canvas)
+    {
+        for (int index = 0; index < current.getCommandCount(); index++)
+        {
+            int command = current.getCommand(index);
+            loadFloats(past, current, index, command, interpolationRatio);
+
+            switch (command)
+            {
+                case RenderCommandBuffer.COMMAND_COLOR:
+                    canvas.drawColor(current.getInt(index));
+                    break;
+                case RenderCommandBuffer.COMMAND_RECT:
+                    paint.setColor(current.getInt(index));
+                    paint.setStyle(Paint.Style.FILL);
+                    canvas.drawRect(floats[0], floats[1], floats[2], floats[3], paint);
+                    break;
+                case RenderCommandBuffer.COMMAND_BITMAP:
+                    dummyRect.set(floats[0], floats[1], floats[2], floats[3]);
+                    paint.setColor(0xFF000000);
+                    canvas.drawBitmap((Bitmap) current.getObject(index), null, dummyRect, paint);
+                    break;
+                case RenderCommandBuffer.COMMAND_TEXT:
+                    paint.setColor(current.getInt(index));
+                    paint.setStyle(Paint.Style.FILL);
+                    paint.setTextSize(floats[2]);
+                    canvas.drawText((String) current.getObject(index), floats[0], floats[1], paint);
+                    break;
+                case RenderCommandBuffer.COMMAND_SAVE:
+                    canvas.save();
+                    break;
+                case RenderCommandBuffer.COMMAND_RESTORE:
+                    canvas.restore();
+                    break;
+                case RenderCommandBuffer.COMMAND_TRANSLATE:
+                    canvas.translate(floats[0], floats[1]);
+                    break;
+                case RenderCommandBuffer.COMMAND_SCALE:
+                    canvas.scale(floats[0], floats[1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown render command: " + command);
+            }
+        }
+    }
+
+    private void loadFloats(RenderCommandBuffer past, RenderCommandBuffer current, int index, int command,
+                            double interpolationRatio)
+    {
+        if (!hasFloats(command))
+        {
+            return;
+        }
+
+        int id = current.getId(index);
+        int pastIndex = -1;
+        if (past != null && id != RenderCommandBuffer.NO_ID)
+        {
+            pastIndex = past.indexOf(id);
+            if (pastIndex >= 0 && past.getCommand(pastIndex) != command)
+            {
+                pastIndex = -1;
+            }
+        }
+
+        for (int argument = 0; argument < floats.length; argument++)
+        {
+            float value = current.getFloat(index, argument);
+            floats[argument] = pastIndex < 0 ? value :
+                    Interpolation.interpolateFloat(past.getFloat(pastIndex, argument), value, interpolationRatio);
+        }
+    }
+
+    private static boolean hasFloats(int command)
+    {
+        return command != RenderCommandBuffer.COMMAND_COLOR
+                && command != RenderCommandBuffer.COMMAND_SAVE
+                && command != RenderCommandBuffer.COMMAND_RESTORE;
+    }
+}
@@ -0,0 +1,225 @@
+package box.shoe.gameutils.engine;
+
+import android.util.Log;
+import android.view.MotionEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import box.gift.gameutils.BuildConfig;
+
+/**
+ * Records everything a Game is given during a session into a compact binary log, so that the session can be
+ * run again, update for update, by a Replayer (e.g. to reproduce a desync, or as a repeatable load test).
+ * A Game replays the same way only if everything it does follows from its updates, its input, and the Rng
+ * (so seed nothing else, and never read the time).
+ *
+ * The log starts with a header (the Rng seed, the target UPS, and the screen size), followed by records, each
+ * tagged with the index of the update it came right before: touch events as the Game consumed them in onTouch,
+ * and changes of target UPS. Indices and times are written as deltas, in variable length, so idle stretches
+ * cost nothing and a touch event costs a few bytes per pointer. The log ends with the total number of updates.
+ *
+ * Written to by the update thread while the game runs. Writing never throws; if the stream fails, recording
+ * stops and hasFailed() tells.
+ */
+
+public final class ReplayRecorder
+{
+    /* pack */ static final int MAGIC = 0x47555250; // "GURP"
+    /* pack */ static final int VERSION = 1;
+
+    // Kinds of record.
+    /* pack */ static final int RECORD_END = 0;
+    /* pack */ static final int RECORD_TOUCH = 1;
+    /* pack */ static final int RECORD_UPDATE_RATE = 2;
+
+    private final DataOutputStream out;
+
+    private boolean begun = false;
+    private boolean finished = false;
+    private boolean failed = false;
+
+    // What the previous record was written with, to write the next one as deltas.
+    private long lastUpdateIndex = 0;
+    private long lastEventTimeMS = 0;
+
+    /**
+     * @param out where to write the log. It is closed by finish().
+     */
+    public ReplayRecorder(OutputStream out)
+    {
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Write the header. Called by the Engine right before the Game is started.
+     * @param seed the seed that Rng was given before the Game was started.
+     * @param targetUPS the target UPS that the first update runs at.
+     * @param screenWidth the width the Game is started with.
+     * @param screenHeight the height the Game is started with.
+     */
+    public void begin(long seed, int targetUPS, int screenWidth, int screenHeight)
+    {
+        if (begun)
+        {
+            throw new IllegalStateException("Recording already begun!");
+        }
+        begun = true;
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            writeVarLong(targetUPS);
+            writeVarLong(screenWidth);
+            writeVarLong(screenHeight);
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+     * Record a touch event, as it is given to the Game.
+     * @param updateIndex the index of the update that the event is given right before.
+     * @param touchEvent the event.
+     */
+    public void recordTouch(long updateIndex, MotionEvent touchEvent)
+    {
+        if (!startRecord(updateIndex, RECORD_TOUCH))
+        {
+            return;
+        }
+        try
+        {
+            long eventTimeMS = touchEvent.getEventTime();
+            writeVarLong(zigZag(eventTimeMS - lastEventTimeMS));
+            writeVarLong(zigZag(eventTimeMS - touchEvent.getDownTime()));
+            lastEventTimeMS = eventTimeMS;
+
+            writeVarLong(touchEvent.getAction());
+            writeVarLong(touchEvent.getMetaState());
+            int pointerCount = touchEvent.getPointerCount();
+            writeVarLong(pointerCount);
+            for (int i = 0; i < pointerCount; i++)
+            {
+                writeVarLong(touchEvent.getPointerId(i));
+                out.writeFloat(touchEvent.getX(i));
+                out.writeFloat(touchEvent.getY(i));
+                out.writeFloat(touchEvent.getPressure(i));
+            }
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+     * Record a change of target UPS.
+     * @param updateIndex the index of the first update at the new UPS.
+     * @param updatesPerSecond the new UPS.
+     */
+    public void recordUpdateRateChange(long updateIndex, int updatesPerSecond)
+    {
+        if (!startRecord(updateIndex, RECORD_UPDATE_RATE))
+        {
+            return;
+        }
+        try
+        {
+            writeVarLong(updatesPerSecond);
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+     * Write the end of the log and close the stream. Called by the Engine when the Game is stopped.
+     * @param updateCount the number of updates that were run in all.
+     */
+    public void finish(long updateCount)
+    {
+        if (!startRecord(updateCount, RECORD_END))
+        {
+            return;
+        }
+        finished = true;
+        try
+        {
+            out.close();
+        }
+        catch (IOException e)
+        {
+            fail(e);
+        }
+    }
+
+    /**
+     * Check if writing to the stream failed, in which case the log is incomplete.
+     * @return true if it failed.
+     */
+    public boolean hasFailed()
+    {
+        return failed;
+    }
+
+    private boolean startRecord(long updateIndex, int record)
+    {
+        if (!begun)
+        {
+            throw new IllegalStateException("Recording has not begun!");
+        }
+        if (finished || failed)
+        {
+            return false;
+        }
+        if (updateIndex < lastUpdateIndex)
+        {
+            throw new IllegalArgumentException("Records must be in update order: " + updateIndex + " < " + lastUpdateIndex);
+        }
+        try
+        {
+            out.writeByte(record);
+            writeVarLong(updateIndex - lastUpdateIndex);
+            lastUpdateIndex = updateIndex;
+            return true;
+        }
+        catch (IOException e)
+        {
+            fail(e);
+            return false;
+        }
+    }
+
+    private void fail(IOException e)
+    {
+        failed = true;
+        if (BuildConfig.DEBUG)
+        {
+            Log.w("ReplayRecorder", "Could not write replay log, so recording has stopped.", e);
+        }
+    }
+
+    // Seven bits at a time, lowest first, with the high bit set on every byte but the last.
+    private void writeVarLong(long value) throws IOException
+    {
+        while ((value & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    // Maps small negative numbers to small positive ones, so that they stay short as var longs.
+    private static long zigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,222 @@
+package box.shoe.gameutils.engine;
+
+import android.view.MotionEvent;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import box.shoe.gameutils.Rng;
+
+/**
+ * Runs a session recorded by a ReplayRecorder again, through a HeadlessEngine, as fast as possible.
+ * Rng is given the recorded seed, the Game is started with the recorded screen size, and every touch event
+ * and change of target UPS is given to the Game right before the same update as in the recording.
+ * Since nothing waits on time, a replay doubles as a repeatable load test: see getUpdatesPerSecond().
+ */
+
+public final class Replayer
+{
+    private final DataInputStream in;
+
+    // The header.
+    private final long seed;
+    private final int targetUPS;
+    private final int screenWidth;
+    private final int screenHeight;
+
+    private boolean replayed = false;
+
+    // What the previous record was read with, since records are written as deltas.
+    private long lastUpdateIndex = 0;
+    private long lastEventTimeMS = 0;
+
+    // Reused to build each touch event.
+    private MotionEvent.PointerProperties[] pointerProperties = new MotionEvent.PointerProperties[0];
+    private MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[0];
+
+    private long replayDurationNS = 0;
+    private long replayUpdateCount = 0;
+
+    /**
+     * Read the header of a log.
+     * @param in the log, as written by a ReplayRecorder. It is closed once the replay is done.
+     * @throws IOException if the stream could not be read, or is not a log that can be replayed.
+     */
+    public Replayer(InputStream in) throws IOException
+    {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != ReplayRecorder.MAGIC)
+        {
+            throw new IOException("Not a replay log!");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != ReplayRecorder.VERSION)
+        {
+            throw new IOException("Unsupported replay log version: " + version);
+        }
+        seed = this.in.readLong();
+        targetUPS = (int) readVarLong();
+        screenWidth = (int) readVarLong();
+        screenHeight = (int) readVarLong();
+    }
+
+    /**
+     * Seed Rng, start the HeadlessEngine, and run the whole log through it.
+     * The HeadlessEngine is left running, so that the state of the Game can be checked afterwards; stop it when done.
+     * @param engine a HeadlessEngine which has not been started, for the Game which was recorded.
+     * @throws IOException if the log could not be read, or ends early.
+     */
+    public void replay(HeadlessEngine engine) throws IOException
+    {
+        if (replayed)
+        {
+            throw new IllegalStateException("Already replayed!");
+        }
+        replayed = true;
+
+        Rng.setSeed(seed);
+        engine.setTargetUpdatesPerSecond(targetUPS);
+        engine.start(screenWidth, screenHeight);
+
+        long startNS = System.nanoTime();
+        try
+        {
+            while (true)
+            {
+                int record = in.readUnsignedByte();
+                long updateIndex = lastUpdateIndex + readVarLong();
+                lastUpdateIndex = updateIndex;
+
+                // Catch up to the update that the record comes right before.
+                while (engine.getUpdateCount() < updateIndex)
+                {
+                    engine.step();
+                }
+
+                if (record == ReplayRecorder.RECORD_END)
+                {
+                    break;
+                }
+                else if (record == ReplayRecorder.RECORD_TOUCH)
+                {
+                    MotionEvent touchEvent = readTouch();
+                    engine.touch(touchEvent);
+                    touchEvent.recycle();
+                }
+                else if (record == ReplayRecorder.RECORD_UPDATE_RATE)
+                {
+                    engine.setTargetUpdatesPerSecond((int) readVarLong());
+                }
+                else
+                {
+                    throw new IOException("Unknown replay record: " + record);
+                }
+            }
+        }
+        catch (EOFException e)
+        {
+            throw new IOException("Replay log ended early, after update " + engine.getUpdateCount() + "!", e);
+        }
+        finally
+        {
+            in.close();
+        }
+        replayDurationNS = System.nanoTime() - startNS;
+        replayUpdateCount = engine.getUpdateCount();
+    }
+
+    private MotionEvent readTouch() throws IOException
+    {
+        long eventTimeMS = lastEventTimeMS + unZigZag(readVarLong());
+        long downTimeMS = eventTimeMS - unZigZag(readVarLong());
+        lastEventTimeMS = eventTimeMS;
+
+        int action = (int) readVarLong();
+        int metaState = (int) readVarLong();
+        int pointerCount = (int) readVarLong();
+        ensurePointerCapacity(pointerCount);
+        for (int i = 0; i < pointerCount; i++)
+        {
+            pointerProperties[i].clear();
+            pointerProperties[i].id = (int) readVarLong();
+            pointerProperties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            pointerCoords[i].clear();
+            pointerCoords[i].x = in.readFloat();
+            pointerCoords[i].y = in.readFloat();
+            pointerCoords[i].pressure = in.readFloat();
+        }
+
+        return MotionEvent.obtain(downTimeMS, eventTimeMS, action, pointerCount, pointerProperties, pointerCoords,
+                metaState, 0, 1, 1, 0, 0, 0, 0);
+    }
+
+    private void ensurePointerCapacity(int pointerCount)
+    {
+        if (pointerCount > pointerProperties.length)
+        {
+            pointerProperties = new MotionEvent.PointerProperties[pointerCount];
+            pointerCoords = new MotionEvent.PointerCoords[pointerCount];
+            for (int i = 0; i < pointerCount; i++)
+            {
+                pointerProperties[i] = new MotionEvent.PointerProperties();
+                pointerCoords[i] = new MotionEvent.PointerCoords();
+            }
+        }
+    }
+
+    private long readVarLong() throws IOException
+    {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed replay log!");
+    }
+
+    private static long unZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long getSeed()
+    {
+        return seed;
+    }
+
+    public int getTargetUpdatesPerSecond()
+    {
+        return targetUPS;
+    }
+
+    public int getScreenWidth()
+    {
+        return screenWidth;
+    }
+
+    public int getScreenHeight()
+    {
+        return screenHeight;
+    }
+
+    /**
+     * Get how many updates per second the whole replay ran at.
+     * @return the updates per second, or 0 if nothing has been replayed.
+     */
+    public double getUpdatesPerSecond()
+    {
+        if (replayDurationNS <= 0)
+        {
+            return 0;
+        }
+        return replayUpdateCount / (replayDurationNS / 1000000000.0);
+    }
+}
@@ -0,0 +1,58 @@
+package box.shoe.gameutils.engine;
+
+import box.shoe.gameutils.Interpolatable;
+
+/**
+ * The values that Interpolatables saved into the two GameStates a frame is interpolated between.
+ * Handed to an InterpolationFilter at the start of each frame, so that it can decide from saved values
+ * (e.g. where a Camera was) instead of from live objects, which belong to the update thread.
+ * Only valid during the frame it was handed out for, and only on the frame thread.
+ */
+
+public final class SavedInterpValues
+{
+    private GameState gameStatePast;
+    private GameState gameStateCurrent;
+
+    /* pack */ SavedInterpValues() {}
+
+    /* pack */ void set(GameState gameStatePast, GameState gameStateCurrent)
+    {
+        this.gameStatePast = gameStatePast;
+        this.gameStateCurrent = gameStateCurrent;
+    }
+
+    /**
+     * Copy the values an Interpolatable saved into the older GameState.
+     * @param interpolatable the Interpolatable to look up.
+     * @param out where to copy its values to, from index 0.
+     * @return false if it saved nothing into the older GameState.
+     */
+    public boolean getPast(Interpolatable interpolatable, float[] out)
+    {
+        return copy(gameStatePast, interpolatable, out);
+    }
+
+    /**
+     * Copy the values an Interpolatable saved into the newer GameState.
+     * @param interpolatable the Interpolatable to look up.
+     * @param out where to copy its values to, from index 0.
+     * @return false if it saved nothing into the newer GameState.
+     */
+    public boolean getCurrent(Interpolatable interpolatable, float[] out)
+    {
+        return copy(gameStateCurrent, interpolatable, out);
+    }
+
+    private static boolean copy(GameState gameState, Interpolatable interpolatable, float[] out)
+    {
+        InterpValuesLayout layout = gameState.getLayout();
+        int slot = layout.slotOf(interpolatable);
+        if (slot < 0)
+        {
+            return false;
+        }
+        System.arraycopy(gameState.getInterpValues(), layout.getOffset(slot), out, 0, layout.getLength(slot));
+        return true;
+    }
+}
@@ -0,0 +1,286 @@
+package box.shoe.gameutils.engine;
+
+import java.util.Arrays;
+
+import box.shoe.gameutils.Rng;
+import box.shoe.gameutils.Service;
+import box.shoe.gameutils.SnapshotReader;
+import box.shoe.gameutils.SnapshotWriter;
+import box.shoe.gameutils.Snapshottable;
+
+/**
+ * A ring of snapshots of every Snapshottable (and of Rng), one per update, so that the game can be restored to any of the
+ * recent updates. Most snapshots are stored as the XOR of their words with the previous snapshot's, run length
+ * encoded, so a snapshot of a game in which little changes takes little space and copying.
+ * Every KEYFRAME_INTERVAL snapshots (and whenever that would not work), a whole snapshot is stored instead,
+ * so restoring never has to undo more than KEYFRAME_INTERVAL - 1 differences.
+ *
+ * Snapshots can only be restored while the members of the SNAPSHOTTABLE_SERVICE are the same as when they were
+ * taken, since members are written in the Service's order. Pool game objects (keeping them as members) rather
+ * than creating and removing them, if they are to be rolled back over.
+ * Only used by the thread that updates the game.
+ */
+
+/* pack */ final class SnapshotHistory
+{
+    /* pack */ static final int KEYFRAME_INTERVAL = 8;
+
+    private final int capacity;
+
+    // Per slot of the ring: the encoded snapshot, how many words of it are used, which update it was taken
+    // after, whether it is whole, and the Service modification count it was taken with.
+    private final int[][] frames;
+    private final int[] frameSizes;
+    private final long[] frameUpdates;
+    private final boolean[] keyframes;
+    private final int[] frameModificationCounts;
+
+    // Snapshots in the ring, the newest of which was taken after update newestUpdate.
+    private int count = 0;
+    private long newestUpdate = -1;
+    private long lastKeyframeUpdate = -1;
+
+    private final SnapshotWriter writer = new SnapshotWriter();
+    private final SnapshotReader reader = new SnapshotReader();
+
+    // The newest snapshot, whole, to take the difference from.
+    private int[] previousWords = new int[0];
+    private int previousSize = 0;
+
+    // Where snapshots are rebuilt when restored.
+    private int[] restoredWords = new int[0];
+
+    /* pack */ SnapshotHistory(int capacity)
+    {
+        if (capacity <= KEYFRAME_INTERVAL)
+        {
+            throw new IllegalArgumentException("Snapshot capacity must be greater than " + KEYFRAME_INTERVAL + ": " + capacity);
+        }
+        this.capacity = capacity;
+        frames = new int[capacity][];
+        frameSizes = new int[capacity];
+        frameUpdates = new long[capacity];
+        keyframes = new boolean[capacity];
+        frameModificationCounts = new int[capacity];
+        for (int i = 0; i < capacity; i++)
+        {
+            frames[i] = new int[0];
+        }
+    }
+
+    /**
+     * Take a snapshot of every Snapshottable, and of Rng.
+     * @param update the number of updates which have been run, which must follow the newest snapshot's.
+     * @param service the Snapshottables.
+     */
+    public void capture(long update, Service<Snapshottable> service)
+    {
+        if (count > 0 && update != newestUpdate + 1)
+        {
+            throw new IllegalStateException("Snapshots must be taken after every update: " + update
+                    + " does not follow " + newestUpdate);
+        }
+
+        writer.clear();
+        Rng.writeSnapshot(writer);
+        int members = service.size();
+        for (int i = 0; i < members; i++)
+        {
+            Snapshottable snapshottable = service.get(i);
+            if (snapshottable != null)
+            {
+                snapshottable.writeSnapshot(writer);
+            }
+        }
+        int[] words = writer.getWords();
+        int size = writer.size();
+        int modificationCount = service.getModificationCount();
+
+        int slot = slotOf(update);
+        boolean keyframe = count == 0
+                || update - lastKeyframeUpdate >= KEYFRAME_INTERVAL
+                || size != previousSize
+                || modificationCount != frameModificationCounts[slotOf(newestUpdate)];
+        if (!keyframe)
+        {
+            // A whole snapshot is cheaper than a difference that is mostly literals.
+            keyframe = !encodeDifference(words, size, slot);
+        }
+        if (keyframe)
+        {
+            frames[slot] = ensureCapacity(frames[slot], size);
+            System.arraycopy(words, 0, frames[slot], 0, size);
+            frameSizes[slot] = size;
+            lastKeyframeUpdate = update;
+        }
+        keyframes[slot] = keyframe;
+        frameUpdates[slot] = update;
+        frameModificationCounts[slot] = modificationCount;
+
+        previousWords = ensureCapacity(previousWords, size);
+        System.arraycopy(words, 0, previousWords, 0, size);
+        previousSize = size;
+
+        newestUpdate = update;
+        count = Math.min(count + 1, capacity);
+    }
+
+    // Differences are written as runs: how many words are unchanged, how many are changed, then the XOR of each
+    // changed word. Returns false (having written nothing useful) if that would be longer than the snapshot.
+    private boolean encodeDifference(int[] words, int size, int slot)
+    {
+        int[] frame = ensureCapacity(frames[slot], size);
+        frames[slot] = frame;
+        int length = 0;
+        int i = 0;
+        while (i < size)
+        {
+            int unchangedStart = i;
+            while (i < size && words[i] == previousWords[i])
+            {
+                i++;
+            }
+            int changedStart = i;
+            while (i < size && words[i] != previousWords[i])
+            {
+                i++;
+            }
+            int changed = i - changedStart;
+            if (length + 2 + changed > size)
+            {
+                return false;
+            }
+            frame[length] = changedStart - unchangedStart;
+            frame[length + 1] = changed;
+            for (int j = 0; j < changed; j++)
+            {
+                frame[length + 2 + j] = words[changedStart + j] ^ previousWords[changedStart + j];
+            }
+            length += 2 + changed;
+        }
+        frameSizes[slot] = length;
+        return true;
+    }
+
+    /**
+     * Put every Snapshottable back how it was after an update, and forget every snapshot taken after that one.
+     * @param update the update to go back to.
+     * @param service the Snapshottables, which must be the same members as when the snapshot was taken.
+     */
+    public void restore(long update, Service<Snapshottable> service)
+    {
+        if (update > newestUpdate || update < getOldestRestorableUpdate())
+        {
+            throw new IllegalArgumentException("No snapshot to restore after update " + update + "!");
+        }
+        int slot = slotOf(update);
+        if (frameModificationCounts[slot] != service.getModificationCount())
+        {
+            throw new IllegalStateException("Cannot restore a snapshot: Snapshottables were added or removed since it was taken!");
+        }
+
+        // Start from the nearest whole snapshot, and apply the differences after it.
+        long keyframeUpdate = update;
+        while (!keyframes[slotOf(keyframeUpdate)])
+        {
+            keyframeUpdate--;
+        }
+        int keyframeSlot = slotOf(keyframeUpdate);
+        int size = frameSizes[keyframeSlot];
+        restoredWords = ensureCapacity(restoredWords, size);
+        System.arraycopy(frames[keyframeSlot], 0, restoredWords, 0, size);
+        for (long u = keyframeUpdate + 1; u <= update; u++)
+        {
+            applyDifference(slotOf(u));
+        }
+
+        reader.reset(restoredWords, size);
+        Rng.readSnapshot(reader);
+        int members = service.size();
+        for (int i = 0; i < members; i++)
+        {
+            Snapshottable snapshottable = service.get(i);
+            if (snapshottable != null)
+            {
+                snapshottable.readSnapshot(reader);
+            }
+        }
+        if (reader.remaining() != 0)
+        {
+            throw new IllegalStateException("Snapshot was not read whole! Read in the same order as written.");
+        }
+
+        // Carry on from here, as though the later updates never happened.
+        int[] swap = previousWords;
+        previousWords = restoredWords;
+        restoredWords = swap;
+        previousSize = size;
+        count -= (int) (newestUpdate - update);
+        newestUpdate = update;
+        lastKeyframeUpdate = keyframeUpdate;
+    }
+
+    private void applyDifference(int slot)
+    {
+        int[] frame = frames[slot];
+        int length = frameSizes[slot];
+        int position = 0;
+        int i = 0;
+        while (i < length)
+        {
+            position += frame[i];
+            int changed = frame[i + 1];
+            for (int j = 0; j < changed; j++)
+            {
+                restoredWords[position + j] ^= frame[i + 2 + j];
+            }
+            position += changed;
+            i += 2 + changed;
+        }
+    }
+
+    /**
+     * @return the oldest update that can be restored, or -1 if there are no snapshots.
+     */
+    public long getOldestRestorableUpdate()
+    {
+        // The oldest snapshots may depend on a whole snapshot which has been overwritten.
+        for (long update = newestUpdate - count + 1; update <= newestUpdate; update++)
+        {
+            if (keyframes[slotOf(update)])
+            {
+                return update;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get how many updates back from the newest snapshot can certainly be restored.
+     * @param capturesToCome how many more snapshots will be taken first.
+     * @return the number of updates.
+     */
+    public int getGuaranteedDepth(int capturesToCome)
+    {
+        return Math.max(0, Math.min(Math.min(count + capturesToCome, capacity) - 1, capacity - KEYFRAME_INTERVAL));
+    }
+
+    public long getNewestUpdate()
+    {
+        return newestUpdate;
+    }
+
+    private int slotOf(long update)
+    {
+        return (int) (update % capacity);
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity)
+    {
+        if (array.length < capacity)
+        {
+            return Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+        }
+        return array;
+    }
+}
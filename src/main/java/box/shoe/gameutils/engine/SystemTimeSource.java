@@ -0,0 +1,18 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * Real time, from System.nanoTime() (the same time base that the Choreographer uses for frame times).
+ */
+
+public final class SystemTimeSource implements TimeSource
+{
+    public static final SystemTimeSource INSTANCE = new SystemTimeSource();
+
+    private SystemTimeSource() {}
+
+    @Override
+    public long nanoTime()
+    {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,14 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * Where a Clock gets its time from.
+ */
+
+public interface TimeSource
+{
+    /**
+     * Get the current time. Only differences between two times are meaningful.
+     * @return the time, in nanoseconds.
+     */
+    long nanoTime();
+}
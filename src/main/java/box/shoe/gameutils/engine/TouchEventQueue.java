@@ -0,0 +1,96 @@
+package box.shoe.gameutils.engine;
+
+import android.view.MotionEvent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands touch events from the UI thread to the update thread without either one waiting on the other.
+ * A fixed-size, single-producer/single-consumer ring: only the UI thread may offer(), and only the
+ * update thread may poll(). Each event is copied with MotionEvent.obtain(), which reuses MotionEvents
+ * from the framework's own pool, because the original is recycled by the framework as soon as the
+ * listener returns. Whoever polls an event must recycle() it.
+ */
+
+/* pack */ final class TouchEventQueue
+{
+    // Its length is a power of two, so that indices can be masked. The counters below wrap around past
+    // Integer.MAX_VALUE, and a mask (unlike %) still finds the right slot for them after that.
+    private final MotionEvent[] events;
+    private final int mask;
+
+    // Next index to poll from. Only advanced by the consumer.
+    private final AtomicInteger head = new AtomicInteger(0);
+
+    // Next index to offer to. Only advanced by the producer.
+    private final AtomicInteger tail = new AtomicInteger(0);
+
+    /**
+     * @param capacity how many events may wait in the queue at once. Rounded up to a power of two.
+     */
+    public TouchEventQueue(int capacity)
+    {
+        if (capacity < 1 || capacity > 1 << 30)
+        {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int length = Integer.highestOneBit(capacity);
+        if (length < capacity)
+        {
+            length *= 2;
+        }
+        events = new MotionEvent[length];
+        mask = length - 1;
+    }
+
+    /**
+     * Producer only. Copy a touch event onto the end of the queue.
+     * @param motionEvent the event to copy.
+     * @return true if the event was queued, and false if the queue was full (the event is dropped).
+     */
+    public boolean offer(MotionEvent motionEvent)
+    {
+        int currentTail = tail.get();
+        if (currentTail - head.get() >= events.length)
+        {
+            return false;
+        }
+
+        events[currentTail & mask] = MotionEvent.obtain(motionEvent);
+        // Publishes the write above to the consumer.
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Consumer only. Take the oldest touch event off of the queue. The caller must recycle() it when done.
+     * @return the event, or null if the queue is empty.
+     */
+    public MotionEvent poll()
+    {
+        int currentHead = head.get();
+        if (currentHead == tail.get())
+        {
+            return null;
+        }
+
+        int index = currentHead & mask;
+        MotionEvent motionEvent = events[index];
+        events[index] = null;
+        // Hands the slot back to the producer.
+        head.lazySet(currentHead + 1);
+        return motionEvent;
+    }
+
+    /**
+     * Consumer only. Recycle every event left in the queue.
+     */
+    public void clear()
+    {
+        MotionEvent motionEvent;
+        while ((motionEvent = poll()) != null)
+        {
+            motionEvent.recycle();
+        }
+    }
+}
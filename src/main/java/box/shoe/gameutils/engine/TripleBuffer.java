@@ -0,0 +1,79 @@
+package box.shoe.gameutils.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wait-free handoff of buffers from one writer thread to one reader thread.
+ * The writer always owns a back buffer and the reader always owns a front buffer.
+ * The third buffer sits in the middle, and is swapped atomically with the back buffer when the writer
+ * publishes, or with the front buffer when the reader acquires. Neither side ever blocks or allocates,
+ * and the reader always gets the most recently published buffer (older unread ones are overwritten).
+ * @param <T> the type of buffer.
+ */
+
+/* pack */ final class TripleBuffer<T>
+{
+    // The middle index lives in the low bits, along with a flag marking whether it was published
+    // since the reader last acquired.
+    private static final int INDEX_MASK = 0b011;
+    private static final int FRESH = 0b100;
+
+    private final Object[] buffers;
+    private final AtomicInteger middle;
+
+    // Owned by the writer thread.
+    private int back;
+
+    // Owned by the reader thread.
+    private int front;
+
+    public TripleBuffer(T first, T second, T third)
+    {
+        buffers = new Object[] {first, second, third};
+        back = 0;
+        middle = new AtomicInteger(1);
+        front = 2;
+    }
+
+    /**
+     * Writer only. Get the buffer which the writer may fill before calling publish().
+     * @return the back buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getWriteBuffer()
+    {
+        return (T) buffers[back];
+    }
+
+    /**
+     * Writer only. Hand the back buffer over to the reader, and take a new back buffer to write to.
+     */
+    public void publish()
+    {
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Reader only. Take the most recently published buffer, if one was published since the last acquire.
+     * @return true if the front buffer changed, and false if nothing new was published.
+     */
+    public boolean acquire()
+    {
+        if ((middle.get() & FRESH) == 0)
+        {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Reader only. Get the buffer which was most recently acquired.
+     * @return the front buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getReadBuffer()
+    {
+        return (T) buffers[front];
+    }
+}
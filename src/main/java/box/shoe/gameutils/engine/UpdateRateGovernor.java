@@ -0,0 +1,125 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * Decides when the Engine should change its target UPS, based on how long updates take.
+ * Keeps an exponential moving average of update durations. When the average uses up too much of the time
+ * between updates (e.g. on a weak device, or one that is thermal throttling), the UPS steps down to the next
+ * option in the UPS_Options ladder, and when there is plenty of room to spare at the next option up, it steps
+ * back up, but never above the UPS that the Game asked for.
+ * After each step, the UPS stays put for a couple of seconds so that the average can settle.
+ */
+
+/* pack */ final class UpdateRateGovernor
+{
+    // The same options as Engine.UPS_Options, in ascending order.
+    private static final int[] UPS_LADDER = {1, 2, 4, 5, 8, 10, 20, 25, 40, 50, 100, 125, 200, 250, 500, 1000};
+
+    // Weight of each new update duration in the moving average.
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    // Step down when the average takes more than this fraction of the time between updates...
+    private static final double STEP_DOWN_FRACTION = 0.75;
+    // ...and step up when it would take less than this fraction of the time between updates at the next option up.
+    private static final double STEP_UP_FRACTION = 0.35;
+
+    // Seconds to wait after a step before stepping again.
+    private static final int SETTLE_SECONDS = 2;
+
+    private final int minimumUPS;
+    private int maximumUPS;
+
+    private double averageDurationNS = -1;
+    private int updatesSinceStep = 0;
+
+    public UpdateRateGovernor(int minimumUPS, int maximumUPS)
+    {
+        if (minimumUPS < 1 || minimumUPS > maximumUPS)
+        {
+            throw new IllegalArgumentException("Minimum UPS must be between 1 and " + maximumUPS + ": " + minimumUPS);
+        }
+        this.minimumUPS = minimumUPS;
+        this.maximumUPS = maximumUPS;
+    }
+
+    /**
+     * Set the highest UPS to step up to, e.g. when the Game's target UPS is changed by hand.
+     * @param maximumUPS the highest UPS.
+     */
+    public void setMaximumUPS(int maximumUPS)
+    {
+        this.maximumUPS = Math.max(minimumUPS, maximumUPS);
+        updatesSinceStep = 0;
+    }
+
+    /**
+     * Record how long an update took, and decide which UPS to run at.
+     * @param durationNS the time the update took, in nanoseconds.
+     * @param currentUPS the UPS the update ran at.
+     * @return the UPS to run at from now on.
+     */
+    public int recordUpdate(long durationNS, int currentUPS)
+    {
+        if (averageDurationNS < 0)
+        {
+            averageDurationNS = durationNS;
+        }
+        else
+        {
+            averageDurationNS += AVERAGE_WEIGHT * (durationNS - averageDurationNS);
+        }
+        updatesSinceStep++;
+
+        if (updatesSinceStep < currentUPS * SETTLE_SECONDS)
+        {
+            return currentUPS;
+        }
+
+        int ups = currentUPS;
+        if (averageDurationNS > STEP_DOWN_FRACTION * (1000000000L / currentUPS))
+        {
+            int lower = lowerOption(currentUPS);
+            if (lower >= minimumUPS)
+            {
+                ups = lower;
+            }
+        }
+        else
+        {
+            int higher = higherOption(currentUPS);
+            if (higher <= maximumUPS && averageDurationNS < STEP_UP_FRACTION * (1000000000L / higher))
+            {
+                ups = higher;
+            }
+        }
+
+        if (ups != currentUPS)
+        {
+            updatesSinceStep = 0;
+        }
+        return ups;
+    }
+
+    private static int lowerOption(int ups)
+    {
+        for (int i = UPS_LADDER.length - 1; i >= 0; i--)
+        {
+            if (UPS_LADDER[i] < ups)
+            {
+                return UPS_LADDER[i];
+            }
+        }
+        return ups;
+    }
+
+    private static int higherOption(int ups)
+    {
+        for (int i = 0; i < UPS_LADDER.length; i++)
+        {
+            if (UPS_LADDER[i] > ups)
+            {
+                return UPS_LADDER[i];
+            }
+        }
+        return ups;
+    }
+}
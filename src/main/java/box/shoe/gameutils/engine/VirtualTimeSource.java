@@ -0,0 +1,40 @@
+package box.shoe.gameutils.engine;
+
+/**
+ * Time which only moves when it is told to, so that tests and headless runs can skip ahead instantly
+ * instead of sleeping. Safe to advance from one thread while it is read from others.
+ */
+
+public final class VirtualTimeSource implements TimeSource
+{
+    private volatile long nanoTime;
+
+    public VirtualTimeSource()
+    {
+        this(0);
+    }
+
+    public VirtualTimeSource(long startNanoTime)
+    {
+        this.nanoTime = startNanoTime;
+    }
+
+    @Override
+    public long nanoTime()
+    {
+        return nanoTime;
+    }
+
+    /**
+     * Move time forward.
+     * @param durationNS how far to move, in nanoseconds. May not be negative.
+     */
+    public synchronized void advanceBy(long durationNS)
+    {
+        if (durationNS < 0)
+        {
+            throw new IllegalArgumentException("Time may not go backwards: " + durationNS);
+        }
+        nanoTime += durationNS;
+    }
+}
@@ -1,9 +1,9 @@
 package box.shoe.gameutils.input;
 
-import android.graphics.PointF;
 import android.graphics.RectF;
 import android.view.MotionEvent;
 
+import box.shoe.gameutils.MutableVector;
 import box.shoe.gameutils.Vector;
 
 import static android.view.View.NO_ID;
@@ -16,7 +16,7 @@ public class Joystick implements VectorTouchable
 {
     private int exclusiveActivePointerId;
 
-    private Vector activeTouchVector;
+    private final MutableVector activeTouchVector = new MutableVector();
 
     private RectF touchZoneBounds;
     private TouchZone touchZone;
@@ -55,7 +55,18 @@ public class Joystick implements VectorTouchable
             throw new IllegalStateException("Cannot get active touch Vector on an inactive Joystick. Please call " +
                     "isActive() first to see if the user is interacting with this Joystick.");
         }
-        return activeTouchVector;
+        return activeTouchVector.toVector();
+    }
+
+    @Override
+    public MutableVector getActiveTouchVector(MutableVector out)
+    {
+        if (!isActive())
+        {
+            throw new IllegalStateException("Cannot get active touch Vector on an inactive Joystick. Please call " +
+                    "isActive() first to see if the user is interacting with this Joystick.");
+        }
+        return out.set(activeTouchVector);
     }
 
     @Override
@@ -107,12 +118,12 @@ public class Joystick implements VectorTouchable
     private void generateActiveTouchVector(MotionEvent motionEvent)
     {
         int exclusiveActivePointerIndex = motionEvent.findPointerIndex(exclusiveActivePointerId);
-        PointF joystickCenterPoint = new PointF(touchZoneBounds.centerX(), touchZoneBounds.centerY());
-        PointF inputPoint = new PointF(motionEvent.getX(exclusiveActivePointerIndex), motionEvent.getY(exclusiveActivePointerIndex));
 
         // The Joystick is a circle, and touch input is scaled from 0-1 in magnitude from the center to the circumference.
         // The Joystick can still be active when input is outside of the circle, and the magnitude will be > 1 in such a case.
-        activeTouchVector = Vector.to(joystickCenterPoint, inputPoint).scale(1 / (touchZoneBounds.width() / 2));
+        activeTouchVector.set(motionEvent.getX(exclusiveActivePointerIndex) - touchZoneBounds.centerX(),
+                motionEvent.getY(exclusiveActivePointerIndex) - touchZoneBounds.centerY())
+                .scale(1 / (touchZoneBounds.width() / 2));
     }
 
     @Override
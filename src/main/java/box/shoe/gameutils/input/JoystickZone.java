@@ -4,6 +4,7 @@ import android.graphics.RectF;
 import android.view.MotionEvent;
 
 import box.shoe.gameutils.BoundingBox;
+import box.shoe.gameutils.MutableVector;
 import box.shoe.gameutils.Vector;
 
 public class JoystickZone implements VectorTouchable
@@ -14,7 +15,7 @@ public class JoystickZone implements VectorTouchable
     private float joystickHeight;
 
     private Joystick currentJoystick;
-    private Vector activeTouchVector;
+    private final MutableVector activeTouchVector = new MutableVector();
     private BoundingBox currentJoystickBounds;
 
     public JoystickZone(RectF bounds, float joystickWidth, float joystickHeight)
@@ -44,7 +45,7 @@ public class JoystickZone implements VectorTouchable
 
             if (currentJoystick.isActive())
             {
-                activeTouchVector = currentJoystick.getActiveTouchVector();
+                currentJoystick.getActiveTouchVector(activeTouchVector);
             }
             else
             {
@@ -73,7 +74,18 @@ public class JoystickZone implements VectorTouchable
             throw new IllegalStateException("Cannot get active touch Vector on an inactive JoystickZone. Please call " +
                     "isActive() first to see if the user is interacting with this JoystickZone.");
         }
-        return activeTouchVector;
+        return activeTouchVector.toVector();
+    }
+
+    @Override
+    public MutableVector getActiveTouchVector(MutableVector out)
+    {
+        if (!isActive())
+        {
+            throw new IllegalStateException("Cannot get active touch Vector on an inactive JoystickZone. Please call " +
+                    "isActive() first to see if the user is interacting with this JoystickZone.");
+        }
+        return out.set(activeTouchVector);
     }
 
     @Override
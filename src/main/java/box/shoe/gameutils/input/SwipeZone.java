@@ -4,6 +4,7 @@ import android.graphics.RectF;
 import android.view.MotionEvent;
 import android.view.VelocityTracker;
 
+import box.shoe.gameutils.MutableVector;
 import box.shoe.gameutils.Vector;
 
 import static android.view.View.NO_ID;
@@ -31,6 +32,23 @@ public class SwipeZone implements Touchable
     }
 
     public Vector getActiveSwipeVelocity()
+    {
+        computeVelocity();
+        return Vector.fromCartesian(velocityTracker.getXVelocity(), velocityTracker.getYVelocity());
+    }
+
+    /**
+     * Like getActiveSwipeVelocity(), but without making a new Vector.
+     * @param out where to put the swipe velocity.
+     * @return out.
+     */
+    public MutableVector getActiveSwipeVelocity(MutableVector out)
+    {
+        computeVelocity();
+        return out.set(velocityTracker.getXVelocity(), velocityTracker.getYVelocity());
+    }
+
+    private void computeVelocity()
     {
         if (!isActive())
         {
@@ -41,7 +59,6 @@ public class SwipeZone implements Touchable
         {
             velocityTracker.computeCurrentVelocity(units);
         }
-        return Vector.fromCartesian(velocityTracker.getXVelocity(), velocityTracker.getYVelocity());
     }
 
     /**
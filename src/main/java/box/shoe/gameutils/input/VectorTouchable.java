@@ -1,8 +1,16 @@
 package box.shoe.gameutils.input;
 
+import box.shoe.gameutils.MutableVector;
 import box.shoe.gameutils.Vector;
 
 public interface VectorTouchable extends Touchable
 {
     Vector getActiveTouchVector();
+
+    /**
+     * Like getActiveTouchVector(), but without making a new Vector.
+     * @param out where to put the active touch vector.
+     * @return out.
+     */
+    MutableVector getActiveTouchVector(MutableVector out);
 }
@@ -0,0 +1,61 @@
+package box.gift;
+
+import org.junit.Test;
+
+import box.shoe.gameutils.engine.Clock;
+import box.shoe.gameutils.engine.VirtualTimeSource;
+
+import static org.junit.Assert.assertEquals;
+
+public class ClockTest
+{
+    @Test
+    public void followsSource()
+    {
+        VirtualTimeSource timeSource = new VirtualTimeSource(1000);
+        Clock clock = new Clock(timeSource);
+        assertEquals("Starts at the source time", 1000, clock.nanoTime());
+
+        timeSource.advanceBy(500);
+        assertEquals("Runs with the source", 1500, clock.nanoTime());
+    }
+
+    @Test
+    public void pauseSkipsPausedTime()
+    {
+        VirtualTimeSource timeSource = new VirtualTimeSource();
+        Clock clock = new Clock(timeSource);
+        timeSource.advanceBy(100);
+
+        clock.pause();
+        timeSource.advanceBy(1000);
+        assertEquals("Stands still while paused", 100, clock.nanoTime());
+
+        clock.resume();
+        timeSource.advanceBy(50);
+        assertEquals("Carries on from where it paused", 150, clock.nanoTime());
+    }
+
+    @Test
+    public void scale()
+    {
+        VirtualTimeSource timeSource = new VirtualTimeSource();
+        Clock clock = new Clock(timeSource);
+        timeSource.advanceBy(100);
+
+        clock.setScale(0.5);
+        timeSource.advanceBy(100);
+        assertEquals("Runs at half speed after the change", 150, clock.nanoTime());
+        assertEquals("Half speed takes twice as long", 200, clock.toSourceDuration(100));
+
+        clock.setScale(2);
+        timeSource.advanceBy(100);
+        assertEquals("Runs at double speed after the change", 350, clock.nanoTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroScaleIsRejected()
+    {
+        new Clock(new VirtualTimeSource()).setScale(0);
+    }
+}
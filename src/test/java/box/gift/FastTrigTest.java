@@ -0,0 +1,74 @@
+package box.gift;
+
+import org.junit.After;
+import org.junit.Test;
+
+import box.shoe.gameutils.FastTrig;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FastTrigTest
+{
+    @After
+    public void restoreDefaults()
+    {
+        FastTrig.setEnabled(false);
+        FastTrig.setResolution(FastTrig.DEFAULT_RESOLUTION);
+    }
+
+    @Test
+    public void disabledIsMath()
+    {
+        for (double radians = -10; radians < 10; radians += 0.37)
+        {
+            assertEquals(Math.sin(radians), FastTrig.sin(radians), 0);
+            assertEquals(Math.cos(radians), FastTrig.cos(radians), 0);
+        }
+    }
+
+    @Test
+    public void errorWithinBound()
+    {
+        FastTrig.setEnabled(true);
+        for (int resolution : new int[] {64, 4096})
+        {
+            FastTrig.setResolution(resolution);
+            double maxError = FastTrig.getMaxError();
+            for (double radians = -1000; radians < 1000; radians += 0.0123)
+            {
+                assertEquals("sin(" + radians + ")", Math.sin(radians), FastTrig.sin(radians), maxError);
+                assertEquals("cos(" + radians + ")", Math.cos(radians), FastTrig.cos(radians), maxError);
+            }
+        }
+        assertTrue("Default resolution is accurate enough for floats", FastTrig.getMaxError() < 4E-7);
+    }
+
+    @Test
+    public void largeAnglesWithinBound()
+    {
+        FastTrig.setEnabled(true);
+        double maxError = FastTrig.getMaxError();
+        // Just inside of the largest angle the table is used for.
+        double largest = 2 * Math.PI * ((1 << 20) - 1);
+        for (double radians = largest; radians < largest + 2 * Math.PI; radians += 0.0123)
+        {
+            assertEquals("sin(" + radians + ")", Math.sin(radians), FastTrig.sin(radians), maxError);
+            assertEquals("cos(" + radians + ")", Math.cos(radians), FastTrig.cos(radians), maxError);
+        }
+    }
+
+    @Test
+    public void hugeAnglesFallBack()
+    {
+        FastTrig.setEnabled(true);
+        assertEquals(Math.sin(1E12), FastTrig.sin(1E12), 0);
+        assertTrue(Double.isNaN(FastTrig.cos(Double.POSITIVE_INFINITY)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void resolutionMustBePowerOfTwo()
+    {
+        FastTrig.setResolution(1000);
+    }
+}
@@ -0,0 +1,110 @@
+package box.gift;
+
+import org.junit.Test;
+
+import box.shoe.gameutils.BoundingBox;
+import box.shoe.gameutils.Entity;
+import box.shoe.gameutils.FixedBox;
+import box.shoe.gameutils.FixedMath;
+import box.shoe.gameutils.FixedVector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FixedTest
+{
+    private static final int ONE = FixedMath.ONE;
+
+    @Test
+    public void arithmetic()
+    {
+        assertEquals("1.5 * 2.5", FixedMath.fromFloat(3.75f), FixedMath.mul(FixedMath.fromFloat(1.5f), FixedMath.fromFloat(2.5f)));
+        assertEquals("7 / 2", FixedMath.fromFloat(3.5f), FixedMath.div(FixedMath.fromInt(7), FixedMath.fromInt(2)));
+        assertEquals("sqrt(9)", FixedMath.fromInt(3), FixedMath.sqrt(FixedMath.fromInt(9)));
+        assertEquals("sqrt(2)", Math.sqrt(2), FixedMath.toFloat(FixedMath.sqrt(FixedMath.fromInt(2))), 1.0 / ONE);
+        assertEquals("Rounds toward negative infinity", -2, FixedMath.toInt(FixedMath.fromFloat(-1.5f)));
+    }
+
+    @Test
+    public void trigWithinBound()
+    {
+        assertEquals("sin of a quarter turn", ONE, FixedMath.sin(FixedMath.QUARTER_TURN));
+        assertEquals("cos of a half turn", -ONE, FixedMath.cos(FixedMath.HALF_TURN));
+        assertEquals("sin of no turn", 0, FixedMath.sin(0));
+        for (int angle = -3 * FixedMath.FULL_TURN; angle < 3 * FixedMath.FULL_TURN; angle += 7)
+        {
+            double radians = 2 * Math.PI * angle / FixedMath.FULL_TURN;
+            assertEquals("sin(" + angle + ")", Math.sin(radians), FixedMath.toFloat(FixedMath.sin(angle)), 2.0 / ONE);
+            assertEquals("cos(" + angle + ")", Math.cos(radians), FixedMath.toFloat(FixedMath.cos(angle)), 2.0 / ONE);
+        }
+        assertEquals("PI radians is half a turn", FixedMath.HALF_TURN, FixedMath.angleFromRadians(FixedMath.PI), 1);
+    }
+
+    @Test
+    public void vectorAndBox()
+    {
+        FixedVector vector = new FixedVector(FixedMath.fromInt(3), FixedMath.fromInt(4));
+        assertEquals("Magnitude", FixedMath.fromInt(5), vector.getMagnitude());
+        vector.rotateBy(FixedMath.QUARTER_TURN);
+        assertEquals("Rotated X", FixedMath.fromInt(-4), vector.getX());
+        assertEquals("Rotated Y", FixedMath.fromInt(3), vector.getY());
+
+        FixedBox box = new FixedBox(0, 0, FixedMath.fromInt(10), FixedMath.fromInt(10));
+        FixedBox other = new FixedBox(FixedMath.fromInt(10), 0, FixedMath.fromInt(20), FixedMath.fromInt(10));
+        assertFalse("Sharing an edge is not intersecting", box.intersects(other));
+        other.offset(-1, 0);
+        assertTrue("Overlapping by 1/65536 is", box.intersects(other));
+    }
+
+    // Any change to this result means simulations no longer match those of older versions (e.g. recorded replays).
+    @Test
+    public void resultsAreStable()
+    {
+        FixedBox body = FixedBox.fromCenter(0, 0, ONE, ONE);
+        FixedVector velocity = new FixedVector();
+        FixedVector acceleration = new FixedVector();
+        for (int update = 0; update < 1000; update++)
+        {
+            acceleration.setPolar(ONE / 100, update * 97);
+            velocity.add(acceleration).rotateBy(FixedMath.FULL_TURN / 360);
+            body.offset(velocity);
+        }
+        assertEquals(-13410402, body.left);
+        assertEquals(5430794, body.top);
+        assertEquals(-88901, velocity.getX());
+        assertEquals(-93203, velocity.getY());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void fixedEntityCannotAlsoMoveInFloat()
+    {
+        FixedEntity entity = new FixedEntity();
+        entity.update();
+        assertEquals("Float body follows the fixed one", 1, entity.body.left, 0);
+        entity.moveInFloat();
+    }
+
+    private static class FixedEntity extends Entity
+    {
+        private final FixedBox fixedBody = new FixedBox(0, 0, 10 * ONE, 10 * ONE);
+        private final FixedVector fixedVelocity = new FixedVector();
+        private final FixedVector fixedAcceleration = new FixedVector(ONE, 0);
+
+        private FixedEntity()
+        {
+            super(new BoundingBox(0, 0, 10, 10));
+        }
+
+        @Override
+        public void update()
+        {
+            integrateFixed(fixedBody, fixedVelocity, fixedAcceleration);
+        }
+
+        private void moveInFloat()
+        {
+            super.update();
+        }
+    }
+}
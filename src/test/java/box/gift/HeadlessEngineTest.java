@@ -0,0 +1,422 @@
+package box.gift;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.view.MotionEvent;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.Rng;
+import box.shoe.gameutils.SnapshotReader;
+import box.shoe.gameutils.SnapshotWriter;
+import box.shoe.gameutils.Snapshottable;
+import box.shoe.gameutils.VersionedInterpolatable;
+import box.shoe.gameutils.engine.Game;
+import box.shoe.gameutils.engine.AssetLoader;
+import box.shoe.gameutils.engine.HeadlessEngine;
+import box.shoe.gameutils.engine.PreloadingGame;
+import box.shoe.gameutils.engine.RateAwareGame;
+import box.shoe.gameutils.engine.ReplayRecorder;
+import box.shoe.gameutils.engine.Replayer;
+import box.shoe.gameutils.engine.VirtualTimeSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HeadlessEngineTest
+{
+    @Test
+    public void runUpdates()
+    {
+        CountingGame game = new CountingGame();
+        HeadlessEngine engine = new HeadlessEngine(game);
+        engine.start(100, 200);
+        assertEquals("Game is started with the given size", 100, game.startWidth);
+
+        engine.runUpdates(1000);
+        assertEquals("Every update is run", 1000, game.updates);
+        assertEquals("Update count is tracked", 1000, engine.getUpdateCount());
+        assertTrue("Updates per second is measured", engine.getUpdatesPerSecond() > 0);
+
+        engine.stop();
+        assertTrue("Game is stopped", game.stopped);
+    }
+
+    @Test
+    public void runPacedAdvancesVirtualTime() throws InterruptedException
+    {
+        VirtualTimeSource timeSource = new VirtualTimeSource();
+        HeadlessEngine engine = new HeadlessEngine(new CountingGame(), timeSource);
+        engine.start(100, 100);
+
+        engine.runPaced(500);
+        assertEquals("Ten seconds pass at 50 UPS", 10000000000L, timeSource.nanoTime());
+        assertEquals("Virtual time is paced exactly", 50, engine.getUpdatesPerSecond(), 0.0001);
+
+        engine.stop();
+    }
+
+    @Test
+    public void renderLoadsNewestValues()
+    {
+        CountingGame game = new CountingGame();
+        Counter counter = new Counter();
+        Interpolatable.INTERPOLATABLE_SERVICE.addMember(counter);
+
+        HeadlessEngine engine = new HeadlessEngine(game);
+        engine.setRendering(true, null);
+        engine.start(100, 100);
+        engine.runUpdates(10);
+
+        assertEquals("A render follows every update once there are two GameStates", 9, game.renders);
+        assertEquals("Renders show the newest GameState", 10, counter.loaded, 0);
+
+        engine.stop();
+        Interpolatable.INTERPOLATABLE_SERVICE.removeMember(counter);
+    }
+
+    @Test
+    public void unchangedVersionSkipsSaveAndLoad()
+    {
+        CountingGame game = new CountingGame();
+        StaticProp prop = new StaticProp();
+        Interpolatable.INTERPOLATABLE_SERVICE.addMember(prop);
+
+        HeadlessEngine engine = new HeadlessEngine(game);
+        engine.setRendering(true, null);
+        engine.start(100, 100);
+        engine.runUpdates(10);
+
+        assertEquals("Values are only saved when the version changes", 1, prop.saves);
+        assertEquals("Values are only loaded once while the version stays the same", 1, prop.loads);
+        assertEquals("The saved values are loaded", 7, prop.loaded, 0);
+
+        prop.version++;
+        engine.runUpdates(2);
+        assertEquals("A new version is saved", 2, prop.saves);
+        assertEquals("A new version is loaded", 3, prop.loads);
+
+        engine.stop();
+        Interpolatable.INTERPOLATABLE_SERVICE.removeMember(prop);
+    }
+
+    @Test
+    public void replayRepeatsRecordedSession() throws IOException
+    {
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ReplayRecorder recorder = new ReplayRecorder(log);
+        recorder.begin(1234, 50, 320, 240);
+        recorder.recordUpdateRateChange(40, 25);
+        recorder.finish(100);
+        assertTrue("Log is compact", log.size() < 32);
+
+        long[] sums = new long[2];
+        for (int run = 0; run < 2; run++)
+        {
+            Rng.setSeed(run);
+            RandomWalkGame game = new RandomWalkGame();
+            Replayer replayer = new Replayer(new ByteArrayInputStream(log.toByteArray()));
+            HeadlessEngine engine = new HeadlessEngine(game);
+            replayer.replay(engine);
+
+            assertEquals("Game is started with the recorded size", 320, ((CountingGame) game).startWidth);
+            assertEquals("Every recorded update is run", 100, engine.getUpdateCount());
+            assertEquals("Rate change comes right before the recorded update", 40, game.updatesBeforeRateChange);
+            assertEquals("Rate change is replayed", 25, engine.getTargetUpdatesPerSecond());
+            sums[run] = game.sum;
+            engine.stop();
+        }
+        assertEquals("Replays are deterministic", sums[0], sums[1]);
+    }
+
+    @Test
+    public void rollbackRestoresAndRunsAgain()
+    {
+        Walker[] walkers = new Walker[50];
+        for (int i = 0; i < walkers.length; i++)
+        {
+            walkers[i] = new Walker();
+            Snapshottable.SNAPSHOTTABLE_SERVICE.addMember(walkers[i]);
+        }
+        WalkingGame game = new WalkingGame(walkers[0]);
+        HeadlessEngine engine = new HeadlessEngine(game);
+        engine.enableSnapshots(32);
+        engine.start(100, 100);
+
+        engine.runUpdates(40);
+        assertEquals("Only snapshots within the capacity are kept", 24, engine.getMaxRollback());
+        assertEquals(40, walkers[0].position);
+
+        // Late input says the first walker should have been walking faster for the last 10 updates.
+        walkers[0].stride = 2;
+        engine.rollback(10);
+        assertEquals("Updates are run again from the restored state", 50, walkers[0].position);
+        assertEquals("Other members are restored too", 0, walkers[1].position);
+        assertEquals("Update count does not change", 40, engine.getUpdateCount());
+        assertEquals("Every update is run again", 50, ((CountingGame) game).updates);
+
+        engine.stop();
+        for (Walker walker : walkers)
+        {
+            Snapshottable.SNAPSHOTTABLE_SERVICE.removeMember(walker);
+        }
+    }
+
+    @Test
+    public void rollbackDrawsSameRandomValues()
+    {
+        Rng.setSeed(99);
+        java.util.Random reference = new java.util.Random(99);
+        assertEquals("Rng draws what java.util.Random draws", reference.nextInt(), Rng.nextInt());
+        assertEquals(reference.nextGaussian(), Rng.nextGaussian(), 0);
+
+        Walker walker = new Walker();
+        Snapshottable.SNAPSHOTTABLE_SERVICE.addMember(walker);
+        RandomStrideGame game = new RandomStrideGame(walker);
+        HeadlessEngine engine = new HeadlessEngine(game);
+        engine.enableSnapshots(32);
+        engine.start(100, 100);
+
+        engine.runUpdates(40);
+        int position = walker.position;
+        long next = Rng.nextLong();
+
+        engine.rollback(10);
+        assertEquals("Re-run updates draw the same values", position, walker.position);
+        assertEquals("Rng is left where it was", next, Rng.nextLong());
+
+        engine.stop();
+        Snapshottable.SNAPSHOTTABLE_SERVICE.removeMember(walker);
+    }
+
+    @Test
+    public void preloadFinishesBeforeStart()
+    {
+        PreloadedGame game = new PreloadedGame();
+        HeadlessEngine engine = new HeadlessEngine(game);
+        engine.start(100, 100);
+
+        assertEquals("Progress is reported for every asset", 3, game.progress);
+        assertEquals("Assets are loaded by the time the game starts", "3", game.startedWith);
+        engine.stop();
+    }
+
+    private static class PreloadedGame extends CountingGame implements PreloadingGame
+    {
+        private AssetLoader.Asset<String> asset;
+        private int progress;
+        private String startedWith;
+
+        @Override
+        public void onPreload(AssetLoader assetLoader)
+        {
+            for (int i = 1; i <= 3; i++)
+            {
+                final String value = String.valueOf(i);
+                asset = assetLoader.load(new Callable<String>()
+                {
+                    @Override
+                    public String call()
+                    {
+                        return value;
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onPreloadProgress(int loaded, int total)
+        {
+            assertEquals(3, total);
+            progress = loaded;
+        }
+
+        @Override
+        public void onStart(int screenWidth, int screenHeight)
+        {
+            super.onStart(screenWidth, screenHeight);
+            startedWith = asset.get();
+        }
+    }
+
+    private static class Walker implements Snapshottable
+    {
+        private int position;
+        private int stride = 1;
+
+        @Override
+        public void writeSnapshot(SnapshotWriter out)
+        {
+            out.writeInt(position);
+        }
+
+        @Override
+        public void readSnapshot(SnapshotReader in)
+        {
+            position = in.readInt();
+        }
+    }
+
+    private static class WalkingGame extends CountingGame
+    {
+        private final Walker walker;
+
+        private WalkingGame(Walker walker)
+        {
+            this.walker = walker;
+        }
+
+        @Override
+        public void update()
+        {
+            super.update();
+            walker.position += walker.stride;
+        }
+    }
+
+    private static class RandomStrideGame extends CountingGame
+    {
+        private final Walker walker;
+
+        private RandomStrideGame(Walker walker)
+        {
+            this.walker = walker;
+        }
+
+        @Override
+        public void update()
+        {
+            super.update();
+            // One gaussian per update, so that some snapshots are taken with the second of a pair cached.
+            walker.position += Rng.nextInt(10) + (int) (Rng.nextGaussian() * 10);
+        }
+    }
+
+    private static class RandomWalkGame extends CountingGame implements RateAwareGame
+    {
+        private long sum;
+        private int updatesBeforeRateChange = -1;
+
+        @Override
+        public void update()
+        {
+            super.update();
+            sum += Rng.nextInt();
+        }
+
+        @Override
+        public void onUpdateRateChanged(int updatesPerSecond)
+        {
+            updatesBeforeRateChange = super.updates;
+        }
+    }
+
+    private static class CountingGame implements Game
+    {
+        private int startWidth;
+        private boolean stopped;
+        private int updates;
+        private int renders;
+
+        @Override
+        public void onStart(int screenWidth, int screenHeight)
+        {
+            startWidth = screenWidth;
+        }
+
+        @Override
+        public void onStop()
+        {
+            stopped = true;
+        }
+
+        @Override
+        public void onScreenSizeChanged(int newScreenWidth, int newScreenHeight, int oldScreenWidth, int oldScreenHeight) {}
+
+        @Override
+        public void onTouch(MotionEvent touchEvent) {}
+
+        @Override
+        public int getTargetUpdatesPerSecond()
+        {
+            return 50;
+        }
+
+        @Override
+        public void render(Resources resources, Canvas canvas)
+        {
+            renders++;
+        }
+
+        @Override
+        public void update()
+        {
+            updates++;
+        }
+    }
+
+    private static class StaticProp implements VersionedInterpolatable
+    {
+        private long version = 1;
+        private int saves;
+        private int loads;
+        private float loaded;
+
+        @Override
+        public long getInterpVersion()
+        {
+            return version;
+        }
+
+        @Override
+        public int getInterpValuesArrayMaxIndex()
+        {
+            return 0;
+        }
+
+        @Override
+        public void saveInterpValues(float[] out)
+        {
+            saves++;
+            out[0] = 7;
+        }
+
+        @Override
+        public void loadInterpValues(float[] in)
+        {
+            loads++;
+            loaded = in[0];
+        }
+    }
+
+    private static class Counter implements Interpolatable
+    {
+        private float count;
+        private float loaded;
+
+        @Override
+        public int getInterpValuesArrayMaxIndex()
+        {
+            return 0;
+        }
+
+        @Override
+        public void saveInterpValues(float[] out)
+        {
+            count++;
+            out[0] = count;
+        }
+
+        @Override
+        public void loadInterpValues(float[] in)
+        {
+            loaded = in[0];
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package box.gift;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import box.shoe.gameutils.engine.Job;
+import box.shoe.gameutils.engine.JobSystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class JobSystemTest
+{
+    private static final int WIDTH = 16;
+    private static final int BATCHES = 200;
+
+    @Test
+    public void dependentBatchesRunEveryJobOnce()
+    {
+        JobSystem jobSystem = new JobSystem(4);
+        final AtomicBoolean ranEarly = new AtomicBoolean(false);
+
+        // Three layers: each job of the second layer waits on two of the first, and the last job on all the second.
+        final AtomicInteger[] firstRuns = new AtomicInteger[WIDTH];
+        final AtomicInteger[] secondRuns = new AtomicInteger[WIDTH];
+        final AtomicInteger lastRuns = new AtomicInteger();
+        Job[] first = new Job[WIDTH];
+        Job[] second = new Job[WIDTH];
+        for (int i = 0; i < WIDTH; i++)
+        {
+            firstRuns[i] = new AtomicInteger();
+            secondRuns[i] = new AtomicInteger();
+            first[i] = new Job(new Counter(firstRuns[i]));
+        }
+        for (int i = 0; i < WIDTH; i++)
+        {
+            final AtomicInteger left = firstRuns[i];
+            final AtomicInteger right = firstRuns[(i + 1) % WIDTH];
+            final AtomicInteger runs = secondRuns[i];
+            second[i] = new Job(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    // Both dependencies have run once more than this job has, by now.
+                    int expected = runs.get() + 1;
+                    if (left.get() != expected || right.get() != expected)
+                    {
+                        ranEarly.set(true);
+                    }
+                    runs.incrementAndGet();
+                }
+            }).after(first[i]).after(first[(i + 1) % WIDTH]);
+        }
+        Job last = new Job(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                int expected = lastRuns.get() + 1;
+                for (AtomicInteger runs : secondRuns)
+                {
+                    if (runs.get() != expected)
+                    {
+                        ranEarly.set(true);
+                    }
+                }
+                lastRuns.incrementAndGet();
+            }
+        });
+        for (Job job : second)
+        {
+            last.after(job);
+        }
+
+        try
+        {
+            for (int batch = 1; batch <= BATCHES; batch++)
+            {
+                for (Job job : first)
+                {
+                    jobSystem.submit(job);
+                }
+                for (Job job : second)
+                {
+                    jobSystem.submit(job);
+                }
+                jobSystem.submit(last);
+                jobSystem.join();
+
+                for (int i = 0; i < WIDTH; i++)
+                {
+                    assertEquals("Every job ran once before join returned", batch, firstRuns[i].get());
+                    assertEquals("Every job ran once before join returned", batch, secondRuns[i].get());
+                }
+                assertEquals("Every job ran once before join returned", batch, lastRuns.get());
+            }
+            assertFalse("No job ran before its dependencies", ranEarly.get());
+        }
+        finally
+        {
+            jobSystem.shutdown();
+        }
+    }
+
+    @Test
+    public void shutdownStopsWorkers() throws InterruptedException
+    {
+        Set<Thread> before = new HashSet<>(Thread.getAllStackTraces().keySet());
+        JobSystem jobSystem = new JobSystem(3);
+        Set<Thread> workers = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            if (!before.contains(thread) && thread.getName().startsWith("Jobs "))
+            {
+                workers.add(thread);
+            }
+        }
+        assertEquals("Worker threads started", 3, workers.size());
+
+        // Give the workers something to do first, so that they are not all waiting.
+        AtomicInteger runs = new AtomicInteger();
+        for (int i = 0; i < 8; i++)
+        {
+            jobSystem.submit(new Job(new Counter(runs)));
+        }
+        jobSystem.join();
+        assertEquals(8, runs.get());
+
+        jobSystem.shutdown();
+        for (Thread worker : workers)
+        {
+            worker.join(5000);
+            assertFalse(worker.getName() + " stopped", worker.isAlive());
+        }
+
+        try
+        {
+            jobSystem.submit(new Job(new Counter(runs)));
+            fail("Submitting after shutdown should throw");
+        }
+        catch (IllegalStateException expected)
+        {
+            // Shut down for good.
+        }
+    }
+
+    private static class Counter implements Runnable
+    {
+        private final AtomicInteger runs;
+
+        private Counter(AtomicInteger runs)
+        {
+            this.runs = runs;
+        }
+
+        @Override
+        public void run()
+        {
+            runs.incrementAndGet();
+        }
+    }
+}
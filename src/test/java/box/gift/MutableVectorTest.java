@@ -0,0 +1,50 @@
+package box.gift;
+
+import org.junit.Test;
+
+import box.shoe.gameutils.MutableVector;
+import box.shoe.gameutils.Vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MutableVectorTest
+{
+    private final float DELTA = 0.000001f;
+
+    @Test
+    public void addInPlace()
+    {
+        MutableVector test = new MutableVector(10, 15);
+        assertSame("Operations return the same MutableVector", test, test.add(new MutableVector(12, 14)));
+        assertEquals("X is added", 22, test.getX(), 0);
+        assertEquals("Y is added", 29, test.getY(), 0);
+    }
+
+    @Test
+    public void matchesVector()
+    {
+        Vector vector = Vector.fromCartesian(3, 4);
+        Vector target = Vector.fromCartesian(1, 2);
+
+        MutableVector rotated = new MutableVector(vector).rotateBy(0.7);
+        assertEquals("Rotates like Vector", vector.rotateBy(0.7).getX(), rotated.getX(), DELTA);
+        assertEquals("Rotates like Vector", vector.rotateBy(0.7).getY(), rotated.getY(), DELTA);
+
+        MutableVector projected = new MutableVector(vector).projectOnto(target);
+        assertEquals("Projects like Vector", vector.projectOnto(target).getX(), projected.getX(), DELTA);
+        assertEquals("Projects like Vector", vector.projectOnto(target).getY(), projected.getY(), DELTA);
+
+        MutableVector perpendicular = new MutableVector(vector).perpendicular();
+        assertEquals("Is perpendicular like Vector", vector.perpendicular().getX(), perpendicular.getX(), DELTA);
+        assertEquals("Is perpendicular like Vector", vector.perpendicular().getY(), perpendicular.getY(), DELTA);
+
+        assertEquals("Unit has magnitude 1", 1, new MutableVector(vector).unit().getMagnitude(), DELTA);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void zeroHasNoUnit()
+    {
+        new MutableVector().unit();
+    }
+}
@@ -0,0 +1,100 @@
+package box.gift;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import box.shoe.gameutils.Service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class ServiceTest
+{
+    @Test
+    public void membersArePacked()
+    {
+        Service<Object> service = new Service<>();
+        Object a = new Object();
+        Object b = new Object();
+        Object c = new Object();
+        service.addMember(a);
+        service.addMember(b);
+        service.addMember(c);
+
+        service.removeMember(a);
+        assertEquals("Removed member is gone", 2, service.size());
+        assertSame("Last member moves into the hole", c, service.get(0));
+        assertSame("Other members stay put", b, service.get(1));
+        assertFalse(service.hasMember(a));
+        assertTrue(service.hasMember(c));
+    }
+
+    @Test
+    public void addingTwiceKeepsOneMember()
+    {
+        Service<Object> service = new Service<>();
+        Object a = new Object();
+        long handle = service.addMember(a);
+        assertEquals("Same handle is returned", handle, service.addMember(a));
+        assertEquals(1, service.size());
+    }
+
+    @Test
+    public void staleHandlesAreInvalid()
+    {
+        Service<Object> service = new Service<>();
+        Object a = new Object();
+        Object b = new Object();
+        long handleA = service.addMember(a);
+        assertSame(a, service.getMember(handleA));
+
+        service.removeHandle(handleA);
+        long handleB = service.addMember(b);
+        assertFalse("Old handle does not find the member that reused its slot", service.isValid(handleA));
+        assertNull(service.getMember(handleA));
+        assertSame(b, service.getMember(handleB));
+        assertFalse(service.isValid(Service.INVALID_HANDLE));
+    }
+
+    @Test
+    public void modificationCountChanges()
+    {
+        Service<Object> service = new Service<>();
+        int before = service.getModificationCount();
+        Object a = new Object();
+        service.addMember(a);
+        assertTrue(before != service.getModificationCount());
+    }
+
+    @Test
+    public void leakedMembersStayUntilRemoved()
+    {
+        // Members are only held weakly in debug builds, which the tests are.
+        Service<Object> service = new Service<>();
+        Object kept = new Object();
+        service.addMember(new Object());
+        service.addMember(kept);
+        WeakReference<Object> leaked = new WeakReference<>(service.get(0));
+        for (int i = 0; i < 10 && leaked.get() != null; i++)
+        {
+            System.gc();
+        }
+        assumeTrue("Leaked member was garbage collected", leaked.get() == null);
+
+        // Iterating must not move members around, even though one of them is gone.
+        assertEquals(2, service.size());
+        assertNull(service.get(0));
+        assertSame(kept, service.get(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removingNonMemberThrows()
+    {
+        new Service<>().removeMember(new Object());
+    }
+}
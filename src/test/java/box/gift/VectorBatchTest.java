@@ -0,0 +1,53 @@
+package box.gift;
+
+import org.junit.Test;
+
+import box.shoe.gameutils.Vector;
+import box.shoe.gameutils.VectorBatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class VectorBatchTest
+{
+    private final float DELTA = 0.000001f;
+
+    @Test
+    public void rotateMatchesVector()
+    {
+        float[] x = {3, -1, 0};
+        float[] y = {4, 2, 0};
+        VectorBatch.rotate(x, y, 0.7, 3);
+        Vector expected = Vector.fromCartesian(-1, 2).rotateBy(0.7);
+        assertEquals("Rotates like Vector", expected.getX(), x[1], DELTA);
+        assertEquals("Rotates like Vector", expected.getY(), y[1], DELTA);
+        assertEquals("Zero stays zero", 0, x[2], 0);
+    }
+
+    @Test
+    public void clampOnlyLongVectors()
+    {
+        float[] x = {3, 0.3f};
+        float[] y = {4, 0.4f};
+        VectorBatch.clampMagnitude(x, y, 1, 2);
+        assertEquals("Long vector is clamped", 0.6f, x[0], DELTA);
+        assertEquals("Long vector is clamped", 0.8f, y[0], DELTA);
+        assertEquals("Short vector is left alone", 0.3f, x[1], 0);
+    }
+
+    @Test
+    public void onlyCountIsTouched()
+    {
+        float[] x = {1, 1};
+        float[] y = {1, 1};
+        VectorBatch.addScaled(x, y, new float[] {2, 2}, new float[] {4, 4}, 0.5f, 1);
+        assertEquals(2, x[0], 0);
+        assertEquals(3, y[0], 0);
+        assertEquals("Vectors past count are not touched", 1, x[1], 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void countMustFit()
+    {
+        VectorBatch.normalize(new float[2], new float[1], 2);
+    }
+}
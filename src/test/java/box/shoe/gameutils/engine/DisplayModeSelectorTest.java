@@ -0,0 +1,92 @@
+package box.shoe.gameutils.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DisplayModeSelectorTest
+{
+    private static final int FIX = 1;
+    private static final int VAR = 2;
+    private static final int WINDOW = 10;
+    private static final long STEP_NS = 1000000;
+
+    private final DisplayModeSelector selector = new DisplayModeSelector(WINDOW);
+    private int mode = FIX;
+
+    @Test
+    public void jitterWhichAveragesOutStaysFixed()
+    {
+        for (int i = 0; i < 10 * WINDOW; i++)
+        {
+            record(i % 2 == 0 ? STEP_NS * 3 / 2 : STEP_NS / 2);
+        }
+        assertEquals(FIX, mode);
+    }
+
+    @Test
+    public void consistentlyLateSwitchesOnlyOnceWindowIsFull()
+    {
+        for (int i = 0; i < WINDOW - 1; i++)
+        {
+            record(STEP_NS * 2);
+        }
+        assertEquals("Not enough intervals to tell yet", FIX, mode);
+        record(STEP_NS * 2);
+        assertEquals(VAR, mode);
+    }
+
+    @Test
+    public void thresholdsGiveHysteresis()
+    {
+        fillWindow(STEP_NS * 2);
+        assertEquals(VAR, mode);
+
+        // Between the two thresholds, so no mode is left.
+        fillWindow(STEP_NS * 105 / 100);
+        assertEquals("Stays varied above the lower threshold", VAR, mode);
+        fillWindow(STEP_NS);
+        assertEquals(FIX, mode);
+        fillWindow(STEP_NS * 105 / 100);
+        assertEquals("Stays fixed below the upper threshold", FIX, mode);
+    }
+
+    @Test
+    public void staysAWholeWindowAfterSwitching()
+    {
+        fillWindow(STEP_NS * 2);
+        assertEquals(VAR, mode);
+
+        // Early intervals which cancel the late ones out, which would switch right back if not for the minimum stay.
+        for (int i = 0; i < WINDOW / 2; i++)
+        {
+            record(0);
+        }
+        assertEquals("Mean deviation is 0, but the mode changed less than a window ago", VAR, mode);
+    }
+
+    @Test
+    public void resetForgetsIntervals()
+    {
+        for (int i = 0; i < WINDOW - 1; i++)
+        {
+            record(STEP_NS * 2);
+        }
+        selector.reset();
+        record(STEP_NS * 2);
+        assertEquals(FIX, mode);
+    }
+
+    private void fillWindow(long intervalNS)
+    {
+        for (int i = 0; i < WINDOW; i++)
+        {
+            record(intervalNS);
+        }
+    }
+
+    private void record(long intervalNS)
+    {
+        mode = selector.recordInterval(intervalNS, STEP_NS, mode, FIX, VAR);
+    }
+}
@@ -0,0 +1,27 @@
+package box.shoe.gameutils.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// In the Engine's package, since the thread checks are package-private (an Engine needs a real View to be made).
+public class EngineThreadTest
+{
+    @Test
+    public void singleModeHasNoRoleThreads()
+    {
+        // No Looper is prepared in a unit test, so this thread stands in for the main thread:
+        // it plays every role, although the role threads were never made.
+        assertTrue("Renders in THREAD_MODE_SINGLE", Engine.isCurrentThread(Engine.THREAD_MODE_SINGLE, null));
+        assertTrue("Updates in THREAD_MODE_SINGLE", Engine.isCurrentThread(Engine.THREAD_MODE_SINGLE, new Thread()));
+    }
+
+    @Test
+    public void dualModeNeedsTheRoleThread()
+    {
+        assertTrue(Engine.isCurrentThread(Engine.THREAD_MODE_DUAL, Thread.currentThread()));
+        assertFalse(Engine.isCurrentThread(Engine.THREAD_MODE_DUAL, new Thread()));
+        assertFalse("Not before the threads are made", Engine.isCurrentThread(Engine.THREAD_MODE_DUAL, null));
+    }
+}
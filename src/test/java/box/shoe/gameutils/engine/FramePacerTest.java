@@ -0,0 +1,27 @@
+package box.shoe.gameutils.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FramePacerTest
+{
+    private static final long FRAME_PERIOD_NS = 16000000;
+
+    @Test
+    public void degradesOnlyWhenGameCan()
+    {
+        // A render cost which does not fit in a frame, but would if it were cheaper.
+        long renderCostNS = FRAME_PERIOD_NS;
+
+        FramePacer paced = new FramePacer(FRAME_PERIOD_NS, true);
+        paced.decide(0, 0);
+        paced.recordRender(renderCostNS, PacedGame.FRAME_RENDER);
+        assertEquals(PacedGame.FRAME_DEGRADE, paced.decide(0, 0));
+
+        FramePacer unpaced = new FramePacer(FRAME_PERIOD_NS, false);
+        unpaced.decide(0, 0);
+        unpaced.recordRender(renderCostNS, PacedGame.FRAME_RENDER);
+        assertEquals("Renders in full instead", PacedGame.FRAME_RENDER, unpaced.decide(0, 0));
+    }
+}
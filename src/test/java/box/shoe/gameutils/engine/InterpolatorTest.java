@@ -0,0 +1,114 @@
+package box.shoe.gameutils.engine;
+
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import org.junit.Test;
+
+import box.shoe.gameutils.BoundingBox;
+import box.shoe.gameutils.Entity;
+import box.shoe.gameutils.Interpolatable;
+import box.shoe.gameutils.camera.CameraInterpolationFilter;
+import box.shoe.gameutils.camera.RectCamera;
+
+import static org.junit.Assert.assertEquals;
+
+public class InterpolatorTest
+{
+    @Test
+    public void filterSeesSavedValues()
+    {
+        final Position position = new Position();
+        Interpolatable.INTERPOLATABLE_SERVICE.addMember(position);
+        try
+        {
+            Interpolator interpolator = new Interpolator();
+            GameState past = new GameState();
+            GameState current = new GameState();
+            position.x = 1;
+            interpolator.save(past);
+            position.x = 2;
+            interpolator.save(current);
+            // The update thread has moved on meanwhile.
+            position.x = 100;
+
+            final float[] seen = new float[2];
+            interpolator.load(past, current, 0.5, new InterpolationFilter()
+            {
+                @Override
+                public void beginFrame(SavedInterpValues savedValues) {}
+
+                @Override
+                public boolean shouldInterpolate(Interpolatable interpolatable, float[] pastValues, float[] currentValues)
+                {
+                    seen[0] = pastValues[0];
+                    seen[1] = currentValues[0];
+                    return true;
+                }
+            });
+            assertEquals("Sees the older saved value", 1, seen[0], 0);
+            assertEquals("Sees the newer saved value", 2, seen[1], 0);
+            assertEquals("Interpolated between them", 1.5, position.loaded, 0.0001);
+        }
+        finally
+        {
+            Interpolatable.INTERPOLATABLE_SERVICE.removeMember(position);
+        }
+    }
+
+    @Test
+    public void cameraFilterUsesSavedCamera()
+    {
+        RectCamera camera = new RectCamera(new RectF(0, 0, 100, 100), new Rect(0, 0, 100, 100));
+        Entity seen = new Entity(new BoundingBox(10, 10, 20, 20));
+        Entity unseen = new Entity(new BoundingBox(500, 500, 510, 510));
+        Interpolatable.INTERPOLATABLE_SERVICE.addMember(seen);
+        Interpolatable.INTERPOLATABLE_SERVICE.addMember(unseen);
+        try
+        {
+            Interpolator interpolator = new Interpolator();
+            GameState past = new GameState();
+            GameState current = new GameState();
+            interpolator.save(past);
+            seen.body.offset(10, 0);
+            unseen.body.offset(10, 0);
+            interpolator.save(current);
+            // The update thread has moved the camera onto the unseen Entity meanwhile.
+            camera.setGamePortionToShow(new RectF(450, 450, 550, 550));
+
+            interpolator.load(past, current, 0.5, new CameraInterpolationFilter(camera, 0));
+            assertEquals("Entity the saved camera shows is interpolated", 15, seen.display.left, 0.0001);
+            assertEquals("Entity it does not show is held back", 500, unseen.display.left, 0);
+        }
+        finally
+        {
+            seen.cleanup();
+            unseen.cleanup();
+            Interpolatable.INTERPOLATABLE_SERVICE.removeMember(camera);
+        }
+    }
+
+    private static class Position implements Interpolatable
+    {
+        private float x;
+        private float loaded;
+
+        @Override
+        public int getInterpValuesArrayMaxIndex()
+        {
+            return 0;
+        }
+
+        @Override
+        public void saveInterpValues(float[] out)
+        {
+            out[0] = x;
+        }
+
+        @Override
+        public void loadInterpValues(float[] in)
+        {
+            loaded = in[0];
+        }
+    }
+}
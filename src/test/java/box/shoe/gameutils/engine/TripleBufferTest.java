@@ -0,0 +1,88 @@
+package box.shoe.gameutils.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TripleBufferTest
+{
+    @Test
+    public void acquiresNewestPublished()
+    {
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(new int[1], new int[1], new int[1]);
+        assertFalse("Nothing published yet", buffer.acquire());
+        assertNotSame(buffer.getWriteBuffer(), buffer.getReadBuffer());
+
+        buffer.getWriteBuffer()[0] = 1;
+        buffer.publish();
+        buffer.getWriteBuffer()[0] = 2;
+        int[] newest = buffer.getWriteBuffer();
+        buffer.publish();
+
+        assertTrue(buffer.acquire());
+        assertSame("Older unread buffer is skipped", newest, buffer.getReadBuffer());
+        assertEquals(2, buffer.getReadBuffer()[0]);
+        assertNotSame("Reader never gets the write buffer", buffer.getWriteBuffer(), buffer.getReadBuffer());
+    }
+
+    @Test
+    public void keepsBufferWhenNothingNew()
+    {
+        TripleBuffer<int[]> buffer = new TripleBuffer<>(new int[1], new int[1], new int[1]);
+        buffer.publish();
+        assertTrue(buffer.acquire());
+        int[] acquired = buffer.getReadBuffer();
+
+        assertFalse(buffer.acquire());
+        assertSame(acquired, buffer.getReadBuffer());
+
+        // A publish after that is picked up, and hands back a buffer which the writer does not own.
+        buffer.publish();
+        assertTrue(buffer.acquire());
+        assertNotSame(acquired, buffer.getReadBuffer());
+        assertNotSame(buffer.getWriteBuffer(), buffer.getReadBuffer());
+    }
+
+    @Test
+    public void readerNeverSeesWritesInProgress() throws InterruptedException
+    {
+        final TripleBuffer<long[]> buffer = new TripleBuffer<>(new long[2], new long[2], new long[2]);
+        final long published = 200000;
+
+        Thread writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                for (long i = 1; i <= published; i++)
+                {
+                    // Both halves are written, so a reader sharing the buffer would catch them out of step.
+                    long[] values = buffer.getWriteBuffer();
+                    values[0] = i;
+                    values[1] = -i;
+                    buffer.publish();
+                }
+            }
+        });
+        writer.start();
+
+        long newest = 0;
+        while (newest < published)
+        {
+            if (buffer.acquire())
+            {
+                long[] values = buffer.getReadBuffer();
+                long value = values[0];
+                assertTrue("Every acquire gets a newer buffer", value > newest);
+                assertEquals("Buffer is not written while it is read", -value, values[1]);
+                newest = value;
+            }
+        }
+        writer.join();
+        assertFalse("The newest one was already acquired", buffer.acquire());
+    }
+}
@@ -0,0 +1,81 @@
+package box.shoe.gameutils.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class UpdateRateGovernorTest
+{
+    private static final long MS = 1000000;
+
+    private int ups = 50;
+
+    @Test
+    public void stepsDownAfterSettling()
+    {
+        UpdateRateGovernor governor = new UpdateRateGovernor(1, 50);
+
+        // 18ms is more than 75% of the 20ms between updates at 50 UPS. Nothing changes for two seconds' worth.
+        assertEquals("Settles for 2 seconds of updates first", 100, updatesUntilStep(governor, 18 * MS, 1000));
+        assertEquals(40, ups);
+
+        // 18ms is less than 75% of 25ms, and more than 35% of 20ms, so 40 UPS is where it stays.
+        assertEquals(-1, updatesUntilStep(governor, 18 * MS, 1000));
+        assertEquals(40, ups);
+    }
+
+    @Test
+    public void settlesAfterEveryStep()
+    {
+        UpdateRateGovernor governor = new UpdateRateGovernor(1, 50);
+        updatesUntilStep(governor, 100 * MS, 1000);
+        assertEquals(40, ups);
+
+        // Still far too slow, but a step at 40 UPS waits for 80 updates.
+        assertEquals(80, updatesUntilStep(governor, 100 * MS, 1000));
+        assertEquals(25, ups);
+        assertEquals(50, updatesUntilStep(governor, 100 * MS, 1000));
+        assertEquals(20, ups);
+    }
+
+    @Test
+    public void stepsBackUpToMaximum()
+    {
+        UpdateRateGovernor governor = new UpdateRateGovernor(1, 50);
+        updatesUntilStep(governor, 30 * MS, 1000);
+        updatesUntilStep(governor, 30 * MS, 1000);
+        assertEquals(25, ups);
+
+        // 1ms is well under 35% of the time between updates at the next option up.
+        assertEquals("Settles before stepping up too", 50, updatesUntilStep(governor, MS, 1000));
+        assertEquals(40, ups);
+        assertEquals(80, updatesUntilStep(governor, MS, 1000));
+        assertEquals(50, ups);
+        assertEquals("Never above the maximum", -1, updatesUntilStep(governor, MS, 1000));
+    }
+
+    @Test
+    public void neverBelowMinimum()
+    {
+        UpdateRateGovernor governor = new UpdateRateGovernor(40, 50);
+        updatesUntilStep(governor, 100 * MS, 1000);
+        assertEquals(40, ups);
+        assertEquals(-1, updatesUntilStep(governor, 100 * MS, 1000));
+    }
+
+    // Record updates which take durationNS at the current UPS, until the governor steps to another UPS.
+    // Returns how many updates that took, or -1 if it did not step within limit updates.
+    private int updatesUntilStep(UpdateRateGovernor governor, long durationNS, int limit)
+    {
+        for (int i = 1; i <= limit; i++)
+        {
+            int governedUPS = governor.recordUpdate(durationNS, ups);
+            if (governedUPS != ups)
+            {
+                ups = governedUPS;
+                return i;
+            }
+        }
+        return -1;
+    }
+}